@@ -0,0 +1,40 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// Loads the card/pin/popup texts and pin screenshots from src/jmh/resources/fixtures.
+final class Fixtures {
+
+  private static final String SAMPLE_SEPARATOR = "\n----\n";
+
+  private Fixtures() {}
+
+  static List<String> samples(String name) {
+    return Arrays.stream(text(name).split(SAMPLE_SEPARATOR)).map(String::strip).toList();
+  }
+
+  static List<String> lines(String name) {
+    return text(name).lines().filter(line -> !line.isBlank()).toList();
+  }
+
+  static String text(String name) {
+    return new String(bytes(name), StandardCharsets.UTF_8);
+  }
+
+  static byte[] bytes(String name) {
+    try (InputStream inputStream =
+        Fixtures.class.getClassLoader().getResourceAsStream("fixtures/" + name)) {
+      if (inputStream == null) {
+        throw new IllegalStateException("Missing benchmark fixture: " + name);
+      }
+      return inputStream.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
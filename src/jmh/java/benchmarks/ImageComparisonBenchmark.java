@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import utils.ImageComparator;
+import utils.ImageComparator.ComparisonResult;
+
+// Pin screenshot comparison, using real before/after hover captures of a map pin.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ImageComparisonBenchmark {
+
+  private byte[] beforeHover;
+  private byte[] afterHover;
+  private BufferedImage beforeHoverImage;
+  private BufferedImage afterHoverImage;
+  private ImageComparator exactComparator;
+  private ImageComparator tolerantComparator;
+
+  @Setup
+  public void loadFixtures() {
+    beforeHover = Fixtures.bytes("pin-before-hover.png");
+    afterHover = Fixtures.bytes("pin-after-hover.png");
+    beforeHoverImage = ImageComparator.decode(beforeHover);
+    afterHoverImage = ImageComparator.decode(afterHover);
+    exactComparator = ImageComparator.exact();
+    tolerantComparator = new ImageComparator(0.01, 8);
+  }
+
+  // Decode both PNGs and compare them, as the hover verification does
+  @Benchmark
+  public ComparisonResult decodeAndCompare() {
+    return exactComparator.compare(beforeHover, afterHover);
+  }
+
+  @Benchmark
+  public ComparisonResult compareDecodedExact() {
+    return exactComparator.compare(beforeHoverImage, beforeHoverImage);
+  }
+
+  @Benchmark
+  public ComparisonResult compareDecodedWithTolerance() {
+    return tolerantComparator.compare(beforeHoverImage, afterHoverImage);
+  }
+
+  // Reference: the previous per-pixel getRGB(x, y) loop on identical images (its worst case)
+  @Benchmark
+  public boolean perPixelGetRgbBaseline() {
+    BufferedImage first = beforeHoverImage;
+    BufferedImage second = beforeHoverImage;
+    if (first.getWidth() != second.getWidth() || first.getHeight() != second.getHeight()) {
+      return false;
+    }
+    for (int y = 0; y < first.getHeight(); y++) {
+      for (int x = 0; x < first.getWidth(); x++) {
+        if (first.getRGB(x, y) != second.getRGB(x, y)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
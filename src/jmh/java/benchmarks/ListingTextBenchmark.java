@@ -0,0 +1,111 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pages.MapPinIndex.PinKey;
+import utils.ListingDetails;
+import utils.ListingTextParser;
+
+// Text parsing and pin matching done by AirbnbResultsPage for one results page.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ListingTextBenchmark {
+
+  private List<String> listingCards;
+  private List<String> pinLabels;
+  private List<String> pinPopups;
+  private List<List<String>> popupLines;
+  private String listingTitle;
+  private String listingPrice;
+  private Map<PinKey, ListingDetails> pinIndex;
+
+  @Setup
+  public void loadFixtures() {
+    listingCards = Fixtures.samples("listing-cards.txt");
+    pinLabels = Fixtures.lines("pin-labels.txt");
+    pinPopups = Fixtures.samples("pin-popups.txt");
+
+    popupLines = new ArrayList<>();
+    for (String popup : pinPopups) {
+      popupLines.add(List.of(popup.split("\n")));
+    }
+
+    // Match against the last card so the pin scan walks most of the labels
+    ListingDetails target = ListingTextParser.parse(listingCards.get(listingCards.size() - 1));
+    listingTitle = target.title();
+    listingPrice = target.price();
+
+    pinIndex = buildPinIndex();
+  }
+
+  @Benchmark
+  public void parseListingCards(Blackhole blackhole) {
+    for (String card : listingCards) {
+      blackhole.consume(ListingTextParser.parse(card));
+    }
+  }
+
+  @Benchmark
+  public void parsePinPopups(Blackhole blackhole) {
+    for (String popup : pinPopups) {
+      blackhole.consume(
+          ListingTextParser.limitToFirstRating(ListingTextParser.parse(popup).comparisonDetails()));
+    }
+  }
+
+  @Benchmark
+  public void parsePinLabels(Blackhole blackhole) {
+    for (String label : pinLabels) {
+      blackhole.consume(ListingTextParser.parsePin(label));
+    }
+  }
+
+  // Linear scan over every pin label, as getMatchingPin did before the pin index
+  @Benchmark
+  public int matchPinToListing() {
+    for (int i = 0; i < pinLabels.size(); i++) {
+      if (ListingTextParser.parsePin(pinLabels.get(i))
+          .matchesTitleAndPrice(listingTitle, listingPrice)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // Building the (title, price) hash index that MapPinIndex keeps for the pins on the map
+  @Benchmark
+  public Map<PinKey, ListingDetails> buildPinIndex() {
+    Map<PinKey, ListingDetails> index = new HashMap<>(pinLabels.size() * 2);
+    for (String label : pinLabels) {
+      ListingDetails details = ListingTextParser.parsePin(label);
+      if (details.hasTitleAndPrice()) {
+        index.putIfAbsent(PinKey.of(details.title(), details.price()), details);
+      }
+    }
+    return index;
+  }
+
+  @Benchmark
+  public ListingDetails lookupPinInIndex() {
+    return pinIndex.get(PinKey.of(listingTitle, listingPrice));
+  }
+
+  @Benchmark
+  public void removeDuplicateItems(Blackhole blackhole) {
+    for (List<String> lines : popupLines) {
+      blackhole.consume(ListingTextParser.removeDuplicateItems(lines, "Free cancellation"));
+    }
+  }
+}
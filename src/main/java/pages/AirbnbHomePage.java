@@ -1,11 +1,18 @@
 package pages;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.openqa.selenium.*;
+import utils.LocatorDefinition;
+import utils.LocatorKey;
 import utils.LocatorUtil;
 import utils.WebdriverWaitUtil;
 
 public class AirbnbHomePage {
 
+  // The trailing position predicate of the check-in and check-out date locators, e.g. ")[8]"
+  private static final Pattern DATE_INDEX = Pattern.compile("\\)\\[\\d+]$");
+
   WebDriver driver;
   WebdriverWaitUtil waitUtil;
   JavascriptExecutor jsExecutor;
@@ -16,14 +23,14 @@ public class AirbnbHomePage {
     this.jsExecutor = (JavascriptExecutor) driver;
   }
 
-  By locationInputField = LocatorUtil.getLocator("location_input_field");
-  By checkInButton = LocatorUtil.getLocator("check_in_button");
-  By checkInDateButton = LocatorUtil.getLocator("check_in_date");
-  By checkOutDateButton = LocatorUtil.getLocator("check_out_date");
-  By addGuestsButton = LocatorUtil.getLocator("add_guests_button");
-  By addAdultButton = LocatorUtil.getLocator("add_adult_button");
-  By addChildButton = LocatorUtil.getLocator("add_child_button");
-  By searchForResultsButton = LocatorUtil.getLocator("search_for_results_button");
+  By locationInputField = LocatorUtil.getLocator(LocatorKey.LOCATION_INPUT_FIELD);
+  By checkInButton = LocatorUtil.getLocator(LocatorKey.CHECK_IN_BUTTON);
+  By checkInDateButton = LocatorUtil.getLocator(LocatorKey.CHECK_IN_DATE);
+  By checkOutDateButton = LocatorUtil.getLocator(LocatorKey.CHECK_OUT_DATE);
+  By addGuestsButton = LocatorUtil.getLocator(LocatorKey.ADD_GUESTS_BUTTON);
+  By addAdultButton = LocatorUtil.getLocator(LocatorKey.ADD_ADULT_BUTTON);
+  By addChildButton = LocatorUtil.getLocator(LocatorKey.ADD_CHILD_BUTTON);
+  By searchForResultsButton = LocatorUtil.getLocator(LocatorKey.SEARCH_FOR_RESULTS_BUTTON);
 
   public void filterLocation(String location) {
     waitUtil.waitForElementVisible(locationInputField).sendKeys(location);
@@ -40,6 +47,24 @@ public class AirbnbHomePage {
     waitUtil.waitForElementClickable(checkOutDateButton).click();
   }
 
+  // Selects the check-in date the given number of days from today, with the check_in_date locator
+  // pointed at another position among the available dates (position 1 is today)
+  public void selectCheckInDate(int daysFromToday) {
+    waitUtil.waitForElementClickable(checkInButton).click();
+    waitUtil
+        .waitForElementClickable(dateAtIndex(LocatorKey.CHECK_IN_DATE, daysFromToday + 1))
+        .click();
+  }
+
+  // Once the check-in date is selected it is no longer offered as a checkout date, so the checkout
+  // date `nights` after it is at position daysFromToday + nights
+  public void selectCheckOutDate(int checkInDaysFromToday, int nights) {
+    waitUtil
+        .waitForElementClickable(
+            dateAtIndex(LocatorKey.CHECK_OUT_DATE, checkInDaysFromToday + nights))
+        .click();
+  }
+
   public void addGuests(int adults, int children) {
     waitUtil.waitForElementClickable(addGuestsButton).click();
 
@@ -52,7 +77,23 @@ public class AirbnbHomePage {
     }
   }
 
+  // Queues the location, dates and guests and fills them in with a single browser call, see
+  // SearchForm
+  public SearchForm searchForm() {
+    return new SearchForm(driver, waitUtil, this);
+  }
+
   public void searchForResults() {
     waitUtil.waitForElementClickable(searchForResultsButton).click();
   }
+
+  private static By dateAtIndex(LocatorKey key, int index) {
+    LocatorDefinition definition = LocatorUtil.getLocatorDefinition(key);
+    Matcher matcher = DATE_INDEX.matcher(definition.value());
+    if (!"xpath".equals(definition.type()) || !matcher.find() || index < 1) {
+      throw new IllegalStateException(
+          "Unable to select date position " + index + " with the " + key + " locator.");
+    }
+    return By.xpath(matcher.replaceFirst(")[" + index + "]"));
+  }
 }
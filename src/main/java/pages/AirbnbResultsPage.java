@@ -1,91 +1,206 @@
 package pages;
 
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import javax.imageio.ImageIO;
+import org.jsoup.nodes.Element;
 import org.openqa.selenium.*;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import utils.CommandBudget;
+import utils.DetailVerificationExecutor;
+import utils.DetailVerificationExecutor.DetailResult;
+import utils.DomSnapshot;
+import utils.ImageComparator;
+import utils.ImageComparator.ComparisonResult;
+import utils.ListingDetails;
+import utils.ListingJsonParser;
+import utils.ListingRecord;
+import utils.ListingStore;
+import utils.ListingTextParser;
+import utils.LocatorDefinition;
+import utils.LocatorKey;
 import utils.LocatorUtil;
+import utils.NetworkCapture;
+import utils.NetworkCapture.CapturedResponse;
+import utils.PagedVerificationPipeline;
+import utils.PagedVerificationPipeline.Outcome;
+import utils.PagedVerificationPipeline.PageWalker;
+import utils.PagedVerificationPipeline.Verdict;
+import utils.SearchUrlBuilder;
+import utils.UiSettleUtil;
 import utils.WebdriverWaitUtil;
 
 public class AirbnbResultsPage {
 
   WebDriver driver;
   WebdriverWaitUtil waitUtil;
+  UiSettleUtil settleUtil;
+  MapPinIndex pinIndex;
+  // By default any changed pixel counts as a color change, as with the previous exact comparison
+  ImageComparator pinImageComparator =
+      new ImageComparator(
+          Double.parseDouble(System.getProperty("pin.diff.maxChangedRatio", "0")),
+          Integer.getInteger("pin.diff.channelTolerance", 0));
   private int requiredBedrooms;
   private String firstListingTitle;
   private String firstListingPrice;
   private WebElement matchingPin;
+  // With -Dsnapshot.mode=true read-only checks are evaluated against one DOM snapshot of the page,
+  // which is retaken after every interaction that can change the page
+  private final boolean snapshotMode = Boolean.getBoolean("snapshot.mode");
+  private DomSnapshot snapshot;
+  // With -Dnetwork.capture=true the listing checks are answered from the search responses recorded
+  // by NetworkCapture instead of the card text and the detail pages
+  private final boolean networkMode;
+  private List<ListingRecord> capturedListings = List.of();
+  // Results page the browser shows, counted from 1, for the rows kept by the ListingStore
+  private int resultsPageNumber = 1;
 
   public AirbnbResultsPage(WebDriver driver, WebdriverWaitUtil waitUtil) {
+    this(driver, waitUtil, Boolean.getBoolean("network.capture"));
+  }
+
+  public AirbnbResultsPage(WebDriver driver, WebdriverWaitUtil waitUtil, boolean networkMode) {
     this.driver = driver;
+    this.networkMode = networkMode;
     this.waitUtil = waitUtil;
+    this.settleUtil = new UiSettleUtil(driver);
+    this.pinIndex = new MapPinIndex(driver);
   }
 
-  By searchResultsHeader = LocatorUtil.getLocator("search_results_header");
-  By locationFilterSummary = LocatorUtil.getLocator("location_filter_summary");
-  By dateFilterSummary = LocatorUtil.getLocator("date_filter_summary");
-  By guestsFilterSummary = LocatorUtil.getLocator("guests_filter_summary");
-  By listingSummary = LocatorUtil.getLocator("listing_summary");
-  By accommodatesGuestsSummary = LocatorUtil.getLocator("accommodates_guests_summary");
-  By moreFiltersButton = LocatorUtil.getLocator("more_filters_button");
-  By addBedroomButton = LocatorUtil.getLocator("add_bedroom_button");
-  By showMoreButton = LocatorUtil.getLocator("show_more_button");
-  By bedroomsInDetailsLocator = LocatorUtil.getLocator("bedrooms_in_details");
-  By poolFacilityButton = LocatorUtil.getLocator("pool_facility_button");
-  By showPlacesButton = LocatorUtil.getLocator("show_places_button");
-  By bedroomsInDetails = LocatorUtil.getLocator("bedrooms_in_details");
-  By showAllAmenitiesButtonLocator = LocatorUtil.getLocator("show_all_amenities_button");
-  By parkingFacilitiesContainerLocator = LocatorUtil.getLocator("parking_and_facilities");
-  By closePopupButtonLocator = LocatorUtil.getLocator("close_translation_popup");
-  By mapPinsLocator = LocatorUtil.getLocator("common_map_marker");
-  By firstListingSummaryLocator = LocatorUtil.getLocator("first_listing_summary");
-  By pinPopupSummary = LocatorUtil.getLocator("pin_popup_summary");
+  By searchResultsHeader = LocatorUtil.getLocator(LocatorKey.SEARCH_RESULTS_HEADER);
+  By listingSummary = LocatorUtil.getLocator(LocatorKey.LISTING_SUMMARY);
+  By accommodatesGuestsSummary = LocatorUtil.getLocator(LocatorKey.ACCOMMODATES_GUESTS_SUMMARY);
+  By moreFiltersButton = LocatorUtil.getLocator(LocatorKey.MORE_FILTERS_BUTTON);
+  By addBedroomButton = LocatorUtil.getLocator(LocatorKey.ADD_BEDROOM_BUTTON);
+  By showMoreButton = LocatorUtil.getLocator(LocatorKey.SHOW_MORE_BUTTON);
+  By bedroomsInDetailsLocator = LocatorUtil.getLocator(LocatorKey.BEDROOMS_IN_DETAILS);
+  By poolFacilityButton = LocatorUtil.getLocator(LocatorKey.POOL_FACILITY_BUTTON);
+  By showPlacesButton = LocatorUtil.getLocator(LocatorKey.SHOW_PLACES_BUTTON);
+  By bedroomsInDetails = LocatorUtil.getLocator(LocatorKey.BEDROOMS_IN_DETAILS);
+  By showAllAmenitiesButtonLocator = LocatorUtil.getLocator(LocatorKey.SHOW_ALL_AMENITIES_BUTTON);
+  By parkingFacilitiesContainerLocator = LocatorUtil.getLocator(LocatorKey.PARKING_AND_FACILITIES);
+  By closePopupButtonLocator = LocatorUtil.getLocator(LocatorKey.CLOSE_TRANSLATION_POPUP);
+  By mapPinsLocator = LocatorUtil.getLocator(LocatorKey.COMMON_MAP_MARKER);
+  By firstListingSummaryLocator = LocatorUtil.getLocator(LocatorKey.FIRST_LISTING_SUMMARY);
+  By pinPopupSummary = LocatorUtil.getLocator(LocatorKey.PIN_POPUP_SUMMARY);
+  By nextPageButton = LocatorUtil.getLocator(LocatorKey.NEXT_PAGE_BUTTON);
+
+  // A card of a results page and, in network mode, its listing in the captured search response
+  private record PageListing(ListingCard card, ListingRecord record) {}
+
+  // Resolves a locator definition in the page and returns, for every matched card, its text, the
+  // link to the listing and its bounding box, so that a whole results page costs one round trip.
+  private static final String EXTRACT_LISTING_CARDS_SCRIPT =
+      """
+      var type = arguments[0], value = arguments[1], cardRoot = arguments[2], nodes = [];
+      if (type === 'xpath') {
+        var result = document.evaluate(
+            value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+        for (var i = 0; i < result.snapshotLength; i++) nodes.push(result.snapshotItem(i));
+      } else if (type === 'id') {
+        var byId = document.getElementById(value);
+        if (byId) nodes.push(byId);
+      } else {
+        nodes = Array.prototype.slice.call(document.querySelectorAll(value));
+      }
+      return nodes.map(function (node) {
+        // Only the card's own link: above the card root, the container holds the other cards
+        var root = node.closest(cardRoot);
+        var link = root ? root.querySelector('a[href*="/rooms/"]') : null;
+        var rect = node.getBoundingClientRect();
+        return {
+          element: node,
+          text: node.innerText || '',
+          href: link ? link.href : null,
+          x: rect.left, y: rect.top, width: rect.width, height: rect.height
+        };
+      });
+      """;
+  // The element wrapping one listing card, see EXTRACT_LISTING_CARDS_SCRIPT
+  private static final String CARD_ROOT_SELECTOR =
+      "[itemprop=itemListElement], [data-testid=card-container]";
+  private static final Pattern ROOM_ID_PATTERN = Pattern.compile("/rooms/(\\d+)");
+  private static final Pattern NON_BLANK_TEXT = Pattern.compile("\\S");
 
   public void waitForResultsHeaderToContainText() {
-    waitUtil.waitForCondition(
-        driver -> {
-          WebElement headerElement = driver.findElement(searchResultsHeader);
-          String headerText = headerElement.getText().trim();
+    try {
+      waitUtil.waitForTextToMatch(searchResultsHeader, NON_BLANK_TEXT);
+      System.out.println("The search results header contains text.");
+    } catch (TimeoutException e) {
+      System.out.println(
+          "The search results header did not contain any text within the expected time.");
+      throw e;
+    }
+  }
 
-          System.out.println("Current header text during wait: " + headerText);
+  // Opens the results of the search straight from its URL, skipping the home page form. The
+  // filters in the URL are applied as if they had been chosen in the filters dialog.
+  public void openSearchResults(SearchUrlBuilder search) {
+    String url = search.build();
+    driver.get(url);
+    System.out.println("Opened the search results at " + url);
+    this.requiredBedrooms = search.getMinBedrooms();
+    resultsPageNumber = 1;
+    pageChanged();
+    waitForResultsHeaderToContainText();
+  }
 
-          return !headerText.isEmpty();
-        },
-        "The search results header did not contain any text within the expected time.");
+  // Returns the snapshot of the current page, capturing it if the page changed since the last one
+  DomSnapshot getSnapshot() {
+    if (snapshot == null) {
+      snapshot = DomSnapshot.capture(driver);
+    }
+    return snapshot;
+  }
+
+  private void pageChanged() {
+    snapshot = null;
+  }
+
+  // Text of the first element matching the locator, once it is visible. In snapshot mode the text
+  // is read from the snapshot, which is only retaken if the element was not visible in it yet.
+  private String readVisibleText(LocatorKey key) {
+    By locator = LocatorUtil.getLocator(key);
+    if (!snapshotMode) {
+      return waitUtil.waitForElementVisible(locator).getText();
+    }
+
+    Optional<String> text = getSnapshot().visibleText(key);
+    if (text.isEmpty()) {
+      waitUtil.waitForElementVisible(locator);
+      pageChanged();
+      text = getSnapshot().visibleText(key);
+    }
+    return text.orElseThrow(
+        () -> new NoSuchElementException("No visible element in the DOM snapshot for: " + key));
   }
 
+  @CommandBudget(3)
   public boolean verifyLocationInHeader(String location) {
-    WebElement headerElement = waitUtil.waitForElementVisible(searchResultsHeader);
-    String headerText = headerElement.getText().trim();
+    String headerText = readVisibleText(LocatorKey.SEARCH_RESULTS_HEADER).trim();
 
     System.out.println("Search Results Header Text: " + headerText);
 
     return headerText.contains(location);
   }
 
+  @CommandBudget(3)
   public boolean verifyLocationInFilterSummary(String location) {
-    WebElement locationElement = waitUtil.waitForElementVisible(locationFilterSummary);
-    String locationFilterSummaryText = locationElement.getText().trim();
+    String locationFilterSummaryText = readVisibleText(LocatorKey.LOCATION_FILTER_SUMMARY).trim();
 
     System.out.println("Location Filter Summary Text: " + locationFilterSummaryText);
 
     return locationFilterSummaryText.contains(location);
   }
 
+  @CommandBudget(3)
   public boolean verifyDateFilterSummary(String expectedDate) {
-    WebElement dateElement = waitUtil.waitForElementVisible(dateFilterSummary);
-    String dateFilterSummaryText = dateElement.getText().trim();
+    String dateFilterSummaryText = readVisibleText(LocatorKey.DATE_FILTER_SUMMARY).trim();
 
     String normalizedDateText = dateFilterSummaryText.replace("–", "-").replace("—", "-").trim();
     String normalizedExpectedDate = expectedDate.replace("–", "-").replace("—", "-").trim();
@@ -96,13 +211,12 @@ public class AirbnbResultsPage {
     return normalizedDateText.equals(normalizedExpectedDate);
   }
 
+  @CommandBudget(3)
   public boolean verifyGuestsFilterSummary(int expectedGuests) {
-    WebElement guestsElement = waitUtil.waitForElementVisible(guestsFilterSummary);
-    String guestFiltersSummaryText = guestsElement.getText().trim();
+    String guestFiltersSummaryText = readVisibleText(LocatorKey.GUESTS_FILTER_SUMMARY).trim();
 
     // Extract only the numeric part of the guest text
-    String numericGuestText = guestFiltersSummaryText.replaceAll("[^\\d]", "").trim();
-    int actualGuests = numericGuestText.isEmpty() ? 0 : Integer.parseInt(numericGuestText);
+    int actualGuests = ListingTextParser.parseCount(guestFiltersSummaryText);
 
     System.out.println("Guests Filter Summary Text: " + guestFiltersSummaryText);
     System.out.println("Extracted Actual Guests: " + actualGuests);
@@ -138,92 +252,388 @@ public class AirbnbResultsPage {
   }
 
   public boolean verifyPropertiesAccommodateGuests(int requiredGuests) {
-    // Find all the listing summaries on the page, excluding the ones proposed for similar dates
-    List<WebElement> listings = driver.findElements(listingSummary);
-
-    int listingNumber = 1; // Start listing count from 1 for better readability
+    if (networkMode) {
+      List<ListingRecord> listings = readCapturedListings();
+      if (listings.stream().allMatch(listing -> listing.guests() > 0)) {
+        for (ListingRecord listing : listings) {
+          System.out.println(
+              "Listing " + listing.id() + " accommodates " + listing.guests() + " guests.");
+          if (listing.guests() < requiredGuests) {
+            throw new AssertionError(
+                "Listing " + listing.id() + " cannot accommodate the required number of guests.");
+          }
+        }
+        return true;
+      }
+      System.out.println(
+          "The search response does not include the guest capacity, verifying the cards instead.");
+    }
 
-    for (WebElement listing : listings) {
-      System.out.println("Verifying listing #" + listingNumber + "...");
+    // Extract all the listing summaries on the page, excluding the ones proposed for similar dates
+    List<ListingCard> listings = extractListingCards();
+    List<ListingCard> listingsToVerifyInDetail = new ArrayList<>();
 
-      try {
-        // Attempt to get bed information
-        String bedsText = listing.getText().trim();
-        int numberOfBeds = extractNumberOfBeds(bedsText);
+    for (ListingCard listing : listings) {
+      // Queue the listing for verification on its details page
+      if (!cardShowsEnoughBeds(listing, requiredGuests)) {
+        listingsToVerifyInDetail.add(listing);
+      }
+    }
 
-        System.out.println(
-            "Listing #" + listingNumber + " - Number of beds found: " + numberOfBeds);
+    // Open the queued listings in parallel tabs and verify the guest count in the detailed view
+    List<DetailResult> detailResults =
+        verifyListingsInDetail(
+            listingsToVerifyInDetail, () -> verifyGuestsInDetailedView(requiredGuests));
 
-        // Assume each bed can accommodate 2 guests
-        int possibleGuests = numberOfBeds * 2;
+    for (int i = 0; i < detailResults.size(); i++) {
+      int listingNumber = listingsToVerifyInDetail.get(i).number();
+      Throwable failure = detailResults.get(i).failure();
 
-        if (possibleGuests >= requiredGuests) {
-          System.out.println("Listing #" + listingNumber + " can accommodate required guests.\n");
-          listingNumber++;
-          continue; // Move to the next listing
-        }
-      } catch (Exception e) {
-        // Handle case where bed information is not available or insufficient
-        System.out.println(
-            "Listing #"
+      if (failure instanceof AssertionError assertionError) {
+        throw assertionError;
+      } else if (failure != null) {
+        throw new RuntimeException(
+            "Error verifying listing #"
                 + listingNumber
-                + " - Beds information not found or insufficient, opening listing to verify.\n");
+                + " in detailed view: "
+                + failure.getMessage(),
+            failure);
       }
 
-      // Open listing in new tab for further verification
-      Actions action = new Actions(driver);
-      action.moveToElement(listing).click().perform();
-
-      // Switch to the new tab that was opened
-      ArrayList<String> tabs = new ArrayList<>(driver.getWindowHandles());
-      driver.switchTo().window(tabs.get(1));
-
-      // Verify the guest count in the detailed view
-      verifyGuestsInDetailedView(requiredGuests);
-
       // Print a message indicating that the listing can accommodate the required guests after
       // detailed verification
       System.out.println("Listing #" + listingNumber + " can accommodate required guests.\n");
+    }
 
-      // Close the current tab and switch back to the original tab
-      driver.close();
-      driver.switchTo().window(tabs.get(0));
+    // If all listings are verified without issue, return true
+    return true;
+  }
 
-      // Wait for the page to reload properly before continuing
-      waitUtil.waitForElementVisible(searchResultsHeader);
+  // Decides from the card text alone whether the listing can accommodate the guests
+  @CommandBudget(0)
+  private boolean cardShowsEnoughBeds(ListingCard listing, int requiredGuests) {
+    int listingNumber = listing.number();
+    System.out.println("Verifying listing #" + listingNumber + "...");
+
+    try {
+      // Attempt to get bed information
+      int numberOfBeds = ListingTextParser.parse(listing.text()).beds();
+
+      System.out.println("Listing #" + listingNumber + " - Number of beds found: " + numberOfBeds);
+
+      // Assume each bed can accommodate 2 guests
+      int possibleGuests = numberOfBeds * 2;
+
+      if (possibleGuests >= requiredGuests) {
+        System.out.println("Listing #" + listingNumber + " can accommodate required guests.\n");
+        return true;
+      }
+    } catch (Exception e) {
+      // Handle case where bed information is not available or insufficient
+      System.out.println(
+          "Listing #"
+              + listingNumber
+              + " - Beds information not found or insufficient, opening listing to verify.\n");
+    }
+    return false;
+  }
 
-      // Increment the listing number after verification is complete
-      listingNumber++;
+  // Listings of the latest search response the page received. Reading the capture is the only
+  // command, also when nothing was captured, so the card fallback stays within the budget.
+  @CommandBudget(1)
+  List<ListingRecord> readCapturedListings() {
+    List<ListingRecord> listings = null;
+    for (CapturedResponse response : NetworkCapture.read(driver)) {
+      Optional<List<ListingRecord>> searchResults =
+          ListingJsonParser.parseSearchResults(response.body());
+      if (searchResults.isPresent()) {
+        listings = searchResults.get();
+      }
     }
 
-    // If all listings are verified without issue, return true
-    return true;
+    if (listings == null) {
+      throw new IllegalStateException("No search response was captured on the results page.");
+    }
+    System.out.println(
+        "Read " + listings.size() + " listing(s) from the captured search response.");
+    capturedListings = listings;
+    if (ListingStore.isEnabled()) {
+      for (int i = 0; i < listings.size(); i++) {
+        ListingStore.recordResponse(resultsPageNumber, i + 1, listings.get(i));
+      }
+    }
+    return listings;
   }
 
-  private int extractNumberOfBeds(String bedsText) {
-    // Split the text into parts using common delimiters like commas or newlines
-    String[] textParts = bedsText.split("[,\\n]");
+  // The captured listing of the card's room, or empty when no search response was captured or the
+  // latest one does not include the room
+  private Optional<ListingRecord> findCapturedListing(ListingCard card) {
+    if (card.roomId() == null) {
+      return Optional.empty();
+    }
+    try {
+      return readCapturedListings().stream()
+          .filter(listing -> listing.id().equals(card.roomId()))
+          .findFirst();
+    } catch (IllegalStateException e) {
+      System.out.println(e.getMessage() + " Reading the card instead.");
+      return Optional.empty();
+    }
+  }
 
-    // Initialize the number of beds to zero
-    int numberOfBeds = 0;
+  // Same check as verifyPropertiesAccommodateGuests, on every results page instead of the first
+  public boolean verifyAllPagesAccommodateGuests(int requiredGuests) {
+    Outcome outcome =
+        new PagedVerificationPipeline<PageListing>()
+            .run(
+                resultsPageWalker(),
+                listing -> {
+                  if (listing.record() != null && listing.record().guests() > 0) {
+                    return listing.record().guests() >= requiredGuests
+                        ? Verdict.PASS
+                        : Verdict.FAIL;
+                  }
+                  return cardShowsEnoughBeds(listing.card(), requiredGuests)
+                      ? Verdict.PASS
+                      : Verdict.UNDECIDED;
+                },
+                listing -> describe(listing) + " cannot accommodate " + requiredGuests + " guests.",
+                listings ->
+                    verifyPageListingsInDetail(
+                        listings, () -> verifyGuestsInDetailedView(requiredGuests)));
+    return assertNoViolations(outcome);
+  }
 
-    // Iterate through each part to find the bed-related information
-    for (String part : textParts) {
-      part = part.trim().toLowerCase();
+  // Same check as verifyPropertiesHaveAtLeastBedrooms, on every results page instead of the first
+  public boolean verifyAllPagesHaveAtLeastBedrooms(int requiredBedrooms) {
+    Outcome outcome =
+        new PagedVerificationPipeline<PageListing>()
+            .run(
+                resultsPageWalker(),
+                listing -> {
+                  if (listing.record() != null && listing.record().bedrooms() > 0) {
+                    return listing.record().bedrooms() >= requiredBedrooms
+                        ? Verdict.PASS
+                        : Verdict.FAIL;
+                  }
+                  return cardShowsEnoughBedrooms(listing.card(), requiredBedrooms)
+                      ? Verdict.PASS
+                      : Verdict.UNDECIDED;
+                },
+                listing -> describe(listing) + " has less than " + requiredBedrooms + " bedrooms.",
+                listings ->
+                    verifyPageListingsInDetail(
+                        listings,
+                        () -> {
+                          waitUtil.waitForElementVisible(bedroomsInDetailsLocator);
+                          verifyBedroomsInDetailedView(requiredBedrooms);
+                        }));
+    return assertNoViolations(outcome);
+  }
 
-      // Check if the part contains the word "bed"
-      if (part.contains("bed")) {
-        // Use regex to extract the number before "bed"
-        String numericPart = part.replaceAll("[^\\d]", "").trim();
+  private boolean assertNoViolations(Outcome outcome) {
+    if (!outcome.passed()) {
+      throw new AssertionError(
+          "Listings on the result pages do not match the filters:\n"
+              + String.join("\n", outcome.violations()));
+    }
+    return true;
+  }
+
+  private static String describe(PageListing listing) {
+    ListingCard card = listing.card();
+    return "Listing #" + card.number() + (card.hasHref() ? " (" + card.href() + ")" : "");
+  }
 
-        if (!numericPart.isEmpty()) {
-          numberOfBeds = Integer.parseInt(numericPart);
-          break; // Exit the loop once we have found the bed count
+  // Walks the result pages through the pagination, reading the cards of each page in one call
+  private PageWalker<PageListing> resultsPageWalker() {
+    return new PageWalker<>() {
+      @Override
+      public List<PageListing> readPage() {
+        waitUtil.waitForElementVisible(listingSummary);
+        pageChanged();
+
+        Map<String, ListingRecord> records = new HashMap<>();
+        if (networkMode) {
+          readCapturedListings().forEach(record -> records.put(record.id(), record));
         }
+        List<PageListing> listings = new ArrayList<>();
+        for (ListingCard card : extractListingCards()) {
+          listings.add(new PageListing(card, records.get(card.roomId())));
+        }
+        return listings;
+      }
+
+      @Override
+      public boolean nextPage() {
+        return goToNextResultsPage();
+      }
+    };
+  }
+
+  // Clicks the "Next" link of the pagination and waits for the next page to replace the current
+  // one. Returns false on the last page.
+  private boolean goToNextResultsPage() {
+    List<WebElement> nextButtons = driver.findElements(nextPageButton);
+    if (nextButtons.isEmpty()) {
+      return false;
+    }
+    WebElement nextButton = nextButtons.get(0);
+    if ("true".equals(nextButton.getDomAttribute("aria-disabled"))) {
+      return false;
+    }
+
+    scrollToElement(nextButton);
+    nextButton.click();
+    resultsPageNumber++;
+    pageChanged();
+    waitUtil.waitForCondition(
+        ExpectedConditions.stalenessOf(nextButton),
+        "The next results page did not load within the expected time.");
+    return true;
+  }
+
+  // Verifies listings the card text could not decide on, on their details pages
+  private List<String> verifyPageListingsInDetail(List<PageListing> listings, Runnable check) {
+    List<ListingCard> cards = listings.stream().map(PageListing::card).toList();
+    List<DetailResult> detailResults = verifyListingsInDetail(cards, check);
+
+    List<String> violations = new ArrayList<>();
+    for (int i = 0; i < detailResults.size(); i++) {
+      Throwable failure = detailResults.get(i).failure();
+      if (failure != null) {
+        violations.add(describe(listings.get(i)) + ": " + failure.getMessage());
+      }
+    }
+    return violations;
+  }
+
+  private List<DetailResult> verifyListingsInDetail(List<ListingCard> listings, Runnable check) {
+    List<String> urls = new ArrayList<>(listings.size());
+    for (ListingCard listing : listings) {
+      if (listing.hasHref()) {
+        urls.add(listing.href());
+      }
+    }
+
+    DetailVerificationExecutor executor = new DetailVerificationExecutor(driver);
+    Iterator<DetailResult> linkedResults = executor.verifyAll(urls, check).iterator();
+
+    // Cards without a link are clicked through one at a time, as they were before the fan-out
+    List<DetailResult> results = new ArrayList<>(listings.size());
+    for (ListingCard listing : listings) {
+      if (listing.hasHref()) {
+        results.add(linkedResults.next());
+      } else if (listing.element() != null) {
+        System.out.println(
+            "Listing #" + listing.number() + " has no link, opening it by clicking the card.");
+        results.add(executor.verifyByClick(listing.element(), check));
+      } else {
+        results.add(
+            new DetailResult(
+                null,
+                new RuntimeException(
+                    "Listing #" + listing.number() + " has no link to its details page.")));
+      }
+    }
+    pageChanged();
+
+    // Wait for the results page to be ready again before continuing
+    if (!listings.isEmpty()) {
+      waitUtil.waitForElementVisible(searchResultsHeader);
+    }
+    return results;
+  }
+
+  // Pulls the text, link and bounding box of every card matched by listing_summary in a single
+  // JavascriptExecutor call, instead of one getText() round trip per card.
+  @CommandBudget(1)
+  @SuppressWarnings("unchecked")
+  public List<ListingCard> extractListingCards() {
+    if (snapshotMode) {
+      return extractListingCardsFromSnapshot();
+    }
+
+    LocatorDefinition definition = LocatorUtil.getLocatorDefinition(LocatorKey.LISTING_SUMMARY);
+    List<Map<String, Object>> rawCards =
+        (List<Map<String, Object>>)
+            ((JavascriptExecutor) driver)
+                .executeScript(
+                    EXTRACT_LISTING_CARDS_SCRIPT,
+                    definition.type(),
+                    definition.value(),
+                    CARD_ROOT_SELECTOR);
+
+    List<ListingCard> cards = new ArrayList<>(rawCards.size());
+    for (Map<String, Object> rawCard : rawCards) {
+      String href = (String) rawCard.get("href");
+      String roomId = null;
+      if (href != null) {
+        Matcher matcher = ROOM_ID_PATTERN.matcher(href);
+        roomId = matcher.find() ? matcher.group(1) : null;
+      }
+
+      Rectangle bounds =
+          new Rectangle(
+              toInt(rawCard.get("x")),
+              toInt(rawCard.get("y")),
+              toInt(rawCard.get("height")),
+              toInt(rawCard.get("width")));
+
+      cards.add(
+          new ListingCard(
+              cards.size() + 1,
+              (WebElement) rawCard.get("element"),
+              ((String) rawCard.get("text")).trim(),
+              href,
+              roomId,
+              bounds));
+    }
+
+    storeCards(cards);
+    return List.copyOf(cards);
+  }
+
+  // Same cards as extractListingCards(), read from the DOM snapshot. Snapshot cards carry no
+  // WebElement, so they can only be used for reads.
+  private List<ListingCard> extractListingCardsFromSnapshot() {
+    List<ListingCard> cards = new ArrayList<>();
+    for (Element node : getSnapshot().findAll(LocatorKey.LISTING_SUMMARY)) {
+      Element root = node.closest(CARD_ROOT_SELECTOR);
+      Element link = root == null ? null : root.selectFirst("a[href*='/rooms/']");
+
+      String href = link == null ? null : link.absUrl("href");
+      String roomId = null;
+      if (href != null) {
+        Matcher matcher = ROOM_ID_PATTERN.matcher(href);
+        roomId = matcher.find() ? matcher.group(1) : null;
+      }
+
+      cards.add(
+          new ListingCard(
+              cards.size() + 1,
+              null,
+              DomSnapshot.getText(node).trim(),
+              href,
+              roomId,
+              DomSnapshot.getRect(node)));
+    }
+    storeCards(cards);
+    return List.copyOf(cards);
+  }
+
+  // Keeps the extracted cards for cross-run analysis when -Dlisting.store.dir is set
+  private void storeCards(List<ListingCard> cards) {
+    if (ListingStore.isEnabled()) {
+      for (ListingCard card : cards) {
+        ListingStore.recordCard(
+            resultsPageNumber, card.number(), card.roomId(), ListingTextParser.parse(card.text()));
       }
     }
+  }
 
-    return numberOfBeds;
+  private static int toInt(Object scriptNumber) {
+    return scriptNumber == null ? 0 : (int) Math.round(((Number) scriptNumber).doubleValue());
   }
 
   private void verifyGuestsInDetailedView(int requiredGuests) {
@@ -231,8 +641,7 @@ public class AirbnbResultsPage {
     String accommodatesText = accommodatesElement.getText().trim();
 
     // Extract the number of guests from the text
-    String numericPart = accommodatesText.replaceAll("[^\\d]", "");
-    int actualGuests = numericPart.isEmpty() ? 0 : Integer.parseInt(numericPart);
+    int actualGuests = ListingTextParser.parseCount(accommodatesText);
 
     System.out.println("Verified number of guests from detailed view: " + actualGuests);
     System.out.println("Required number of guests: " + requiredGuests);
@@ -247,6 +656,7 @@ public class AirbnbResultsPage {
     // Click the more filters button
     WebElement moreFiltersElement = waitUtil.waitForElementClickable(moreFiltersButton);
     moreFiltersElement.click();
+    pageChanged();
   }
 
   public void selectNumberOfBedrooms(int numberOfBedrooms) {
@@ -267,6 +677,7 @@ public class AirbnbResultsPage {
             "Failed to click on '+' button for bedrooms: attempt #" + (i + 1), e);
       }
     }
+    pageChanged();
   }
 
   public int getRequiredBedrooms() {
@@ -284,11 +695,13 @@ public class AirbnbResultsPage {
     scrollToElement(poolFacilityElement);
     waitUtil.waitForElementClickable(poolFacilityButton).click();
     System.out.println("Pool facility selected.");
+    pageChanged();
   }
 
   public void clickShowPlaces() {
     waitUtil.waitForElementClickable(showPlacesButton).click();
     System.out.println("Show places clicked.");
+    pageChanged();
     waitUtil.waitForElementVisible(searchResultsHeader);
   }
 
@@ -297,131 +710,113 @@ public class AirbnbResultsPage {
     try {
       // Initial wait for the listings to be present on the page
       waitUtil.waitForElementsVisible(listingSummary);
+      pageChanged();
     } catch (Exception e) {
       System.out.println("Error waiting for listings to appear: " + e.getMessage());
       return false;
     }
 
-    int listingNumber = 1;
-
-    while (true) {
-      List<WebElement> listings = driver.findElements(listingSummary);
-
-      if (listingNumber > listings.size()) {
-        break; // End the loop if we have verified all available listings
-      }
-
-      WebElement listing =
-          listings.get(listingNumber - 1); // Access the listing based on the current count
-
-      System.out.println("Verifying listing #" + listingNumber + " for number of bedrooms...");
-
-      try {
-        // Attempt to get bedroom information from the listing summary
-        String bedroomsText = listing.getText().trim();
-        int numberOfBedrooms = extractNumberOfBedrooms(bedroomsText);
-
-        System.out.println(
-            "Listing #" + listingNumber + " - Number of bedrooms found: " + numberOfBedrooms);
-
-        // If sufficient bedrooms are found, print and skip to the next listing
-        if (numberOfBedrooms >= requiredBedrooms) {
+    if (networkMode) {
+      List<ListingRecord> listings = readCapturedListings();
+      if (listings.stream().allMatch(listing -> listing.bedrooms() > 0)) {
+        for (ListingRecord listing : listings) {
           System.out.println(
-              "Listing #" + listingNumber + " can accommodate the required number of bedrooms.\n");
-          listingNumber++;
-          continue; // Move to the next listing
-        } else {
-          System.out.println(
-              "Listing #" + listingNumber + " does not have enough bedrooms, verifying in detail.");
+              "Listing " + listing.id() + " has " + listing.bedrooms() + " bedrooms.");
+          if (listing.bedrooms() < requiredBedrooms) {
+            throw new AssertionError(
+                "Listing " + listing.id() + " has less bedrooms than the selected bedrooms.");
+          }
         }
-      } catch (Exception e) {
-        // Handle case where bedroom information is not available
-        System.out.println(
-            "Listing #"
-                + listingNumber
-                + " - Bedroom information not found or insufficient, opening listing to verify.\n");
+        return true;
       }
+      System.out.println(
+          "The search response does not include the bedrooms, verifying the cards instead.");
+    }
 
-      // Open listing in new tab for further verification if the number of bedrooms was not
-      // available or insufficient
-      try {
-        Actions action = new Actions(driver);
-        action.moveToElement(listing).click().perform();
-
-        // Switch to the new tab that was opened
-        ArrayList<String> tabs = new ArrayList<>(driver.getWindowHandles());
-        if (tabs.size() < 2) {
-          throw new RuntimeException("Failed to open listing in a new tab.");
-        }
-        driver.switchTo().window(tabs.get(1));
+    List<ListingCard> listingsToVerifyInDetail = new ArrayList<>();
 
-        // Wait for the detailed page to load properly
-        //  By bedroomsInDetailsLocator = LocatorUtil.getLocator("bedrooms_in_details");
-        waitUtil.waitForElementVisible(bedroomsInDetailsLocator);
+    for (ListingCard listing : extractListingCards()) {
+      // Queue the listing for verification on its details page if the number of bedrooms was not
+      // available or insufficient
+      if (!cardShowsEnoughBedrooms(listing, requiredBedrooms)) {
+        listingsToVerifyInDetail.add(listing);
+      }
+    }
 
-        // Verify the bedroom count in the detailed view
-        verifyBedroomsInDetailedView(requiredBedrooms); // Pass requiredBedrooms as parameter
+    List<DetailResult> detailResults =
+        verifyListingsInDetail(
+            listingsToVerifyInDetail,
+            () -> {
+              // Wait for the detailed page to load properly
+              waitUtil.waitForElementVisible(bedroomsInDetailsLocator);
 
-        System.out.println(
-            "Listing #"
-                + listingNumber
-                + " can accommodate the required number of bedrooms (verified in detail).\n");
+              // Verify the bedroom count in the detailed view
+              verifyBedroomsInDetailedView(requiredBedrooms);
+            });
 
-        // Close the current tab and switch back to the original tab
-        driver.close();
-        driver.switchTo().window(tabs.get(0));
+    for (int i = 0; i < detailResults.size(); i++) {
+      int listingNumber = listingsToVerifyInDetail.get(i).number();
+      Throwable failure = detailResults.get(i).failure();
 
-        // Wait for the original page to load properly before continuing
-        waitUtil.waitForElementsVisible(listingSummary);
-      } catch (Exception e) {
+      if (failure instanceof AssertionError assertionError) {
+        throw assertionError;
+      } else if (failure != null) {
         System.out.println(
             "Error opening or verifying listing #"
                 + listingNumber
                 + " in detailed view: "
-                + e.getMessage());
+                + failure.getMessage());
+      } else {
+        System.out.println(
+            "Listing #"
+                + listingNumber
+                + " can accommodate the required number of bedrooms (verified in detail).\n");
       }
-
-      // Increment the listing number after verification is complete
-      listingNumber++;
     }
 
     // If all listings are verified without issue, return true
     return true;
   }
 
-  private int extractNumberOfBedrooms(String bedroomsText) {
-    // Split the text into parts using common delimiters like commas or newlines
-    String[] textParts = bedroomsText.split("[,\\n]");
+  // Decides from the card text alone whether the listing has enough bedrooms
+  @CommandBudget(0)
+  private boolean cardShowsEnoughBedrooms(ListingCard listing, int requiredBedrooms) {
+    int listingNumber = listing.number();
 
-    // Initialize the number of bedrooms to zero
-    int numberOfBedrooms = 0;
+    System.out.println("Verifying listing #" + listingNumber + " for number of bedrooms...");
 
-    // Iterate through each part to find the bedroom-related information
-    for (String part : textParts) {
-      part = part.trim().toLowerCase();
+    try {
+      // Attempt to get bedroom information from the listing summary
+      int numberOfBedrooms = ListingTextParser.parse(listing.text()).bedrooms();
 
-      // Check if the part contains the word "bedroom"
-      if (part.contains("bedroom")) {
-        // Use regex to extract the number before "bedroom"
-        String numericPart = part.replaceAll("[^\\d]", "").trim();
+      System.out.println(
+          "Listing #" + listingNumber + " - Number of bedrooms found: " + numberOfBedrooms);
 
-        if (!numericPart.isEmpty()) {
-          numberOfBedrooms = Integer.parseInt(numericPart);
-          break; // Exit the loop once we have found the bedroom count
-        }
+      // If sufficient bedrooms are found, print and skip to the next listing
+      if (numberOfBedrooms >= requiredBedrooms) {
+        System.out.println(
+            "Listing #" + listingNumber + " can accommodate the required number of bedrooms.\n");
+        return true;
       }
+      System.out.println(
+          "Listing #" + listingNumber + " does not have enough bedrooms, verifying in detail.");
+    } catch (Exception e) {
+      // Handle case where bedroom information is not available
+      System.out.println(
+          "Listing #"
+              + listingNumber
+              + " - Bedroom information not found or insufficient, opening listing to verify.\n");
     }
-
-    return numberOfBedrooms;
+    return false;
   }
 
+  @CommandBudget(3)
   private void verifyBedroomsInDetailedView(int requiredBedrooms) {
     WebElement bedroomsElement = waitUtil.waitForElementVisible(bedroomsInDetails);
     String bedroomsText = bedroomsElement.getText().trim();
 
     // Extract the number of bedrooms from the detailed view text
-    String numericPart = bedroomsText.replaceAll("[^\\d]", "");
-    int actualBedrooms = numericPart.isEmpty() ? 0 : Integer.parseInt(numericPart);
+    int actualBedrooms = ListingTextParser.parseCount(bedroomsText);
 
     System.out.println("Verified number of bedrooms from detailed view: " + actualBedrooms);
     System.out.println("Required number of bedrooms: " + requiredBedrooms);
@@ -437,6 +832,11 @@ public class AirbnbResultsPage {
       // Step 1: Wait until the first property is visible
       WebElement firstListing = waitUtil.waitForElementVisible(listingSummary);
 
+      // Keep the listings the results page was rendered from, the new tab does not record them
+      if (networkMode) {
+        readCapturedListings();
+      }
+
       // Get the first listing and click it to open the details
       Actions action = new Actions(driver);
       action.moveToElement(firstListing).click().perform();
@@ -447,6 +847,7 @@ public class AirbnbResultsPage {
         throw new RuntimeException("Failed to open listing in a new tab.");
       }
       driver.switchTo().window(tabs.get(1));
+      pageChanged();
 
       System.out.println("Opened the first property in a new tab.");
 
@@ -467,6 +868,10 @@ public class AirbnbResultsPage {
   }
 
   public void verifyPoolInAmenities() {
+    if (networkMode && verifyPoolInCapturedListing()) {
+      return;
+    }
+
     // Step 1: Close the translation pop-up if it appears
     closePopupIfPresent();
 
@@ -503,36 +908,58 @@ public class AirbnbResultsPage {
       }
     } finally {
       // Always ensure the tab is closed and switch back to the first tab
-      driver.close();
-      ArrayList<String> tabs = new ArrayList<>(driver.getWindowHandles());
-      driver.switchTo().window(tabs.get(0));
+      closeDetailsTab();
     }
   }
 
-  public Map<String, Map<String, String>> extractPinDetailsBeforeHover() {
-    // Step 0: Wait for pins to be visible
-    waitUtil.waitForElementsVisible(mapPinsLocator);
+  // Checks the amenities of the opened listing in the captured search response. Returns false,
+  // leaving the tab open, when the response does not list the amenities.
+  private boolean verifyPoolInCapturedListing() {
+    Matcher matcher = ROOM_ID_PATTERN.matcher(driver.getCurrentUrl());
+    String roomId = matcher.find() ? matcher.group(1) : "";
+    ListingRecord listing =
+        capturedListings.stream()
+            .filter(capturedListing -> capturedListing.id().equals(roomId))
+            .findFirst()
+            .orElse(null);
+
+    if (listing == null || listing.amenities().isEmpty()) {
+      System.out.println(
+          "The search response does not list the amenities of listing "
+              + roomId
+              + ", verifying the amenities popup instead.");
+      return false;
+    }
 
-    // Step 1: Get all map pins and store their prices, titles, and initial details
-    List<WebElement> mapPins = driver.findElements(mapPinsLocator);
+    try {
+      if (listing.hasAmenity("pool")) {
+        System.out.println("Verified: Pool is listed in the amenities of listing " + roomId + ".");
+      } else {
+        throw new AssertionError("Pool is NOT listed in the amenities of listing " + roomId + ".");
+      }
+    } finally {
+      closeDetailsTab();
+    }
+    return true;
+  }
 
-    // Map to store price and title -> pin data before hover
-    Map<String, Map<String, String>> pinDataMap = new HashMap<>();
+  private void closeDetailsTab() {
+    driver.close();
+    ArrayList<String> tabs = new ArrayList<>(driver.getWindowHandles());
+    driver.switchTo().window(tabs.get(0));
+    pageChanged();
+  }
 
-    for (WebElement pin : mapPins) {
-      try {
-        // Extract price and title from pin using extractPriceAndTitleFromPin
-        Map<String, String> pinData = extractPriceAndTitleFromPin(pin);
-        String pinPrice = pinData.getOrDefault("price", "");
-        String pinTitle = pinData.getOrDefault("title", "");
-
-        if (!pinPrice.isEmpty() && !pinTitle.isEmpty()) {
-          pinDataMap.put(pinPrice + "-" + pinTitle, pinData);
-          System.out.println("Pin data before hover: " + pinData);
-        }
-      } catch (Exception e) {
-        System.out.println("Error extracting data for pin: " + e.getMessage());
-      }
+  public Map<String, ListingDetails> extractPinDetailsBeforeHover() {
+    // Step 0: Wait for pins to be visible
+    waitUtil.waitForElementsVisible(mapPinsLocator);
+
+    // Step 1: Read the prices and titles of all map pins from the pin index
+    Map<String, ListingDetails> pinDataMap = new HashMap<>();
+    for (MapPinIndex.IndexedPin pin : pinIndex.getPins().values()) {
+      ListingDetails pinData = pin.details();
+      pinDataMap.put(pinData.price() + "-" + pinData.title(), pinData);
+      System.out.println("Pin data before hover: " + pinData);
     }
 
     return pinDataMap;
@@ -543,10 +970,27 @@ public class AirbnbResultsPage {
       // Wait for the first listing to be visible
       WebElement firstListing = waitUtil.waitForElementVisible(firstListingSummaryLocator);
 
-      // Extract title and price from the first listing
-      Map<String, String> listingData = extractPriceAndTitleFromListing(firstListing);
-      String listingTitle = listingData.getOrDefault("title", "");
-      String listingPrice = listingData.getOrDefault("price", "");
+      // Extract title and price from the search response entry of the first card's room, or from
+      // the card itself when the response does not include it
+      Optional<ListingRecord> capturedListing = Optional.empty();
+      if (networkMode) {
+        capturedListing =
+            extractListingCards().stream()
+                .findFirst()
+                .flatMap(this::findCapturedListing)
+                .filter(ListingRecord::hasTitleAndPrice);
+      }
+
+      String listingTitle;
+      String listingPrice;
+      if (capturedListing.isPresent()) {
+        listingTitle = capturedListing.get().title();
+        listingPrice = capturedListing.get().price();
+      } else {
+        ListingDetails listingData = extractPriceAndTitleFromListing(firstListing);
+        listingTitle = listingData.title();
+        listingPrice = listingData.price();
+      }
 
       if (listingTitle.isEmpty() || listingPrice.isEmpty()) {
         throw new RuntimeException("First listing title or price is missing");
@@ -562,10 +1006,11 @@ public class AirbnbResultsPage {
       // Hover over the first listing to trigger the pin change on the map
       Actions actions = new Actions(driver);
       actions.moveToElement(firstListing).perform();
+      pageChanged();
       System.out.println("Hovered over the first property in the results list.");
 
-      // Hold the hover for 3 seconds before proceeding to ensure UI change happens
-      Thread.sleep(3000); // Increased wait to ensure the UI has time to reflect changes
+      // Wait for the hover effect on the listing to finish before proceeding
+      settleUtil.waitForElementToSettle(firstListing, "First listing after hover");
     } catch (Exception e) {
       throw new RuntimeException("Error hovering over the first property: " + e.getMessage(), e);
     }
@@ -576,40 +1021,29 @@ public class AirbnbResultsPage {
     // Map<String, Map<String, String>> pinPriceTitleMapBeforeHover =
     // extractPinDetailsBeforeHover();
 
-    // Step 1: Get all map pins after extracting initial data
-    List<WebElement> mapPins = driver.findElements(mapPinsLocator);
-
-    // Step 2: Find the matching pin by title and price
+    // Step 1: Find the matching pin by title and price
     System.out.println("First listing title for verification: " + firstListingTitle);
     System.out.println("First listing price for verification: " + firstListingPrice);
 
-    WebElement matchingPin = getMatchingPin(mapPins, firstListingTitle, firstListingPrice);
-
-    if (matchingPin == null) {
-      throw new RuntimeException(
-          "No matching pin found for the listing title: "
-              + firstListingTitle
-              + " and price: "
-              + firstListingPrice);
-    }
+    WebElement matchingPin = getMatchingPin(firstListingTitle, firstListingPrice);
 
     // Step 3: Wait until the first listing is not hovered
-    waitForListingToBeNotHovered();
+    waitForListingToBeNotHovered(matchingPin);
 
     // Step 4: Take the first screenshot of the pin before any hover occurs
-    takeScreenshotOfPin(matchingPin, "beforeHover.png");
+    byte[] beforeHover = takeScreenshotOfPin(matchingPin, "before hover");
 
     // Step 5: Hover over the first listing and stay hovered
-    hoverOverFirstListingAndWait();
+    hoverOverFirstListingAndWait(matchingPin);
 
     // Step 6: Take a screenshot of the pin during hover
-    takeScreenshotOfPin(matchingPin, "afterHover.png");
+    byte[] afterHover = takeScreenshotOfPin(matchingPin, "after hover");
 
     // Step 7: Compare the two screenshots to verify if the color changed
-    compareScreenshots("beforeHover.png", "afterHover.png");
+    compareScreenshots(beforeHover, afterHover);
   }
 
-  private void waitForListingToBeNotHovered() {
+  private void waitForListingToBeNotHovered(WebElement pin) {
     try {
       // WebElement firstListing = waitUtil.waitForElementVisible(firstListingSummaryLocator);
       Actions actions = new Actions(driver);
@@ -617,8 +1051,10 @@ public class AirbnbResultsPage {
       // Move to a "safe" area to make sure the listing is not hovered
       WebElement headerElement = driver.findElement(By.tagName("header"));
       actions.moveToElement(headerElement).perform();
+      pageChanged();
 
-      Thread.sleep(1000);
+      // Wait for the pin to return to its default style
+      settleUtil.waitForElementToSettle(pin, "Map pin after moving away from the listing");
 
       System.out.println(
           "Ensured that the first listing is not being hovered before taking the first screenshot.");
@@ -628,176 +1064,87 @@ public class AirbnbResultsPage {
     }
   }
 
-  private void takeScreenshotOfPin(WebElement pin, String fileName) {
-    try {
-      Thread.sleep(1000);
-      File screenshot = pin.getScreenshotAs(OutputType.FILE);
-      Path screenshotPath = new File(fileName).toPath();
-
-      Files.copy(screenshot.toPath(), screenshotPath, StandardCopyOption.REPLACE_EXISTING);
-      System.out.println("Captured " + fileName);
-    } catch (IOException | InterruptedException e) {
-      throw new RuntimeException("Unable to save screenshot: " + e.getMessage(), e);
-    }
+  // Screenshots are kept in memory, so parallel scenarios never overwrite each other's captures
+  @CommandBudget(3)
+  private byte[] takeScreenshotOfPin(WebElement pin, String description) {
+    settleUtil.waitForElementToSettle(pin, "Map pin before capturing the " + description);
+    byte[] screenshot = pin.getScreenshotAs(OutputType.BYTES);
+    System.out.println("Captured the pin " + description + " (" + screenshot.length + " bytes)");
+    return screenshot;
   }
 
-  public void hoverOverFirstListingAndWait() {
+  public void hoverOverFirstListingAndWait(WebElement pin) {
     try {
       // Wait for the first listing to be visible
       WebElement firstListing = waitUtil.waitForElementVisible(firstListingSummaryLocator);
 
       Actions actions = new Actions(driver);
       actions.moveToElement(firstListing).perform();
+      pageChanged();
 
-      // Hold the hover for a longer duration to ensure color change is captured
-      Thread.sleep(3000); // Increased wait to make sure hover effect is fully visible
+      // Hold the hover until the pin has finished changing so the color change is captured
       System.out.println("Hovered over the first listing and waiting for UI to reflect changes.");
-    } catch (InterruptedException e) {
-      throw new RuntimeException("Interrupted while waiting for UI changes after hovering.", e);
+      settleUtil.waitForElementToSettle(pin, "Map pin during hover");
     } catch (Exception e) {
       throw new RuntimeException(
           "Error while hovering over the first listing: " + e.getMessage(), e);
     }
   }
 
-  private void compareScreenshots(String beforeFileName, String afterFileName) {
-    try {
-      BufferedImage imgBefore = ImageIO.read(new File(beforeFileName));
-      BufferedImage imgAfter = ImageIO.read(new File(afterFileName));
-
-      if (imgBefore == null || imgAfter == null) {
-        throw new IOException("One of the screenshots could not be loaded for comparison.");
-      }
-
-      boolean colorChanged = !bufferedImagesAreEqual(imgBefore, imgAfter);
+  private void compareScreenshots(byte[] beforeHover, byte[] afterHover) {
+    ComparisonResult result = pinImageComparator.compare(beforeHover, afterHover);
+    System.out.printf(
+        "Pin screenshots differ in %d of %d pixels (%.2f%%).%n",
+        result.changedPixels(), result.comparedPixels(), result.changedRatio() * 100);
 
-      if (colorChanged) {
-        System.out.println("Verified: The pin color changed after hovering over the listing.");
-      } else {
-        throw new AssertionError("Pin color did not change after hovering over the listing.");
-      }
+    boolean colorChanged = !pinImageComparator.isWithinTolerance(result);
 
-    } catch (IOException e) {
-      throw new RuntimeException(
-          "Unable to process screenshots for comparison: " + e.getMessage(), e);
+    if (colorChanged) {
+      System.out.println("Verified: The pin color changed after hovering over the listing.");
+    } else {
+      throw new AssertionError("Pin color did not change after hovering over the listing.");
     }
   }
 
-  private boolean bufferedImagesAreEqual(BufferedImage img1, BufferedImage img2) {
-    if (img1.getWidth() != img2.getWidth() || img1.getHeight() != img2.getHeight()) {
-      return false;
-    }
+  // Helper method for extracting price and title
+  @CommandBudget(1)
+  private ListingDetails extractPriceAndTitleFromListing(WebElement listing) {
+    String listingText = listing.getText();
+    System.out.println("Full listing text: " + listingText); // For debugging
 
-    for (int y = 0; y < img1.getHeight(); y++) {
-      for (int x = 0; x < img1.getWidth(); x++) {
-        if (img1.getRGB(x, y) != img2.getRGB(x, y)) {
-          return false;
-        }
-      }
+    ListingDetails listingData = ListingTextParser.parse(listingText);
+    if (!listingData.hasTitleAndPrice()) {
+      throw new RuntimeException(
+          "Unable to extract price and title from listing: title or price is missing.");
     }
-    return true;
-  }
-
-  // Helper methods for extracting price and title
-  private Map<String, String> extractPriceAndTitleFromPin(WebElement pin) {
-    Map<String, String> pinData = new HashMap<>();
-    try {
-      // Locate the first span element inside the pin that contains the title and price.
-      WebElement titleAndPriceSpan = pin.findElement(By.tagName("span"));
-
-      // Extract the text from the first span, which contains both the title and price.
-      String pinText = titleAndPriceSpan.getText();
-      System.out.println("Full pin text extracted for analysis: " + pinText); // For debugging
-
-      // Use regex to match the title and the price parts.
-      Pattern pattern = Pattern.compile("^(.*?),\\s*([\\d,]+)\\s*lei");
-      Matcher matcher = pattern.matcher(pinText);
-
-      if (matcher.find()) {
-        String title = matcher.group(1).trim(); // Extract the title before the comma
-        String price = matcher.group(2).trim(); // Extract the price with commas intact
-
-        // Output extracted details for debugging purposes
-        System.out.println("Extracted title from pin: " + title);
-        System.out.println("Extracted price from pin: " + price);
-
-        // Ensure title and price are not empty before adding to the map
-        if (!title.isEmpty() && !price.isEmpty()) {
-          pinData.put("title", title);
-          pinData.put("price", price);
-        } else {
-          System.out.println("Title or price is empty for the pin. Skipping extraction.");
-        }
-      } else {
-        System.out.println("Regex did not match the expected format for pin text: " + pinText);
-      }
 
-    } catch (Exception e) {
-      System.out.println("Unable to extract price and title from pin: " + e.getMessage());
-    }
-    return pinData;
+    System.out.println("Extracted title from listing: " + listingData.title());
+    System.out.println("Extracted price from listing: " + listingData.price());
+    return listingData;
   }
 
-  private Map<String, String> extractPriceAndTitleFromListing(WebElement listing) {
-    Map<String, String> priceAndTitle = new HashMap<>();
-    try {
-      // Extract the full text of the listing
-      String listingText = listing.getText();
-      System.out.println("Full listing text: " + listingText); // For debugging
-
-      // Extract the title (assumed to be the first line)
-      String[] textParts = listingText.split("\\n");
-      String title = textParts[0].trim();
-
-      // Use regex to find the price that ends with " lei per night"
-      String price = "";
-      Pattern pattern = Pattern.compile("([\\d,]+)(?=\\s*lei per night)");
-      Matcher matcher = pattern.matcher(listingText);
-      if (matcher.find()) {
-        price = matcher.group(1); // Keep the commas in the price
-      }
-
-      if (title.isEmpty() || price.isEmpty()) {
-        throw new RuntimeException("Unable to extract title or price from listing text.");
-      }
-
-      priceAndTitle.put("title", title);
-      priceAndTitle.put("price", price);
+  // Looks the listing up in the pin index, which is rebuilt only when the map has re-rendered
+  private WebElement getMatchingPin(String listingTitle, String listingPrice) {
+    waitUtil.waitForElementsVisible(mapPinsLocator);
+    MapPinIndex.IndexedPin pin = pinIndex.find(listingTitle, listingPrice);
 
-      System.out.println("Extracted title from listing: " + title);
-      System.out.println("Extracted price from listing: " + price);
-    } catch (Exception e) {
+    if (pin == null) {
       throw new RuntimeException(
-          "Unable to extract price and title from listing: " + e.getMessage());
+          "No matching pin found for the listing title: "
+              + listingTitle
+              + " and price: "
+              + listingPrice);
     }
-    return priceAndTitle;
-  }
-
-  private WebElement getMatchingPin(
-      List<WebElement> pins, String listingTitle, String listingPrice) {
-    for (WebElement pin : pins) {
-      Map<String, String> pinData = extractPriceAndTitleFromPin(pin);
 
-      String pinTitle = pinData.get("title");
-      String pinPrice = pinData.get("price");
-
-      if (pinTitle != null
-          && pinPrice != null
-          && pinTitle.equalsIgnoreCase(listingTitle)
-          && pinPrice.equals(listingPrice)) {
-        System.out.println(
-            "Matching pin found for the listing: " + pinTitle + " with price: " + pinPrice);
+    System.out.println(
+        "Matching pin found for the listing: "
+            + pin.details().title()
+            + " with price: "
+            + pin.details().price());
 
-        // Set the instance variable
-        this.matchingPin = pin;
-        return pin; // Return the pin if both the title and price match
-      }
-    }
-    throw new RuntimeException(
-        "No matching pin found for the listing title: "
-            + listingTitle
-            + " and price: "
-            + listingPrice);
+    // Set the instance variable
+    this.matchingPin = pin.element();
+    return pin.element();
   }
 
   public void clickOnMatchingPin() {
@@ -808,6 +1155,7 @@ public class AirbnbResultsPage {
 
       // Click on the matching pin
       matchingPin.click();
+      pageChanged();
       System.out.println(
           "Clicked on the matching pin: "
               + firstListingTitle
@@ -826,66 +1174,31 @@ public class AirbnbResultsPage {
     }
   }
 
+  @CommandBudget(6)
   public void verifyPinPopupDetailsMatchListing() {
     try {
       // Step 1: Extract details from the listing summary
-      WebElement firstListing = waitUtil.waitForElementVisible(firstListingSummaryLocator);
-      String listingText = firstListing.getText();
+      String listingText = readVisibleText(LocatorKey.FIRST_LISTING_SUMMARY);
       System.out.println("Full listing text: " + listingText);
 
-      // Extract relevant info from the listing text, removing unwanted parts after "·"
-      String[] listingDetailsArray = listingText.split("·");
-      String listingRelevantText =
-          listingDetailsArray[0].trim(); // Extract part before "·" to remove unwanted details
-
-      // Split listing details by line to create a list of key details
-      List<String> listingDetailsList =
-          new ArrayList<>(Arrays.asList(listingRelevantText.split("\\n")));
-
-      // Remove duplicate "Free cancellation" if present
-      listingDetailsList = removeDuplicateItems(listingDetailsList, "Free cancellation");
-
-      // Use regex to find the rating parts, but stop after the first occurrence of "reviews"
-      Pattern ratingPattern =
-          Pattern.compile("(\\d+\\.\\d+\\sout\\sof\\s\\d+\\saverage\\srating,\\s\\d+\\sreviews)");
-      Matcher listingMatcher = ratingPattern.matcher(listingText);
-
-      if (listingMatcher.find()) {
-        listingDetailsList.add(listingMatcher.group());
-      }
-
+      // Key details before "·", without duplicate "Free cancellation", then the rating
+      List<String> listingDetailsList = ListingTextParser.parse(listingText).comparisonDetails();
       System.out.println("Extracted listing details for comparison: " + listingDetailsList);
 
       // Step 2: Extract details from the pin popup summary
-      WebElement pinPopup = waitUtil.waitForElementVisible(pinPopupSummary);
-      String pinPopupText = pinPopup.getText();
+      String pinPopupText = readVisibleText(LocatorKey.PIN_POPUP_SUMMARY);
       System.out.println("Full pin popup text: " + pinPopupText);
 
-      // Extract relevant details from pin popup text, removing unwanted parts after "·"
-      String[] pinPopupDetailsArray = pinPopupText.split("·");
-      String pinPopupRelevantText =
-          pinPopupDetailsArray[0].trim(); // Extract part before "·" to remove unwanted details
-
-      // Split pin popup details by line to create a list of key details
-      List<String> pinPopupDetailsList =
-          new ArrayList<>(Arrays.asList(pinPopupRelevantText.split("\\n")));
-
-      // Remove duplicate "Free cancellation" if present
-      pinPopupDetailsList = removeDuplicateItems(pinPopupDetailsList, "Free cancellation");
-
-      // Extract rating details from pin popup text, but only add the first occurrence
-      Matcher pinPopupMatcher = ratingPattern.matcher(pinPopupText);
-      if (pinPopupMatcher.find()) {
-        pinPopupDetailsList.add(pinPopupMatcher.group());
-      }
-
       // Ensure no further extraction after the first valid rating
-      pinPopupDetailsList = limitDetailsToFirstRating(pinPopupDetailsList);
-
+      List<String> pinPopupDetailsList =
+          ListingTextParser.limitToFirstRating(
+              ListingTextParser.parse(pinPopupText).comparisonDetails());
       System.out.println("Extracted pin popup details for comparison: " + pinPopupDetailsList);
 
       // Step 3: Compare the listing details with the pin popup details
-      if (listingDetailsList.equals(pinPopupDetailsList)) {
+      boolean matched = listingDetailsList.equals(pinPopupDetailsList);
+      ListingStore.recordPinMatch(firstListingTitle, matched);
+      if (matched) {
         System.out.println(
             "Verified: The details shown in the map popup match the ones shown in the search results.");
       } else {
@@ -905,46 +1218,6 @@ public class AirbnbResultsPage {
     }
   }
 
-  // Helper method to remove duplicate items from a list
-  private List<String> removeDuplicateItems(List<String> list, String itemToCheck) {
-    List<String> resultList = new ArrayList<>();
-    boolean itemSeen = false;
-
-    for (String item : list) {
-      if (item.equalsIgnoreCase(itemToCheck)) {
-        if (!itemSeen) {
-          resultList.add(item); // Add only the first occurrence
-          itemSeen = true;
-        }
-      } else {
-        resultList.add(item);
-      }
-    }
-
-    return resultList;
-  }
-
-  // Helper method to stop the extraction after the first rating occurrence
-  private List<String> limitDetailsToFirstRating(List<String> detailsList) {
-    List<String> limitedDetailsList = new ArrayList<>();
-    Pattern ratingPattern =
-        Pattern.compile("(\\d+\\.\\d+\\sout\\sof\\s\\d+\\saverage\\srating,\\s\\d+\\sreviews)");
-
-    boolean ratingFound = false;
-
-    for (String detail : detailsList) {
-      limitedDetailsList.add(detail);
-
-      Matcher matcher = ratingPattern.matcher(detail);
-      if (matcher.find() && !ratingFound) {
-
-        break;
-      }
-    }
-
-    return limitedDetailsList;
-  }
-
   // Helper method to scroll to an element using JavaScript
   private void scrollToElement(WebElement element) {
     JavascriptExecutor jsExecutor = (JavascriptExecutor) driver;
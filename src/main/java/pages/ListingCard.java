@@ -0,0 +1,14 @@
+package pages;
+
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+
+// Immutable snapshot of one listing card on the results page, extracted together with all the
+// other cards in a single browser call. The element is kept only for interactions (click, hover).
+public record ListingCard(
+    int number, WebElement element, String text, String href, String roomId, Rectangle bounds) {
+
+  public boolean hasHref() {
+    return href != null && !href.isEmpty();
+  }
+}
@@ -0,0 +1,153 @@
+package pages;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import utils.CommandBudget;
+import utils.ListingDetails;
+import utils.ListingTextParser;
+import utils.LocatorDefinition;
+import utils.LocatorKey;
+import utils.LocatorUtil;
+
+// Hash index of the map pins keyed by (title, price), built from a single browser call. A
+// MutationObserver installed in the page bumps a version whenever pins are added, removed or
+// relabelled (pan, zoom, filter changes); every lookup sends the known version along, and the
+// script only returns the pins again when the map has re-rendered since the index was built.
+public class MapPinIndex {
+
+  private static final String COLLECT_PINS_SCRIPT =
+      """
+      var type = arguments[0], value = arguments[1], knownVersion = arguments[2];
+      function findPins() {
+        if (type === 'xpath') {
+          var pins = [], result = document.evaluate(
+              value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+          for (var i = 0; i < result.snapshotLength; i++) pins.push(result.snapshotItem(i));
+          return pins;
+        }
+        var selector = type === 'id' ? '#' + CSS.escape(value) : value;
+        return Array.prototype.slice.call(document.querySelectorAll(selector));
+      }
+      function touchesPins(node) {
+        if (type === 'xpath') return true;
+        var selector = type === 'id' ? '#' + CSS.escape(value) : value;
+        var element = node.nodeType === 1 ? node : node.parentElement;
+        return !!element && (!!element.closest(selector) || !!element.querySelector(selector));
+      }
+
+      var state = window.__mapPinIndex;
+      if (!state) {
+        state = window.__mapPinIndex = {page: Math.random().toString(36).slice(2), version: 0};
+        new MutationObserver(function (mutations) {
+          for (var i = 0; i < mutations.length; i++) {
+            var mutation = mutations[i];
+            var nodes = [mutation.target].concat(
+                Array.prototype.slice.call(mutation.addedNodes),
+                Array.prototype.slice.call(mutation.removedNodes));
+            if (nodes.some(touchesPins)) {
+              state.version++;
+              return;
+            }
+          }
+        }).observe(document.body, {childList: true, characterData: true, subtree: true});
+      }
+
+      var version = state.page + ':' + state.version;
+      if (version === knownVersion) return {version: version, pins: null};
+      return {
+        version: version,
+        pins: findPins().map(function (pin) {
+          var label = pin.querySelector('span') || pin;
+          return {element: pin, label: label.innerText || ''};
+        })
+      };
+      """;
+
+  public record PinKey(String title, String price) {
+
+    public static PinKey of(String title, String price) {
+      return new PinKey(title.trim().toLowerCase(Locale.ROOT), removeWhitespace(price));
+    }
+
+    // Same characters as the regex \s, without compiling a pattern on every lookup; a price
+    // without whitespace is returned as is
+    private static String removeWhitespace(String text) {
+      int first = 0;
+      while (first < text.length() && !isWhitespace(text.charAt(first))) {
+        first++;
+      }
+      if (first == text.length()) {
+        return text;
+      }
+
+      StringBuilder stripped = new StringBuilder(text.length()).append(text, 0, first);
+      for (int i = first + 1; i < text.length(); i++) {
+        char c = text.charAt(i);
+        if (!isWhitespace(c)) {
+          stripped.append(c);
+        }
+      }
+      return stripped.toString();
+    }
+
+    private static boolean isWhitespace(char c) {
+      return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+  }
+
+  public record IndexedPin(WebElement element, ListingDetails details) {}
+
+  private final JavascriptExecutor jsExecutor;
+  private final LocatorDefinition pinLocator;
+  private Map<PinKey, IndexedPin> pins = Map.of();
+  private String version = "";
+
+  public MapPinIndex(WebDriver driver) {
+    this.jsExecutor = (JavascriptExecutor) driver;
+    this.pinLocator = LocatorUtil.getLocatorDefinition(LocatorKey.COMMON_MAP_MARKER);
+  }
+
+  // Returns the pin showing the given listing title and price, or null if there is none
+  public IndexedPin find(String title, String price) {
+    return getPins().get(PinKey.of(title, price));
+  }
+
+  @CommandBudget(1)
+  public Map<PinKey, IndexedPin> getPins() {
+    refreshIfStale();
+    return pins;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void refreshIfStale() {
+    Map<String, Object> result =
+        (Map<String, Object>)
+            jsExecutor.executeScript(
+                COLLECT_PINS_SCRIPT, pinLocator.type(), pinLocator.value(), version);
+
+    List<Map<String, Object>> rawPins = (List<Map<String, Object>>) result.get("pins");
+    if (rawPins == null) {
+      return;
+    }
+
+    Map<PinKey, IndexedPin> rebuilt = new HashMap<>(rawPins.size() * 2);
+    for (Map<String, Object> rawPin : rawPins) {
+      ListingDetails details = ListingTextParser.parsePin((String) rawPin.get("label"));
+      if (details.hasTitleAndPrice()) {
+        rebuilt.putIfAbsent(
+            PinKey.of(details.title(), details.price()),
+            new IndexedPin((WebElement) rawPin.get("element"), details));
+      }
+    }
+
+    pins = Collections.unmodifiableMap(rebuilt);
+    version = (String) result.get("version");
+    System.out.println("Map pin index rebuilt with " + pins.size() + " pin(s).");
+  }
+}
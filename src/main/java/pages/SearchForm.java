@@ -0,0 +1,472 @@
+package pages;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import utils.LocatorDefinition;
+import utils.LocatorKey;
+import utils.LocatorUtil;
+import utils.WebdriverWaitUtil;
+
+// Fills the search form of the home page in one call. The interactions are queued, then a single
+// injected script types the location, picks the dates in the calendar and steps the guest counts,
+// waiting in the page after every interaction for the form to react. The state the form ended in is
+// returned by the same call and checked once; only the fields that do not match are filled again
+// with the usual one-command-per-click page methods. -Dsearch.form.batched=false always uses the
+// page methods.
+//   homePage.searchForm().location("Rome, Italy").dates(checkIn, checkOut)
+//       .guests(GuestType.ADULTS, 2).guests(GuestType.CHILDREN, 1).apply();
+public class SearchForm {
+
+  public enum GuestType {
+    ADULTS(LocatorKey.ADD_ADULT_BUTTON, LocatorKey.REMOVE_ADULT_BUTTON, LocatorKey.ADULTS_COUNT),
+    CHILDREN(
+        LocatorKey.ADD_CHILD_BUTTON, LocatorKey.REMOVE_CHILD_BUTTON, LocatorKey.CHILDREN_COUNT),
+    INFANTS(
+        LocatorKey.ADD_INFANT_BUTTON, LocatorKey.REMOVE_INFANT_BUTTON, LocatorKey.INFANTS_COUNT),
+    PETS(LocatorKey.ADD_PET_BUTTON, LocatorKey.REMOVE_PET_BUTTON, LocatorKey.PETS_COUNT);
+
+    private final LocatorKey increaseButton;
+    private final LocatorKey decreaseButton;
+    private final LocatorKey count;
+
+    GuestType(LocatorKey increaseButton, LocatorKey decreaseButton, LocatorKey count) {
+      this.increaseButton = increaseButton;
+      this.decreaseButton = decreaseButton;
+      this.count = count;
+    }
+  }
+
+  // The calendar days are told apart by the start of their aria-label, e.g. "25, Sunday, October
+  // 2026. Available. Select as check-in date"
+  private static final DateTimeFormatter DAY_LABEL =
+      DateTimeFormatter.ofPattern("d, EEEE, MMMM yyyy.", Locale.ENGLISH);
+
+  // How long a guest count may take to show the last click of the click-by-click fallback
+  private static final Duration COUNT_SETTLE = Duration.ofSeconds(5);
+
+  // The date locators pick one position among the available days, the script needs all of them
+  private static final Pattern POSITIONAL_XPATH = Pattern.compile("^\\((.*)\\)\\[\\d+]$");
+
+  private static final String FILL_SCRIPT =
+      """
+      var locators = arguments[0], plan = arguments[1], stepTimeoutMs = arguments[2];
+      var done = arguments[arguments.length - 1];
+      var start = performance.now();
+      var result = {checkIn: false, checkOut: false, guests: {}, step: null};
+
+      function findAll(locator) {
+        if (locator.type === 'id') {
+          var byId = document.getElementById(locator.value);
+          return byId ? [byId] : [];
+        }
+        if (locator.type === 'css') {
+          return Array.prototype.slice.call(document.querySelectorAll(locator.value));
+        }
+        var nodes = [], found = document.evaluate(
+            locator.value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+        for (var i = 0; i < found.snapshotLength; i++) nodes.push(found.snapshotItem(i));
+        return nodes;
+      }
+      function find(locator) {
+        return findAll(locator)[0] || null;
+      }
+      function displayed(element) {
+        var rect = element.getBoundingClientRect();
+        return rect.width > 0 && rect.height > 0 && (!element.checkVisibility
+            || element.checkVisibility({checkOpacity: true, checkVisibilityCSS: true}));
+      }
+      function clickable(locator) {
+        return function () {
+          var element = find(locator);
+          return element && displayed(element) && !element.disabled ? element : null;
+        };
+      }
+      function click(element) {
+        element.scrollIntoView({block: 'center'});
+        element.click();
+        return element;
+      }
+      function count(locator) {
+        var element = find(locator), value = element ? parseInt(element.textContent, 10) : NaN;
+        return isNaN(value) ? -1 : value;
+      }
+      function day(locator, label) {
+        return function () {
+          return findAll(locator).filter(function (cell) {
+            return (cell.getAttribute('aria-label') || '').indexOf(label) === 0
+                && cell.getAttribute('aria-disabled') !== 'true';
+          })[0] || null;
+        };
+      }
+      function daySelected(label) {
+        return function () {
+          var cell = document.querySelector('[aria-label^="' + label + '"]');
+          return cell && /selected/i.test(cell.getAttribute('aria-label'));
+        };
+      }
+
+      // Resolves with the first truthy value of check, re-checked on every DOM mutation and frame
+      function waitFor(description, check) {
+        return new Promise(function (resolve, reject) {
+          var waitStart = performance.now(), finished = false;
+          var observer = new MutationObserver(poll);
+          function poll() {
+            if (finished) return;
+            var value = check();
+            if (value || performance.now() - waitStart >= stepTimeoutMs) {
+              finished = true;
+              observer.disconnect();
+              if (value) resolve(value);
+              else reject(new Error('timed out waiting for ' + description));
+            }
+          }
+          function tick() {
+            poll();
+            if (!finished) {
+              if (document.hidden) setTimeout(tick, 16);
+              else requestAnimationFrame(tick);
+            }
+          }
+          observer.observe(document, {
+              attributes: true, childList: true, characterData: true, subtree: true});
+          tick();
+        });
+      }
+      function step(name, action) {
+        return function () {
+          result.step = name;
+          return action();
+        };
+      }
+      function pickDay(name, locator, label) {
+        return waitFor(name + ' ' + label, day(locator, label))
+            .then(click)
+            .then(function () {
+              return waitFor(name + ' ' + label + ' to be selected', daySelected(label));
+            });
+      }
+      function stepGuests(guest, clicks) {
+        var current = count(guest.count);
+        if (current >= guest.target || clicks >= guest.target) return null;
+        return waitFor('the ' + guest.type + ' increase button', clickable(guest.button))
+            .then(click)
+            .then(function () {
+              return waitFor(guest.type + ' to change from ' + current, function () {
+                return count(guest.count) !== current;
+              });
+            })
+            .then(function () { return stepGuests(guest, clicks + 1); });
+      }
+
+      var steps = [];
+      if (plan.location !== null) {
+        steps.push(step('location', function () {
+          return waitFor('the location input', clickable(locators.location)).then(function (input) {
+            var setter = Object.getOwnPropertyDescriptor(HTMLInputElement.prototype, 'value').set;
+            input.focus();
+            setter.call(input, plan.location);
+            input.dispatchEvent(new Event('input', {bubbles: true}));
+            input.dispatchEvent(new Event('change', {bubbles: true}));
+          });
+        }));
+      }
+      if (plan.checkIn !== null) {
+        steps.push(step('check-in date', function () {
+          return waitFor('the check-in button', clickable(locators.checkInButton))
+              .then(click)
+              .then(function () {
+                return pickDay('check-in date', locators.checkInDays, plan.checkIn);
+              })
+              .then(function () { result.checkIn = true; });
+        }));
+        steps.push(step('checkout date', function () {
+          return pickDay('checkout date', locators.checkOutDays, plan.checkOut)
+              .then(function () { result.checkOut = true; });
+        }));
+      }
+      if (plan.guests.length > 0) {
+        steps.push(step('guests', function () {
+          return waitFor('the guests button', clickable(locators.guestsButton)).then(click);
+        }));
+        plan.guests.forEach(function (guest) {
+          steps.push(step(guest.type, function () {
+            return waitFor(guest.type, clickable(guest.count)).then(function () {
+              return stepGuests(guest, 0);
+            });
+          }));
+        });
+      }
+
+      function finish(error) {
+        var input = find(locators.location);
+        result.location = input ? input.value : null;
+        plan.guests.forEach(function (guest) { result.guests[guest.type] = count(guest.count); });
+        result.error = error ? String(error.message || error) : null;
+        result.elapsed = performance.now() - start;
+        done(result);
+      }
+      steps.reduce(function (chain, next) { return chain.then(next); }, Promise.resolve())
+          .then(function () { finish(null); }, finish);
+      """;
+
+  private final WebDriver driver;
+  private final WebdriverWaitUtil waitUtil;
+  private final AirbnbHomePage homePage;
+  private String location;
+  private LocalDate checkInDate;
+  private LocalDate checkOutDate;
+  private final Map<GuestType, Integer> guests = new EnumMap<>(GuestType.class);
+
+  SearchForm(WebDriver driver, WebdriverWaitUtil waitUtil, AirbnbHomePage homePage) {
+    this.driver = driver;
+    this.waitUtil = waitUtil;
+    this.homePage = homePage;
+  }
+
+  public SearchForm location(String location) {
+    this.location = location;
+    return this;
+  }
+
+  public SearchForm dates(LocalDate checkInDate, LocalDate checkOutDate) {
+    if (checkInDate.isBefore(LocalDate.now()) || !checkOutDate.isAfter(checkInDate)) {
+      throw new IllegalArgumentException(
+          "Invalid stay from " + checkInDate + " to " + checkOutDate);
+    }
+    this.checkInDate = checkInDate;
+    this.checkOutDate = checkOutDate;
+    return this;
+  }
+
+  public SearchForm guests(GuestType type, int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Negative number of " + type + ": " + count);
+    }
+    guests.put(type, count);
+    return this;
+  }
+
+  public void apply() {
+    int adults = guests.getOrDefault(GuestType.ADULTS, 0);
+    if (adults == 0 && guests.values().stream().anyMatch(count -> count > 0)) {
+      // The site adds an adult on its own, the form would not end in the requested state
+      throw new IllegalArgumentException("Children, infants and pets need at least one adult.");
+    }
+
+    List<String> requested = mismatches(null);
+    if (requested.isEmpty()) {
+      return;
+    }
+    if (!Boolean.parseBoolean(System.getProperty("search.form.batched", "true"))) {
+      fillByClicks(requested);
+      return;
+    }
+
+    Map<String, Object> state = fillInPage();
+    List<String> mismatches = mismatches(state);
+    if (mismatches.isEmpty()) {
+      System.out.println(
+          "Search form filled in one call in "
+              + Math.round(((Number) state.get("elapsed")).doubleValue())
+              + " ms.");
+      return;
+    }
+    System.out.println(
+        "Search form ended with "
+            + String.join(", ", mismatches)
+            + " not as requested"
+            + (state != null && state.get("error") != null
+                ? " (" + state.get("step") + ": " + state.get("error") + ")"
+                : "")
+            + ", filling them click by click.");
+    fillByClicks(mismatches);
+  }
+
+  // Runs the queued interactions in the page and returns the state the form ended in, or null when
+  // the browser could not run the script
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> fillInPage() {
+    long stepTimeoutMs = Long.getLong("search.form.stepTimeoutMs", 10_000);
+    Map<String, Object> locators = new HashMap<>();
+    locators.put("location", locator(LocatorKey.LOCATION_INPUT_FIELD));
+    locators.put("checkInButton", locator(LocatorKey.CHECK_IN_BUTTON));
+    locators.put("checkInDays", allDays(LocatorKey.CHECK_IN_DATE));
+    locators.put("checkOutDays", allDays(LocatorKey.CHECK_OUT_DATE));
+    locators.put("guestsButton", locator(LocatorKey.ADD_GUESTS_BUTTON));
+
+    List<Map<String, Object>> guestSteps = new ArrayList<>();
+    guests.forEach(
+        (type, count) -> {
+          Map<String, Object> guestStep = new LinkedHashMap<>();
+          guestStep.put("type", type.name());
+          guestStep.put("target", count);
+          guestStep.put("button", locator(type.increaseButton));
+          guestStep.put("count", locator(type.count));
+          guestSteps.add(guestStep);
+        });
+    Map<String, Object> plan = new HashMap<>();
+    plan.put("location", location);
+    plan.put("checkIn", checkInDate == null ? null : DAY_LABEL.format(checkInDate));
+    plan.put("checkOut", checkOutDate == null ? null : DAY_LABEL.format(checkOutDate));
+    plan.put("guests", guestSteps);
+
+    try {
+      driver
+          .manage()
+          .timeouts()
+          .scriptTimeout(Duration.ofMillis(stepTimeoutMs * (4 + guestSteps.size())).plusSeconds(5));
+      return (Map<String, Object>)
+          ((JavascriptExecutor) driver)
+              .executeAsyncScript(FILL_SCRIPT, locators, plan, stepTimeoutMs);
+    } catch (ScriptTimeoutException | JavascriptException | UnsupportedCommandException e) {
+      System.out.println("Unable to fill the search form in the page: " + e.getMessage());
+      return null;
+    }
+  }
+
+  // The requested fields the form does not hold, all of them when the state is unknown
+  private List<String> mismatches(Map<String, Object> state) {
+    List<String> mismatches = new ArrayList<>();
+    if (location != null && (state == null || !location.equals(state.get("location")))) {
+      mismatches.add("location");
+    }
+    if (checkInDate != null) {
+      if (state == null || !Boolean.TRUE.equals(state.get("checkIn"))) {
+        mismatches.add("check-in date");
+      }
+      if (state == null || !Boolean.TRUE.equals(state.get("checkOut"))) {
+        mismatches.add("checkout date");
+      }
+    }
+    Map<String, Integer> counts = state == null ? Map.of() : guestCounts(state);
+    guests.forEach(
+        (type, count) -> {
+          if (!Integer.valueOf(count).equals(counts.get(type.name()))) {
+            mismatches.add(type.name().toLowerCase(Locale.ROOT));
+          }
+        });
+    return mismatches;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Integer> guestCounts(Map<String, Object> state) {
+    Map<String, Integer> counts = new HashMap<>();
+    ((Map<String, Object>) state.get("guests"))
+        .forEach((type, count) -> counts.put(type, ((Number) count).intValue()));
+    return counts;
+  }
+
+  // The per-click page methods, for the given fields only. Guests are stepped up or down from the
+  // counts the form already shows.
+  private void fillByClicks(List<String> fields) {
+    if (fields.contains("location")) {
+      waitUtil
+          .waitForElementVisible(LocatorUtil.getLocator(LocatorKey.LOCATION_INPUT_FIELD))
+          .clear();
+      homePage.filterLocation(location);
+    }
+    if (checkInDate != null) {
+      int daysFromToday = (int) ChronoUnit.DAYS.between(LocalDate.now(), checkInDate);
+      int nights = (int) ChronoUnit.DAYS.between(checkInDate, checkOutDate);
+      if (fields.contains("check-in date")) {
+        homePage.selectCheckInDate(daysFromToday);
+      }
+      if (fields.contains("check-in date") || fields.contains("checkout date")) {
+        homePage.selectCheckOutDate(daysFromToday, nights);
+      }
+    }
+
+    boolean panelOpen = false;
+    for (Map.Entry<GuestType, Integer> guest : guests.entrySet()) {
+      GuestType type = guest.getKey();
+      if (!fields.contains(type.name().toLowerCase(Locale.ROOT))) {
+        continue;
+      }
+      By countLocator = LocatorUtil.getLocator(type.count);
+      if (!panelOpen
+          && driver.findElements(countLocator).stream().noneMatch(WebElement::isDisplayed)) {
+        waitUtil
+            .waitForElementClickable(LocatorUtil.getLocator(LocatorKey.ADD_GUESTS_BUTTON))
+            .click();
+      }
+      panelOpen = true;
+
+      int current = readCount(countLocator);
+      int target = guest.getValue();
+      By stepButton =
+          LocatorUtil.getLocator(current < target ? type.increaseButton : type.decreaseButton);
+      for (int i = 0; i < Math.abs(target - current); i++) {
+        waitUtil.waitForElementClickable(stepButton).click();
+      }
+    }
+
+    // The counts the clicks ended on are checked once, a stepper that did not react fails here
+    List<String> wrongCounts = new ArrayList<>();
+    for (Map.Entry<GuestType, Integer> guest : guests.entrySet()) {
+      GuestType type = guest.getKey();
+      if (fields.contains(type.name().toLowerCase(Locale.ROOT))) {
+        By countLocator = LocatorUtil.getLocator(type.count);
+        try {
+          // The last click may still be re-rendering the stepper
+          waitUtil.waitForTextToMatch(
+              countLocator, Pattern.compile("^\\s*" + guest.getValue() + "\\s*$"), COUNT_SETTLE);
+        } catch (TimeoutException e) {
+          // Reported with the count the stepper ended on below
+        }
+        int count = readCount(countLocator);
+        if (count != guest.getValue()) {
+          wrongCounts.add(
+              type.name().toLowerCase(Locale.ROOT)
+                  + " "
+                  + count
+                  + " instead of "
+                  + guest.getValue());
+        }
+      }
+    }
+    if (!wrongCounts.isEmpty()) {
+      throw new IllegalStateException(
+          "The search form shows " + String.join(", ", wrongCounts) + " after filling it in.");
+    }
+  }
+
+  private int readCount(By countLocator) {
+    return Integer.parseInt(waitUtil.waitForElementVisible(countLocator).getText().trim());
+  }
+
+  private static Map<String, String> locator(LocatorKey key) {
+    LocatorDefinition definition = LocatorUtil.getLocatorDefinition(key);
+    return Map.of("type", definition.type(), "value", definition.value());
+  }
+
+  private static Map<String, String> allDays(LocatorKey key) {
+    LocatorDefinition definition = LocatorUtil.getLocatorDefinition(key);
+    Matcher matcher = POSITIONAL_XPATH.matcher(definition.value());
+    return Map.of(
+        "type",
+        definition.type(),
+        "value",
+        "xpath".equals(definition.type()) && matcher.matches()
+            ? matcher.group(1)
+            : definition.value());
+  }
+}
@@ -0,0 +1,137 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.HasCdp;
+
+// Named set of browser options, read from browser-profiles.properties on the classpath. The launch
+// options (headless, disableGpu, disableExtensions) are used by the WebDriverPool when it starts a
+// browser and come from the run profile (-Dbrowser.profile). The window size and the blocked URL
+// patterns are applied to the leased browser for every scenario, from the profile selected by the
+// scenario's @profile:<name> tag.
+public record BrowserProfile(
+    String name,
+    boolean headless,
+    Dimension windowSize,
+    boolean disableGpu,
+    boolean disableExtensions,
+    List<String> blockedUrls) {
+
+  private static final String RESOURCE = "browser-profiles.properties";
+  private static final String TAG_PREFIX = "@profile:";
+
+  private static final class Holder {
+    private static final Properties PROFILES = readProfiles();
+  }
+
+  public static BrowserProfile launchProfile() {
+    return named(System.getProperty("browser.profile", "default"));
+  }
+
+  // The profile of the first @profile:<name> tag, or the run profile if there is none
+  public static BrowserProfile forTags(Collection<String> tags) {
+    return tags.stream()
+        .filter(tag -> tag.startsWith(TAG_PREFIX))
+        .findFirst()
+        .map(tag -> named(tag.substring(TAG_PREFIX.length())))
+        .orElseGet(BrowserProfile::launchProfile);
+  }
+
+  public static BrowserProfile named(String name) {
+    Properties profiles = Holder.PROFILES;
+    if (!profiles.containsKey(name + ".headless")) {
+      TreeSet<String> available = new TreeSet<>();
+      for (String key : profiles.stringPropertyNames()) {
+        available.add(key.substring(0, key.indexOf('.')));
+      }
+      throw new IllegalArgumentException(
+          "Unknown browser profile: " + name + ", available profiles: " + available);
+    }
+
+    String windowSize = profiles.getProperty(name + ".windowSize", "").trim();
+    String blockedUrls = profiles.getProperty(name + ".blockedUrls", "").trim();
+    return new BrowserProfile(
+        name,
+        Boolean.parseBoolean(profiles.getProperty(name + ".headless")),
+        windowSize.isEmpty() ? null : parseDimension(name, windowSize),
+        Boolean.parseBoolean(profiles.getProperty(name + ".disableGpu")),
+        Boolean.parseBoolean(profiles.getProperty(name + ".disableExtensions")),
+        blockedUrls.isEmpty()
+            ? List.of()
+            : Arrays.stream(blockedUrls.split(","))
+                .map(String::trim)
+                .filter(pattern -> !pattern.isEmpty())
+                .toList());
+  }
+
+  public ChromeOptions toChromeOptions() {
+    ChromeOptions options = new ChromeOptions();
+    if (headless) {
+      options.addArguments("--headless=new");
+    }
+    if (disableGpu) {
+      options.addArguments("--disable-gpu");
+    }
+    if (disableExtensions) {
+      options.addArguments("--disable-extensions");
+    }
+    if (windowSize != null) {
+      options.addArguments("--window-size=" + windowSize.getWidth() + "," + windowSize.getHeight());
+    }
+    return options;
+  }
+
+  public void applyWindow(WebDriver driver) {
+    if (windowSize != null) {
+      driver.manage().window().setSize(windowSize);
+    } else {
+      driver.manage().window().maximize();
+    }
+  }
+
+  // Blocking rules are kept per tab, so this is also called for every tab opened later on
+  public void applyNetworkRules(WebDriver driver) {
+    if (!(driver instanceof HasCdp cdp)) {
+      if (!blockedUrls.isEmpty()) {
+        System.out.println("The browser does not support CDP, URLs are not blocked.");
+      }
+      return;
+    }
+    cdp.executeCdpCommand("Network.enable", Map.of());
+    cdp.executeCdpCommand("Network.setBlockedURLs", Map.of("urls", blockedUrls));
+  }
+
+  private static Dimension parseDimension(String profile, String windowSize) {
+    String[] parts = windowSize.toLowerCase(Locale.ROOT).split("x");
+    try {
+      return new Dimension(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(
+          "Invalid windowSize for browser profile " + profile + ": " + windowSize, e);
+    }
+  }
+
+  private static Properties readProfiles() {
+    Properties properties = new Properties();
+    try (InputStream inputStream =
+        BrowserProfile.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+      if (inputStream == null) {
+        throw new IllegalStateException(RESOURCE + " was not found on the classpath");
+      }
+      properties.load(inputStream);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read " + RESOURCE + ": " + e.getMessage(), e);
+    }
+    return properties;
+  }
+}
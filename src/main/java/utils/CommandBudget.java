@@ -0,0 +1,19 @@
+package utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Maximum number of WebDriver commands one invocation of a page object method may issue, including
+// the commands of the page methods it calls. Checked by PageCommandTracker after every scenario.
+// A WebDriverWait counts as one command however many times it polls, so budgets also hold for
+// methods that wait for the page.
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CommandBudget {
+
+  int value();
+}
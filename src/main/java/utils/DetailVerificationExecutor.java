@@ -0,0 +1,138 @@
+package utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+// Runs the same verification against many listing detail pages. Instead of opening, checking and
+// closing one tab at a time, up to `detail.concurrency` tabs (default 4) are opened at once and
+// their navigations are started without waiting, so the browser loads the pages concurrently.
+// The check is then run in each tab in order and the results are returned in the input order.
+public class DetailVerificationExecutor {
+
+  public record DetailResult(String url, Throwable failure) {
+
+    public boolean passed() {
+      return failure == null;
+    }
+  }
+
+  private final WebDriver driver;
+  private final int maxOpenTabs;
+
+  public DetailVerificationExecutor(WebDriver driver) {
+    this(driver, Integer.getInteger("detail.concurrency", 4));
+  }
+
+  public DetailVerificationExecutor(WebDriver driver, int maxOpenTabs) {
+    if (maxOpenTabs < 1) {
+      throw new IllegalArgumentException("detail.concurrency must be at least 1");
+    }
+    this.driver = driver;
+    this.maxOpenTabs = maxOpenTabs;
+  }
+
+  // The check runs while the detail page's tab is focused and signals a failure by throwing.
+  public List<DetailResult> verifyAll(List<String> urls, Runnable check) {
+    List<DetailResult> results = new ArrayList<>(urls.size());
+    if (urls.isEmpty()) {
+      return results;
+    }
+
+    String originalTab = driver.getWindowHandle();
+    for (int start = 0; start < urls.size(); start += maxOpenTabs) {
+      List<String> batch = urls.subList(start, Math.min(start + maxOpenTabs, urls.size()));
+      List<String> tabs = new ArrayList<>(batch.size());
+      // Tabs are closed in order, the ones from this index on are still open
+      int closedTabs = 0;
+      try {
+        openTabs(batch, tabs);
+
+        for (int i = 0; i < batch.size(); i++) {
+          driver.switchTo().window(tabs.get(i));
+          try {
+            check.run();
+            results.add(new DetailResult(batch.get(i), null));
+          } catch (AssertionError | RuntimeException e) {
+            results.add(new DetailResult(batch.get(i), e));
+          } finally {
+            driver.close();
+            closedTabs++;
+          }
+        }
+      } finally {
+        // When opening or switching fails partway, the driver must not go back to the pool
+        // with the rest of the batch still open
+        closeTabs(tabs.subList(closedTabs, tabs.size()));
+        driver.switchTo().window(originalTab);
+      }
+    }
+
+    System.out.println(
+        "Verified " + urls.size() + " detail page(s) with up to " + maxOpenTabs + " open tabs.");
+    return results;
+  }
+
+  // For a card without a link to open in a tab of our own: clicks it, as the listing opens in a
+  // new tab, and runs the check there.
+  public DetailResult verifyByClick(WebElement card, Runnable check) {
+    String originalTab = driver.getWindowHandle();
+    Set<String> tabsBefore = driver.getWindowHandles();
+    String url = null;
+    try {
+      new Actions(driver).moveToElement(card).click().perform();
+      new WebDriverWait(driver, Duration.ofSeconds(10))
+          .until(ExpectedConditions.numberOfWindowsToBe(tabsBefore.size() + 1));
+      String detailTab =
+          driver.getWindowHandles().stream()
+              .filter(handle -> !tabsBefore.contains(handle))
+              .findFirst()
+              .orElseThrow(() -> new RuntimeException("Failed to open listing in a new tab."));
+
+      driver.switchTo().window(detailTab);
+      try {
+        url = driver.getCurrentUrl();
+        check.run();
+      } finally {
+        driver.close();
+      }
+      return new DetailResult(url, null);
+    } catch (AssertionError | RuntimeException e) {
+      return new DetailResult(url, e);
+    } finally {
+      driver.switchTo().window(originalTab);
+    }
+  }
+
+  // Adds each tab to the given list as soon as it is open, so the caller can close the ones opened
+  // before a failure
+  private void openTabs(List<String> urls, List<String> tabs) {
+    for (String url : urls) {
+      driver.switchTo().newWindow(WindowType.TAB);
+      tabs.add(driver.getWindowHandle());
+      // New tabs do not inherit the blocked URLs of the scenario's browser profile
+      DriverFactory.currentProfile().ifPresent(profile -> profile.applyNetworkRules(driver));
+      // Assigning location returns immediately, unlike driver.get() which waits for the load
+      ((JavascriptExecutor) driver).executeScript("window.location.href = arguments[0];", url);
+    }
+  }
+
+  private void closeTabs(List<String> tabs) {
+    for (String tab : tabs) {
+      try {
+        driver.switchTo().window(tab);
+        driver.close();
+      } catch (RuntimeException e) {
+        System.out.println("Unable to close detail tab " + tab + ": " + e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+
+// Serialized copy of the page DOM, taken in a single browser call and queried in the JVM with
+// jsoup, so read-only checks cost one round trip instead of a findElement/getText pair per read.
+// Rendering-dependent facts cannot be recomputed from HTML, so the capture script records them on
+// the copy: elements that are not displayed get a data-snap-hidden attribute, and every element
+// matched by a locator in locators.properties gets its rendered text (data-snap-text) and its
+// bounding box (data-snap-rect). The locators themselves are evaluated again here, in the JVM.
+public class DomSnapshot {
+
+  private static final String CAPTURE_SCRIPT =
+      """
+      var locators = arguments[0];
+      var root = document.documentElement;
+      var copy = root.cloneNode(true);
+      var originals = root.getElementsByTagName('*');
+      var copies = copy.getElementsByTagName('*');
+      var indexes = new Map();
+
+      for (var i = 0; i < originals.length; i++) {
+        var element = originals[i];
+        indexes.set(element, i);
+        var rect = element.getBoundingClientRect();
+        var displayed = rect.width > 0 && rect.height > 0 && (!element.checkVisibility
+            || element.checkVisibility({checkOpacity: true, checkVisibilityCSS: true}));
+        if (!displayed) copies[i].setAttribute('data-snap-hidden', '');
+        if ('value' in element && typeof element.value === 'string') {
+          copies[i].setAttribute('data-snap-value', element.value);
+        }
+      }
+
+      function find(type, value) {
+        if (type === 'id') {
+          var byId = document.getElementById(value);
+          return byId ? [byId] : [];
+        }
+        if (type === 'css') return Array.prototype.slice.call(document.querySelectorAll(value));
+        var nodes = [], result = document.evaluate(
+            value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+        for (var j = 0; j < result.snapshotLength; j++) nodes.push(result.snapshotItem(j));
+        return nodes;
+      }
+
+      locators.forEach(function (locator) {
+        find(locator.type, locator.value).forEach(function (element) {
+          var index = indexes.get(element);
+          if (index === undefined || copies[index].hasAttribute('data-snap-text')) return;
+          var rect = element.getBoundingClientRect();
+          copies[index].setAttribute('data-snap-text', element.innerText || '');
+          copies[index].setAttribute('data-snap-rect',
+              [rect.left, rect.top, rect.width, rect.height].map(Math.round).join(','));
+        });
+      });
+
+      copy.querySelectorAll('script, style, noscript, link[rel="preload"]').forEach(
+          function (node) { node.remove(); });
+      return {url: location.href, html: '<!DOCTYPE html>\\n' + copy.outerHTML};
+      """;
+
+  private final String url;
+  private final String html;
+  private final Document document;
+
+  private DomSnapshot(String url, String html) {
+    this.url = url;
+    this.html = html;
+    this.document = Jsoup.parse(html, url);
+  }
+
+  @SuppressWarnings("unchecked")
+  public static DomSnapshot capture(WebDriver driver) {
+    LocatorRegistry registry = LocatorRegistry.getInstance();
+    List<Map<String, String>> locators = new ArrayList<>();
+    for (LocatorKey key : LocatorKey.values()) {
+      LocatorDefinition definition = registry.getDefinition(key);
+      locators.add(Map.of("type", definition.type(), "value", definition.value()));
+    }
+
+    long start = System.nanoTime();
+    Map<String, Object> result =
+        (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(CAPTURE_SCRIPT, locators);
+    DomSnapshot snapshot = new DomSnapshot((String) result.get("url"), (String) result.get("html"));
+
+    System.out.println(
+        "DOM snapshot of "
+            + snapshot.url
+            + " captured in "
+            + (System.nanoTime() - start) / 1_000_000
+            + " ms ("
+            + snapshot.html.length() / 1024
+            + " KB).");
+    return snapshot;
+  }
+
+  public static DomSnapshot of(String url, String html) {
+    return new DomSnapshot(url, html);
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public String getHtml() {
+    return html;
+  }
+
+  public Elements findAll(LocatorKey key) {
+    return findAll(LocatorUtil.getLocatorDefinition(key));
+  }
+
+  public Elements findAll(LocatorDefinition definition) {
+    return switch (definition.type()) {
+      case "id" -> {
+        Element element = document.getElementById(definition.value());
+        yield element == null ? new Elements() : new Elements(element);
+      }
+      case "css" -> document.select(definition.value());
+      case "xpath" -> document.selectXpath(definition.value());
+      default ->
+          throw new IllegalArgumentException("Unsupported locator type: " + definition.type());
+    };
+  }
+
+  // Same rule as waiting for visibilityOfElementLocated: the first match has to be displayed
+  public Optional<Element> findVisible(LocatorKey key) {
+    Element first = findAll(key).first();
+    return first != null && isDisplayed(first) ? Optional.of(first) : Optional.empty();
+  }
+
+  public Optional<String> visibleText(LocatorKey key) {
+    return findVisible(key).map(DomSnapshot::getText);
+  }
+
+  public static boolean isDisplayed(Element element) {
+    return !element.hasAttr("data-snap-hidden");
+  }
+
+  // The rendered text recorded in the browser, or the text content for elements no locator matched
+  public static String getText(Element element) {
+    return element.hasAttr("data-snap-text") ? element.attr("data-snap-text") : element.text();
+  }
+
+  public static Rectangle getRect(Element element) {
+    String[] parts = element.attr("data-snap-rect").split(",");
+    if (parts.length != 4) {
+      return new Rectangle(0, 0, 0, 0);
+    }
+    // Selenium's Rectangle takes the height before the width
+    return new Rectangle(
+        Integer.parseInt(parts[0]),
+        Integer.parseInt(parts[1]),
+        Integer.parseInt(parts[3]),
+        Integer.parseInt(parts[2]));
+  }
+
+  // Writes the snapshot as an HTML file, e.g. as a failure artifact, and returns its path
+  public Path save(Path directory, String name) {
+    String fileName =
+        name.replaceAll("[^A-Za-z0-9._-]+", "_") + "-" + System.currentTimeMillis() + ".html";
+    try {
+      Files.createDirectories(directory);
+      return Files.writeString(directory.resolve(fileName), html, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to save the DOM snapshot to " + directory, e);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package utils;
+
+import java.util.Optional;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+
+// Keeps one WebDriver per thread so that scenarios running in parallel never share a browser.
+// Browsers are leased from the WebDriverPool and handed back to it when the scenario is done.
+// Scenarios get the leased browser wrapped in a decorator that counts the commands it issues, with
+// the window size and network rules of the scenario's BrowserProfile applied.
+public class DriverFactory {
+
+  private static final ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+  private static final ThreadLocal<WebDriver> leasedDriver = new ThreadLocal<>();
+  private static final ThreadLocal<BrowserProfile> profile = new ThreadLocal<>();
+
+  public static WebDriver startDriver() {
+    return startDriver(BrowserProfile.launchProfile());
+  }
+
+  public static WebDriver startDriver(BrowserProfile browserProfile) {
+    if (driver.get() != null) {
+      throw new IllegalStateException(
+          "A WebDriver is already running on thread: " + Thread.currentThread().getName());
+    }
+
+    WebDriver newDriver = WebDriverPool.getInstance().lease();
+    leasedDriver.set(newDriver);
+    profile.set(browserProfile);
+    try {
+      browserProfile.applyWindow(newDriver);
+      browserProfile.applyNetworkRules(newDriver);
+    } catch (RuntimeException e) {
+      releaseDriver();
+      throw e;
+    }
+
+    WebDriver decoratedDriver =
+        new EventFiringDecorator<>(new WebDriverCommandCounter()).decorate(newDriver);
+    driver.set(decoratedDriver);
+    return decoratedDriver;
+  }
+
+  public static WebDriver getDriver() {
+    WebDriver currentDriver = driver.get();
+    if (currentDriver == null) {
+      throw new IllegalStateException(
+          "No WebDriver has been started on thread: " + Thread.currentThread().getName());
+    }
+    return currentDriver;
+  }
+
+  // Profile of the browser leased on the current thread, if any
+  public static Optional<BrowserProfile> currentProfile() {
+    return Optional.ofNullable(profile.get());
+  }
+
+  public static void releaseDriver() {
+    WebDriver currentDriver = leasedDriver.get();
+    if (currentDriver != null) {
+      try {
+        WebDriverPool.getInstance().release(currentDriver);
+      } finally {
+        leasedDriver.remove();
+        driver.remove();
+        profile.remove();
+      }
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package utils;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// Provides the chromedriver binary for every browser the WebDriverPool launches. The driver is
+// resolved once per JVM: after the first call every caller reads the resolved path from a volatile
+// field without locking, only the first callers wait on the resolution. The resolved driver is
+// pinned for the host in a cache file shared by all JVMs (guarded by a file lock), keyed by the
+// Chrome binary and its modification time, so a Chrome update resolves a matching driver again.
+// Configured with system properties:
+//   webdriver.chrome.driver - a driver path set up front is used as is, nothing is resolved
+//   driver.offline          - never resolve over the network, only use driver.path or the host
+//                             cache (default false)
+//   driver.path             - pre-seeded chromedriver binary, used first when set
+//   driver.cache.file       - host cache file
+//                             (default ~/.cache/airbnb-automation/chromedriver.properties)
+//   driver.cache.ttlHours   - age after which a cached resolution is checked again (default 24)
+public final class DriverProvisioner {
+
+  public enum Source {
+    PRESET,
+    PRE_SEEDED,
+    HOST_CACHE,
+    RESOLVED
+  }
+
+  public record Provisioning(Source source, Path driverPath, String browserKey, long millis) {
+
+    @Override
+    public String toString() {
+      return String.format(
+          "chromedriver provisioned from %s in %d ms: %s",
+          source.name().toLowerCase(Locale.ROOT).replace('_', ' '), millis, driverPath);
+    }
+  }
+
+  private static volatile Provisioning provisioning;
+
+  private DriverProvisioner() {}
+
+  // Path of the chromedriver binary, resolved on the first call
+  public static Path driverPath() {
+    Provisioning current = provisioning;
+    if (current == null) {
+      current = provision();
+    }
+    return current.driverPath();
+  }
+
+  // How the driver was provisioned, if it has been already
+  public static Optional<Provisioning> report() {
+    return Optional.ofNullable(provisioning);
+  }
+
+  private static synchronized Provisioning provision() {
+    if (provisioning != null) {
+      return provisioning;
+    }
+
+    long start = System.nanoTime();
+    Provisioning resolved = resolve();
+    System.setProperty("webdriver.chrome.driver", resolved.driverPath().toString());
+    provisioning =
+        new Provisioning(
+            resolved.source(),
+            resolved.driverPath(),
+            resolved.browserKey(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    System.out.println(provisioning);
+    return provisioning;
+  }
+
+  private static Provisioning resolve() {
+    String preset = System.getProperty("webdriver.chrome.driver");
+    if (preset != null && !preset.isBlank()) {
+      return new Provisioning(
+          Source.PRESET, executable(Path.of(preset), "webdriver.chrome.driver"), "", 0);
+    }
+    String preSeeded = System.getProperty("driver.path");
+    if (preSeeded != null && !preSeeded.isBlank()) {
+      return new Provisioning(
+          Source.PRE_SEEDED, executable(Path.of(preSeeded), "driver.path"), "", 0);
+    }
+
+    boolean offline = Boolean.getBoolean("driver.offline");
+    Path cacheFile =
+        Path.of(
+            System.getProperty(
+                "driver.cache.file",
+                Path.of(
+                        System.getProperty("user.home"),
+                        ".cache",
+                        "airbnb-automation",
+                        "chromedriver.properties")
+                    .toString()));
+    String browserKey = browserKey(offline);
+
+    try {
+      Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+      Path lockFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".lock");
+      // Other JVMs on the host wait here while one of them resolves, then read its result
+      try (FileChannel channel =
+          FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        FileLock lock = channel.lock();
+        try {
+          Optional<Path> cached = readCache(cacheFile, browserKey, offline);
+          if (cached.isPresent()) {
+            return new Provisioning(Source.HOST_CACHE, cached.get(), browserKey, 0);
+          }
+          if (offline) {
+            throw new IllegalStateException(
+                "driver.offline is set but no chromedriver was pre-seeded: set -Ddriver.path or"
+                    + " resolve once online to fill "
+                    + cacheFile);
+          }
+
+          WebDriverManager manager = WebDriverManager.chromedriver();
+          manager.setup();
+          Path driverPath =
+              executable(Path.of(manager.getDownloadedDriverPath()), "WebDriverManager");
+          writeCache(cacheFile, driverPath, browserKey, manager.getDownloadedDriverVersion());
+          return new Provisioning(Source.RESOLVED, driverPath, browserKey, 0);
+        } finally {
+          lock.release();
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to use the chromedriver cache " + cacheFile, e);
+    }
+  }
+
+  // The Chrome binary and its modification time. Offline, the browser is not looked up and any
+  // cached driver is accepted.
+  private static String browserKey(boolean offline) {
+    if (offline) {
+      return "";
+    }
+    try {
+      Optional<Path> browser = WebDriverManager.chromedriver().getBrowserPath();
+      if (browser.isPresent()) {
+        return browser.get() + "@" + Files.getLastModifiedTime(browser.get()).toMillis();
+      }
+    } catch (IOException | RuntimeException e) {
+      System.out.println("Unable to locate the Chrome binary: " + e.getMessage());
+    }
+    return "";
+  }
+
+  private static Optional<Path> readCache(Path cacheFile, String browserKey, boolean offline)
+      throws IOException {
+    if (!Files.isRegularFile(cacheFile)) {
+      return Optional.empty();
+    }
+    Properties cache = new Properties();
+    try (InputStream inputStream = Files.newInputStream(cacheFile)) {
+      cache.load(inputStream);
+    }
+
+    String driverPath = cache.getProperty("driverPath", "");
+    long resolvedAt = Long.parseLong(cache.getProperty("resolvedAt", "0"));
+    Duration ttl = Duration.ofHours(Long.getLong("driver.cache.ttlHours", 24));
+    boolean fresh = System.currentTimeMillis() - resolvedAt < ttl.toMillis();
+    boolean sameBrowser = browserKey.isEmpty() || browserKey.equals(cache.getProperty("browser"));
+    if (driverPath.isEmpty()
+        || !Files.isExecutable(Path.of(driverPath))
+        || !(offline || (fresh && sameBrowser))) {
+      return Optional.empty();
+    }
+    return Optional.of(Path.of(driverPath));
+  }
+
+  private static void writeCache(
+      Path cacheFile, Path driverPath, String browserKey, String driverVersion) throws IOException {
+    Properties cache = new Properties();
+    cache.setProperty("driverPath", driverPath.toString());
+    cache.setProperty("driverVersion", driverVersion == null ? "" : driverVersion);
+    cache.setProperty("browser", browserKey);
+    cache.setProperty("resolvedAt", String.valueOf(System.currentTimeMillis()));
+
+    Path temporary =
+        Files.createTempFile(cacheFile.toAbsolutePath().getParent(), "chromedriver", ".tmp");
+    try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+      cache.store(outputStream, "chromedriver resolved for this host");
+    }
+    Files.move(
+        temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static Path executable(Path driverPath, String origin) {
+    if (!Files.isRegularFile(driverPath) || !Files.isExecutable(driverPath)) {
+      throw new IllegalStateException(
+          "The chromedriver from " + origin + " is not an executable file: " + driverPath);
+    }
+    return driverPath.toAbsolutePath();
+  }
+}
@@ -0,0 +1,145 @@
+package utils;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+// Compares two screenshots in memory. Both images are brought to a packed ARGB raster and the
+// underlying int[] buffers are compared directly instead of calling getRGB(x, y) per pixel.
+// A pixel counts as changed when any of its channels differs by more than the channel tolerance,
+// and two images are equivalent when the ratio of changed pixels does not exceed the maximum.
+public class ImageComparator {
+
+  public record ComparisonResult(long comparedPixels, long changedPixels) {
+
+    public double changedRatio() {
+      return comparedPixels == 0 ? 0 : (double) changedPixels / comparedPixels;
+    }
+  }
+
+  private final double maxChangedRatio;
+  private final int channelTolerance;
+  private final Rectangle regionOfInterest;
+
+  public ImageComparator(double maxChangedRatio, int channelTolerance) {
+    this(maxChangedRatio, channelTolerance, null);
+  }
+
+  public ImageComparator(double maxChangedRatio, int channelTolerance, Rectangle regionOfInterest) {
+    if (maxChangedRatio < 0 || maxChangedRatio > 1) {
+      throw new IllegalArgumentException("The changed-pixel ratio must be between 0 and 1");
+    }
+    if (channelTolerance < 0 || channelTolerance > 255) {
+      throw new IllegalArgumentException("The per-channel tolerance must be between 0 and 255");
+    }
+    this.maxChangedRatio = maxChangedRatio;
+    this.channelTolerance = channelTolerance;
+    this.regionOfInterest = regionOfInterest;
+  }
+
+  // Strict comparison: a single differing pixel makes the images different.
+  public static ImageComparator exact() {
+    return new ImageComparator(0, 0);
+  }
+
+  public ImageComparator withRegionOfInterest(Rectangle regionOfInterest) {
+    return new ImageComparator(maxChangedRatio, channelTolerance, regionOfInterest);
+  }
+
+  public boolean areEquivalent(byte[] firstImage, byte[] secondImage) {
+    return isWithinTolerance(compare(firstImage, secondImage));
+  }
+
+  public boolean isWithinTolerance(ComparisonResult result) {
+    return result.changedRatio() <= maxChangedRatio;
+  }
+
+  public ComparisonResult compare(byte[] firstImage, byte[] secondImage) {
+    return compare(decode(firstImage), decode(secondImage));
+  }
+
+  public ComparisonResult compare(BufferedImage firstImage, BufferedImage secondImage) {
+    Rectangle bounds = new Rectangle(0, 0, firstImage.getWidth(), firstImage.getHeight());
+    if (regionOfInterest != null) {
+      bounds = bounds.intersection(regionOfInterest);
+    }
+    long comparedPixels = bounds.isEmpty() ? 0 : (long) bounds.width * bounds.height;
+
+    // Images of different sizes cannot be compared pixel by pixel, so every pixel is a change
+    if (firstImage.getWidth() != secondImage.getWidth()
+        || firstImage.getHeight() != secondImage.getHeight()) {
+      return new ComparisonResult(comparedPixels, comparedPixels);
+    }
+    if (comparedPixels == 0) {
+      return new ComparisonResult(0, 0);
+    }
+
+    int[] firstPixels = toArgbPixels(firstImage);
+    int[] secondPixels = toArgbPixels(secondImage);
+    int width = firstImage.getWidth();
+    long changedPixels = 0;
+
+    for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+      int rowStart = y * width + bounds.x;
+      int rowEnd = rowStart + bounds.width;
+      for (int i = rowStart; i < rowEnd; i++) {
+        int first = firstPixels[i];
+        int second = secondPixels[i];
+        if (first != second && exceedsTolerance(first, second)) {
+          changedPixels++;
+        }
+      }
+    }
+
+    return new ComparisonResult(comparedPixels, changedPixels);
+  }
+
+  public static BufferedImage decode(byte[] image) {
+    try {
+      BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(image));
+      if (decoded == null) {
+        throw new IOException("Unsupported image format.");
+      }
+      return decoded;
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to decode screenshot: " + e.getMessage(), e);
+    }
+  }
+
+  private boolean exceedsTolerance(int first, int second) {
+    if (channelTolerance == 0) {
+      return true;
+    }
+    for (int shift = 0; shift < 32; shift += 8) {
+      int delta = Math.abs(((first >>> shift) & 0xFF) - ((second >>> shift) & 0xFF));
+      if (delta > channelTolerance) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Returns the image's pixels as one packed ARGB value per pixel, row by row. Images decoded
+  // from PNG usually use a byte-interleaved layout, so they are converted with a single drawImage.
+  private static int[] toArgbPixels(BufferedImage image) {
+    BufferedImage argbImage = image;
+    if (image.getType() != BufferedImage.TYPE_INT_ARGB
+        || image.getRaster().getParent() != null
+        || image.getRaster().getSampleModelTranslateX() != 0
+        || image.getRaster().getSampleModelTranslateY() != 0) {
+      argbImage =
+          new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+      Graphics2D graphics = argbImage.createGraphics();
+      try {
+        graphics.drawImage(image, 0, 0, null);
+      } finally {
+        graphics.dispose();
+      }
+    }
+    return ((DataBufferInt) argbImage.getRaster().getDataBuffer()).getData();
+  }
+}
@@ -0,0 +1,32 @@
+package utils;
+
+import java.util.List;
+
+// Typed view of the text of a listing card or map pin popup, as produced by ListingTextParser.
+// Counts are 0 and strings are empty when the text does not mention them.
+public record ListingDetails(
+    String title,
+    String price,
+    String currency,
+    int beds,
+    int bedrooms,
+    int guests,
+    double rating,
+    int reviewCount,
+    String ratingText,
+    List<String> badges,
+    List<String> comparisonDetails) {
+
+  public boolean hasTitleAndPrice() {
+    return !title.isEmpty() && !price.isEmpty();
+  }
+
+  // A map pin belongs to a listing when the titles match (ignoring case) and the prices are equal
+  public boolean matchesTitleAndPrice(String listingTitle, String listingPrice) {
+    return hasTitleAndPrice() && title.equalsIgnoreCase(listingTitle) && price.equals(listingPrice);
+  }
+
+  public boolean hasRating() {
+    return !ratingText.isEmpty();
+  }
+}
@@ -0,0 +1,119 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+// Parses the JSON the results page loads (StaysSearch) into ListingRecords, so that listing checks
+// do not depend on the wording or currency of the cards.
+// Fields missing from a response are left empty instead of failing the whole parse.
+public final class ListingJsonParser {
+
+  private static final Json JSON = new Json();
+  private static final Pattern AMOUNT_PATTERN = Pattern.compile("\\d[\\d.,]*");
+
+  private ListingJsonParser() {}
+
+  // The listings of a StaysSearch response, or empty if the body is not one
+  public static Optional<List<ListingRecord>> parseSearchResults(String body) {
+    Object results =
+        path(read(body), "data", "presentation", "staysSearch", "results", "searchResults");
+    if (!(results instanceof List<?> searchResults)) {
+      return Optional.empty();
+    }
+
+    List<ListingRecord> listings = new ArrayList<>(searchResults.size());
+    for (Object searchResult : searchResults) {
+      if (searchResult instanceof Map<?, ?> result) {
+        toRecord(result).ifPresent(listings::add);
+      }
+    }
+    return Optional.of(List.copyOf(listings));
+  }
+
+  private static Optional<ListingRecord> toRecord(Map<?, ?> result) {
+    if (!(result.get("listing") instanceof Map<?, ?> listing) || listing.get("id") == null) {
+      return Optional.empty();
+    }
+
+    Object displayPrice = path(result, "pricingQuote", "structuredStayDisplayPrice");
+    if (displayPrice == null) {
+      displayPrice = path(result, "pricingQuote", "structuredDisplayPrice");
+    }
+    Object primaryLine = path(displayPrice, "primaryLine");
+    Object priceText = path(primaryLine, "discountedPrice");
+    if (priceText == null) {
+      priceText = path(primaryLine, "price");
+    }
+
+    // "1,639 lei" or "$120": the amount, and whatever is left as the currency
+    String price = "";
+    String currency = "";
+    if (priceText instanceof String text) {
+      Matcher matcher = AMOUNT_PATTERN.matcher(text);
+      if (matcher.find()) {
+        price = matcher.group();
+        currency = (text.substring(0, matcher.start()) + text.substring(matcher.end())).trim();
+      }
+    }
+
+    List<String> amenities = new ArrayList<>();
+    if (listing.get("amenities") instanceof List<?> names) {
+      names.forEach(name -> amenities.add(String.valueOf(name)));
+    }
+    List<Long> amenityIds = new ArrayList<>();
+    if (listing.get("amenityIds") instanceof List<?> ids) {
+      ids.forEach(id -> amenityIds.add(((Number) id).longValue()));
+    }
+
+    return Optional.of(
+        new ListingRecord(
+            String.valueOf(listing.get("id")),
+            text(listing.get("title")),
+            text(listing.get("name")),
+            price,
+            currency,
+            number(listing.get("beds")),
+            number(listing.get("bedrooms")),
+            number(listing.get("personCapacity")),
+            List.copyOf(amenities),
+            List.copyOf(amenityIds),
+            decimal(path(listing, "coordinate", "latitude")),
+            decimal(path(listing, "coordinate", "longitude"))));
+  }
+
+  private static Object read(String body) {
+    try {
+      return JSON.toType(body, Object.class);
+    } catch (JsonException e) {
+      return null;
+    }
+  }
+
+  private static Object path(Object node, String... keys) {
+    for (String key : keys) {
+      if (!(node instanceof Map<?, ?> map)) {
+        return null;
+      }
+      node = map.get(key);
+    }
+    return node;
+  }
+
+  private static String text(Object value) {
+    return value == null ? "" : String.valueOf(value).trim();
+  }
+
+  private static int number(Object value) {
+    return value instanceof Number number ? number.intValue() : 0;
+  }
+
+  private static double decimal(Object value) {
+    return value instanceof Number number ? number.doubleValue() : 0;
+  }
+}
@@ -0,0 +1,31 @@
+package utils;
+
+import java.util.List;
+import java.util.Locale;
+
+// Typed view of one listing of a search response, as produced by ListingJsonParser. The
+// price is the amount as shown on the card and on the map pin ("1,639"), the currency is separate.
+// Counts are 0 and lists are empty when the response does not include them.
+public record ListingRecord(
+    String id,
+    String title,
+    String name,
+    String price,
+    String currency,
+    int beds,
+    int bedrooms,
+    int guests,
+    List<String> amenities,
+    List<Long> amenityIds,
+    double latitude,
+    double longitude) {
+
+  public boolean hasAmenity(String amenity) {
+    String wanted = amenity.toLowerCase(Locale.ROOT);
+    return amenities.stream().anyMatch(name -> name.toLowerCase(Locale.ROOT).contains(wanted));
+  }
+
+  public boolean hasTitleAndPrice() {
+    return !title.isEmpty() && !price.isEmpty();
+  }
+}
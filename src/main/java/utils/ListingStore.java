@@ -0,0 +1,382 @@
+package utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+// Keeps the listings AirbnbResultsPage extracts during a scenario and appends them to a columnar
+// segment file when the scenario ends, so that result sets can be compared across runs with
+// ListingStoreReader. Enabled with -Dlisting.store.dir=<directory>; every flush writes one new
+// segment-<run>-<thread>-<n>.lseg file there, so parallel scenarios and runs never share a file.
+// Listings are buffered per thread and recorded once per page, source and listing. Bed, bedroom
+// and guest counts are -1 when the card or response does not mention them.
+//
+// Segment layout (big-endian):
+//   header  - magic "LSEG", format version (int), row count (int), column count (int)
+//   columns - per column: name (UTF), type (byte 'I', 'L' or 'S'), data offset and length (long)
+//   data    - 'I' columns hold rowCount ints and 'L' columns rowCount longs. 'S' columns are
+//             dictionary encoded: the number of distinct values (int), each value as an int byte
+//             length and its UTF-8 bytes, then rowCount int codes into the dictionary (-1 = none)
+//   footer  - CRC32 of everything before it (long)
+public final class ListingStore {
+
+  static final int MAGIC = 0x4C534547; // "LSEG"
+  static final int VERSION = 2;
+  static final byte INT = 'I';
+  static final byte LONG = 'L';
+  static final byte STRING = 'S';
+
+  // Stored for bed, bedroom and guest counts the card or response does not mention
+  public static final int UNKNOWN = -1;
+
+  public static final String SOURCE_CARD = "card";
+  public static final String SOURCE_NETWORK = "network";
+
+  // Column names and types, in file order
+  static final Map<String, Byte> COLUMNS = columns();
+
+  private static final Pattern AMOUNT_PATTERN = Pattern.compile("\\d[\\d.,]*");
+  private static final long RUN_ID = System.currentTimeMillis();
+  private static final AtomicInteger SEGMENTS = new AtomicInteger();
+
+  // The search the scenario ran, written to every row of its segment
+  public record SearchContext(
+      String scenario,
+      String status,
+      String location,
+      LocalDate checkIn,
+      LocalDate checkOut,
+      int guests) {}
+
+  private static final class Row {
+    final long recordedAt = System.currentTimeMillis();
+    final int page;
+    final int position;
+    final String source;
+    final long roomId;
+    final String title;
+    final String currency;
+    final long priceCents;
+    final int beds;
+    final int bedrooms;
+    final int guests;
+    int pinMatch = -1;
+
+    Row(
+        int page,
+        int position,
+        String source,
+        String roomId,
+        String title,
+        String price,
+        String currency,
+        int beds,
+        int bedrooms,
+        int guests) {
+      this.page = page;
+      this.position = position;
+      this.source = source;
+      this.roomId = parseRoomId(roomId);
+      this.title = title;
+      this.currency = currency;
+      this.priceCents = parseCents(price);
+      // ListingDetails and ListingRecord use 0 for a count the text or response does not give
+      this.beds = beds > 0 ? beds : UNKNOWN;
+      this.bedrooms = bedrooms > 0 ? bedrooms : UNKNOWN;
+      this.guests = guests > 0 ? guests : UNKNOWN;
+    }
+  }
+
+  private static final class Buffer {
+    final List<Row> rows = new ArrayList<>();
+    final Set<String> recorded = new HashSet<>();
+  }
+
+  private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+  private ListingStore() {}
+
+  public static boolean isEnabled() {
+    String directory = System.getProperty("listing.store.dir");
+    return directory != null && !directory.isBlank();
+  }
+
+  // A listing card of the given results page, parsed from its text
+  public static void recordCard(int page, int position, String roomId, ListingDetails details) {
+    record(
+        page,
+        position,
+        SOURCE_CARD,
+        roomId,
+        details.title(),
+        details.price(),
+        details.currency(),
+        details.beds(),
+        details.bedrooms(),
+        details.guests());
+  }
+
+  // A listing of a search response captured on the given results page
+  public static void recordResponse(int page, int position, ListingRecord listing) {
+    record(
+        page,
+        position,
+        SOURCE_NETWORK,
+        listing.id(),
+        listing.title(),
+        listing.price(),
+        listing.currency(),
+        listing.beds(),
+        listing.bedrooms(),
+        listing.guests());
+  }
+
+  // Whether the map pin popup of the listing with this title showed the same details as its card
+  public static void recordPinMatch(String title, boolean matched) {
+    if (!isEnabled() || title == null) {
+      return;
+    }
+    for (Row row : BUFFER.get().rows) {
+      if (row.title.equalsIgnoreCase(title)) {
+        row.pinMatch = matched ? 1 : 0;
+      }
+    }
+  }
+
+  // Writes the listings recorded on the calling thread as a new segment and clears them. Returns
+  // the segment, or null when the store is disabled or nothing was recorded.
+  public static Path flush(SearchContext context) {
+    Buffer buffer = BUFFER.get();
+    BUFFER.remove();
+    if (!isEnabled() || buffer.rows.isEmpty()) {
+      return null;
+    }
+
+    Path directory = Path.of(System.getProperty("listing.store.dir"));
+    Path segment =
+        directory.resolve(
+            "segment-"
+                + RUN_ID
+                + "-"
+                + Thread.currentThread().getName().replaceAll("[^A-Za-z0-9_.-]", "_")
+                + "-"
+                + SEGMENTS.incrementAndGet()
+                + ".lseg");
+    try {
+      Files.createDirectories(directory);
+      Path temporary = Files.createTempFile(directory, "segment", ".tmp");
+      try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+        outputStream.write(encode(buffer.rows, context));
+      }
+      // Readers only ever see complete segments
+      Files.move(temporary, segment, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the listing segment " + segment, e);
+    }
+    System.out.println(
+        "Stored " + buffer.rows.size() + " extracted listing(s) in " + segment.getFileName());
+    return segment;
+  }
+
+  private static void record(
+      int page,
+      int position,
+      String source,
+      String roomId,
+      String title,
+      String price,
+      String currency,
+      int beds,
+      int bedrooms,
+      int guests) {
+    if (!isEnabled()) {
+      return;
+    }
+    Buffer buffer = BUFFER.get();
+    String listing = roomId != null && !roomId.isEmpty() ? roomId : title + "|" + price;
+    if (buffer.recorded.add(source + "|" + page + "|" + listing)) {
+      buffer.rows.add(
+          new Row(page, position, source, roomId, title, price, currency, beds, bedrooms, guests));
+    }
+  }
+
+  private static byte[] encode(List<Row> rows, SearchContext context) throws IOException {
+    int checkIn = context.checkIn() == null ? -1 : (int) context.checkIn().toEpochDay();
+    int nights =
+        context.checkIn() == null || context.checkOut() == null
+            ? -1
+            : (int) ChronoUnit.DAYS.between(context.checkIn(), context.checkOut());
+
+    Map<String, byte[]> data = new HashMap<>();
+    data.put("runId", longs(rows, row -> RUN_ID));
+    data.put("recordedAt", longs(rows, row -> row.recordedAt));
+    data.put("scenario", strings(rows, row -> context.scenario()));
+    data.put("status", strings(rows, row -> context.status()));
+    data.put("location", strings(rows, row -> context.location()));
+    data.put("checkIn", ints(rows, row -> checkIn));
+    data.put("nights", ints(rows, row -> nights));
+    data.put("searchGuests", ints(rows, row -> context.guests()));
+    data.put("page", ints(rows, row -> row.page));
+    data.put("position", ints(rows, row -> row.position));
+    data.put("source", strings(rows, row -> row.source));
+    data.put("roomId", longs(rows, row -> row.roomId));
+    data.put("title", strings(rows, row -> row.title));
+    data.put("currency", strings(rows, row -> row.currency));
+    data.put("priceCents", longs(rows, row -> row.priceCents));
+    data.put("beds", ints(rows, row -> row.beds));
+    data.put("bedrooms", ints(rows, row -> row.bedrooms));
+    data.put("guests", ints(rows, row -> row.guests));
+    data.put("pinMatch", ints(rows, row -> row.pinMatch));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    output.writeInt(rows.size());
+    output.writeInt(COLUMNS.size());
+
+    // The directory has a fixed size per column, so the data offsets are known up front
+    long offset = 16;
+    for (String name : COLUMNS.keySet()) {
+      offset += 2 + name.getBytes(StandardCharsets.UTF_8).length + 1 + 8 + 8;
+    }
+    for (Map.Entry<String, Byte> column : COLUMNS.entrySet()) {
+      byte[] columnData = data.get(column.getKey());
+      output.writeUTF(column.getKey());
+      output.writeByte(column.getValue());
+      output.writeLong(offset);
+      output.writeLong(columnData.length);
+      offset += columnData.length;
+    }
+    for (String name : COLUMNS.keySet()) {
+      output.write(data.get(name));
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(bytes.toByteArray());
+    output.writeLong(crc.getValue());
+    output.flush();
+    return bytes.toByteArray();
+  }
+
+  private static byte[] ints(List<Row> rows, ToIntFunction<Row> value) {
+    ByteBuffer buffer = ByteBuffer.allocate(rows.size() * Integer.BYTES);
+    rows.forEach(row -> buffer.putInt(value.applyAsInt(row)));
+    return buffer.array();
+  }
+
+  private static byte[] longs(List<Row> rows, ToLongFunction<Row> value) {
+    ByteBuffer buffer = ByteBuffer.allocate(rows.size() * Long.BYTES);
+    rows.forEach(row -> buffer.putLong(value.applyAsLong(row)));
+    return buffer.array();
+  }
+
+  private static byte[] strings(List<Row> rows, Function<Row, String> value) throws IOException {
+    Map<String, Integer> dictionary = new LinkedHashMap<>();
+    int[] codes = new int[rows.size()];
+    for (int i = 0; i < rows.size(); i++) {
+      String text = value.apply(rows.get(i));
+      codes[i] = text == null ? -1 : dictionary.computeIfAbsent(text, unused -> dictionary.size());
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(dictionary.size());
+    for (String text : dictionary.keySet()) {
+      byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+      output.writeInt(utf8.length);
+      output.write(utf8);
+    }
+    for (int code : codes) {
+      output.writeInt(code);
+    }
+    output.flush();
+    return bytes.toByteArray();
+  }
+
+  private static Map<String, Byte> columns() {
+    Map<String, Byte> columns = new LinkedHashMap<>();
+    columns.put("runId", LONG);
+    columns.put("recordedAt", LONG);
+    columns.put("scenario", STRING);
+    columns.put("status", STRING);
+    columns.put("location", STRING);
+    columns.put("checkIn", INT);
+    columns.put("nights", INT);
+    columns.put("searchGuests", INT);
+    columns.put("page", INT);
+    columns.put("position", INT);
+    columns.put("source", STRING);
+    columns.put("roomId", LONG);
+    columns.put("title", STRING);
+    columns.put("currency", STRING);
+    columns.put("priceCents", LONG);
+    columns.put("beds", INT);
+    columns.put("bedrooms", INT);
+    columns.put("guests", INT);
+    columns.put("pinMatch", INT);
+    return Collections.unmodifiableMap(columns);
+  }
+
+  private static long parseRoomId(String roomId) {
+    try {
+      return roomId == null || roomId.isEmpty() ? 0 : Long.parseLong(roomId);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  // "1,639" -> 163900, "95.50" -> 9550, "95.5" -> 9550, "1.234" -> 123400: a last separator
+  // followed by one or two digits is the decimal point, every other separator groups thousands
+  private static long parseCents(String price) {
+    if (price == null) {
+      return -1;
+    }
+    Matcher matcher = AMOUNT_PATTERN.matcher(price);
+    if (!matcher.find()) {
+      return -1;
+    }
+    String amount = matcher.group().replaceAll("[.,]$", "");
+    int separator = Math.max(amount.lastIndexOf('.'), amount.lastIndexOf(','));
+    int decimals = separator < 0 ? 0 : amount.length() - separator - 1;
+    boolean hasDecimals = decimals == 1 || decimals == 2;
+
+    long cents = 0;
+    String whole = hasDecimals ? amount.substring(0, separator) : amount;
+    for (char c : whole.toCharArray()) {
+      if (Character.isDigit(c)) {
+        cents = cents * 10 + (c - '0');
+      }
+    }
+    cents *= 100;
+    if (hasDecimals) {
+      int fraction = Integer.parseInt(amount.substring(separator + 1));
+      cents += decimals == 1 ? fraction * 10 : fraction;
+    }
+    return cents;
+  }
+}
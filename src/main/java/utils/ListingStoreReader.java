@@ -0,0 +1,314 @@
+package utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Scans the segments written by ListingStore for aggregate queries. Each segment is memory-mapped
+// read-only and its int and long columns and dictionary codes are read in place, so scanning
+// millions of rows only keeps the string dictionaries and the aggregates on the heap. Segments are
+// mapped one at a time and left to the GC once visited.
+//   java -cp target/classes:<classpath> utils.ListingStoreReader <store dir> [card|network]
+public final class ListingStoreReader {
+
+  public record IntColumn(ByteBuffer data, int offset) {
+    public int get(int row) {
+      return data.getInt(offset + row * Integer.BYTES);
+    }
+  }
+
+  public record LongColumn(ByteBuffer data, int offset) {
+    public long get(int row) {
+      return data.getLong(offset + row * Long.BYTES);
+    }
+  }
+
+  // The dictionary is decoded when the column is opened, the codes stay in the mapped file
+  public record StringColumn(ByteBuffer data, int codesOffset, List<String> dictionary) {
+    public int code(int row) {
+      return data.getInt(codesOffset + row * Integer.BYTES);
+    }
+
+    public String get(int row) {
+      int code = code(row);
+      return code < 0 ? null : dictionary.get(code);
+    }
+
+    // The code of the value in this segment, or -1, so that filters compare ints per row
+    public int codeOf(String value) {
+      return dictionary.indexOf(value);
+    }
+  }
+
+  public static final class Segment {
+    private final Path file;
+    private final MappedByteBuffer data;
+    private final int rows;
+    private final Map<String, int[]> columns = new HashMap<>();
+    private final Map<String, Byte> types = new HashMap<>();
+
+    private Segment(Path file, MappedByteBuffer data) {
+      this.file = file;
+      this.data = data;
+      if (data.capacity() < 24 || data.getInt(0) != ListingStore.MAGIC) {
+        throw new IllegalStateException(file + " is not a listing store segment");
+      }
+      if (data.getInt(4) != ListingStore.VERSION) {
+        throw new IllegalStateException(
+            file
+                + " has segment format version "
+                + data.getInt(4)
+                + ", expected "
+                + ListingStore.VERSION);
+      }
+
+      CRC32 crc = new CRC32();
+      crc.update(data.slice(0, data.capacity() - Long.BYTES));
+      if (crc.getValue() != data.getLong(data.capacity() - Long.BYTES)) {
+        throw new IllegalStateException(file + " is corrupt, its checksum does not match");
+      }
+
+      this.rows = data.getInt(8);
+      int columnCount = data.getInt(12);
+      int position = 16;
+      for (int i = 0; i < columnCount; i++) {
+        int nameLength = Short.toUnsignedInt(data.getShort(position));
+        byte[] name = new byte[nameLength];
+        data.get(position + 2, name);
+        position += 2 + nameLength;
+        String columnName = new String(name, StandardCharsets.UTF_8);
+        types.put(columnName, data.get(position));
+        columns.put(
+            columnName,
+            new int[] {(int) data.getLong(position + 1), (int) data.getLong(position + 9)});
+        position += 17;
+      }
+    }
+
+    public Path file() {
+      return file;
+    }
+
+    public int rows() {
+      return rows;
+    }
+
+    public IntColumn ints(String name) {
+      return new IntColumn(data, column(name, ListingStore.INT)[0]);
+    }
+
+    public LongColumn longs(String name) {
+      return new LongColumn(data, column(name, ListingStore.LONG)[0]);
+    }
+
+    public StringColumn strings(String name) {
+      int position = column(name, ListingStore.STRING)[0];
+      int size = data.getInt(position);
+      position += Integer.BYTES;
+      List<String> dictionary = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        byte[] value = new byte[data.getInt(position)];
+        data.get(position + Integer.BYTES, value);
+        dictionary.add(new String(value, StandardCharsets.UTF_8));
+        position += Integer.BYTES + value.length;
+      }
+      return new StringColumn(data, position, Collections.unmodifiableList(dictionary));
+    }
+
+    private int[] column(String name, byte type) {
+      int[] column = columns.get(name);
+      if (column == null || types.get(name) != type) {
+        throw new IllegalArgumentException(
+            "No column " + name + " of type " + (char) type + " in " + file);
+      }
+      return column;
+    }
+  }
+
+  // Price and bedroom distribution of the listings found for one location, in one currency
+  public record LocationSummary(
+      String location,
+      String currency,
+      long listings,
+      long pricedListings,
+      double minPrice,
+      double maxPrice,
+      double meanPrice,
+      long bedroomListings,
+      double meanBedrooms,
+      long[] bedroomCounts) {
+
+    // Listings per number of bedrooms, the last entry counts every larger number. Listings whose
+    // bedroom count is unknown are left out of the buckets and the mean, bedroomListings counts
+    // the ones that are in.
+    public static final int BEDROOM_BUCKETS = 11;
+  }
+
+  private static final class Accumulator {
+    long listings;
+    long priced;
+    long minCents = Long.MAX_VALUE;
+    long maxCents = Long.MIN_VALUE;
+    double sumCents;
+    long bedroomListings;
+    long bedroomSum;
+    final long[] bedroomCounts = new long[LocationSummary.BEDROOM_BUCKETS];
+  }
+
+  private final List<Path> segments;
+
+  private ListingStoreReader(List<Path> segments) {
+    this.segments = segments;
+  }
+
+  public static ListingStoreReader open(Path directory) {
+    try (Stream<Path> files = Files.list(directory)) {
+      return new ListingStoreReader(
+          files.filter(file -> file.getFileName().toString().endsWith(".lseg")).sorted().toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to list the listing store " + directory, e);
+    }
+  }
+
+  public List<Path> segments() {
+    return segments;
+  }
+
+  // Maps the segments one after the other and hands each one to the visitor
+  public void scan(Consumer<Segment> visitor) {
+    for (Path file : segments) {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        visitor.accept(
+            new Segment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to map the listing segment " + file, e);
+      }
+    }
+  }
+
+  public long rowCount() {
+    long[] rows = {0};
+    scan(segment -> rows[0] += segment.rows());
+    return rows[0];
+  }
+
+  // Summaries per location and currency, from the rows of the given source (card or network), or
+  // from every row when source is null
+  public Map<String, LocationSummary> summarizeByLocation(String source) {
+    Map<String, Accumulator> accumulators = new TreeMap<>();
+    scan(
+        segment -> {
+          StringColumn sources = segment.strings("source");
+          StringColumn locations = segment.strings("location");
+          StringColumn currencies = segment.strings("currency");
+          LongColumn prices = segment.longs("priceCents");
+          IntColumn bedrooms = segment.ints("bedrooms");
+          int sourceCode = source == null ? -1 : sources.codeOf(source);
+          if (source != null && sourceCode < 0) {
+            return;
+          }
+
+          for (int row = 0; row < segment.rows(); row++) {
+            if (source != null && sources.code(row) != sourceCode) {
+              continue;
+            }
+            String location = locations.get(row);
+            String currency = currencies.get(row);
+            Accumulator accumulator =
+                accumulators.computeIfAbsent(
+                    (location == null ? "" : location) + "\t" + (currency == null ? "" : currency),
+                    key -> new Accumulator());
+            accumulator.listings++;
+            long cents = prices.get(row);
+            if (cents >= 0) {
+              accumulator.priced++;
+              accumulator.sumCents += cents;
+              accumulator.minCents = Math.min(accumulator.minCents, cents);
+              accumulator.maxCents = Math.max(accumulator.maxCents, cents);
+            }
+            int rooms = bedrooms.get(row);
+            if (rooms != ListingStore.UNKNOWN) {
+              accumulator.bedroomListings++;
+              accumulator.bedroomSum += rooms;
+              accumulator.bedroomCounts[Math.min(rooms, LocationSummary.BEDROOM_BUCKETS - 1)]++;
+            }
+          }
+        });
+
+    Map<String, LocationSummary> summaries = new TreeMap<>();
+    accumulators.forEach(
+        (key, accumulator) -> {
+          String[] parts = key.split("\t", 2);
+          boolean priced = accumulator.priced > 0;
+          summaries.put(
+              key,
+              new LocationSummary(
+                  parts[0],
+                  parts[1],
+                  accumulator.listings,
+                  accumulator.priced,
+                  priced ? accumulator.minCents / 100.0 : 0,
+                  priced ? accumulator.maxCents / 100.0 : 0,
+                  priced ? accumulator.sumCents / accumulator.priced / 100 : 0,
+                  accumulator.bedroomListings,
+                  accumulator.bedroomListings > 0
+                      ? (double) accumulator.bedroomSum / accumulator.bedroomListings
+                      : 0,
+                  accumulator.bedroomCounts));
+        });
+    return summaries;
+  }
+
+  public static void main(String[] args) {
+    if (args.length == 0) {
+      System.out.println("Usage: ListingStoreReader <store dir> [card|network]");
+      return;
+    }
+    ListingStoreReader reader = open(Path.of(args[0]));
+    long start = System.nanoTime();
+    Map<String, LocationSummary> summaries =
+        reader.summarizeByLocation(args.length > 1 ? args[1] : null);
+    long millis = (System.nanoTime() - start) / 1_000_000;
+
+    System.out.printf(
+        "%-30s %-8s %10s %10s %10s %10s %10s %10s %9s%n",
+        "Location",
+        "Currency",
+        "Listings",
+        "Priced",
+        "Min",
+        "Mean",
+        "Max",
+        "With rooms",
+        "Bedrooms");
+    for (LocationSummary summary : summaries.values()) {
+      System.out.printf(
+          "%-30s %-8s %10d %10d %10.2f %10.2f %10.2f %10d %9.2f%n",
+          summary.location(),
+          summary.currency(),
+          summary.listings(),
+          summary.pricedListings(),
+          summary.minPrice(),
+          summary.meanPrice(),
+          summary.maxPrice(),
+          summary.bedroomListings(),
+          summary.meanBedrooms());
+    }
+    System.out.println("Scanned " + reader.segments().size() + " segment(s) in " + millis + " ms.");
+  }
+}
@@ -0,0 +1,242 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Parses the rendered text of listing cards, map pins and pin popups into ListingDetails. All
+// patterns are compiled once, and a card's text is walked line by line in a single pass.
+public final class ListingTextParser {
+
+  private static final String CURRENCY_SYMBOL = "[€$£¥₹]";
+  private static final String AMOUNT = "\\d[\\d.,]*";
+
+  // "1,234 lei per night", "$120 per night", "€ 95 night"
+  private static final Pattern PRICE_PATTERN =
+      Pattern.compile(
+          "(?:("
+              + CURRENCY_SYMBOL
+              + ")\\s*("
+              + AMOUNT
+              + ")|("
+              + AMOUNT
+              + ")\\s*([A-Za-z]{2,4}|"
+              + CURRENCY_SYMBOL
+              + "))\\s+(?:per\\s+)?night");
+
+  // "Apartment in Rome, 1,234 lei" - everything before the comma that precedes the price
+  private static final Pattern PIN_PATTERN =
+      Pattern.compile(
+          "^(.*?),\\s*(?:("
+              + CURRENCY_SYMBOL
+              + ")\\s*("
+              + AMOUNT
+              + ")|("
+              + AMOUNT
+              + ")\\s*([A-Za-z]{2,4}|"
+              + CURRENCY_SYMBOL
+              + "))");
+
+  private static final Pattern RATING_PATTERN =
+      Pattern.compile("(\\d+\\.\\d+)\\sout\\sof\\s\\d+\\saverage\\srating,\\s(\\d+)\\sreviews");
+
+  private static final Pattern COUNT_PATTERN =
+      Pattern.compile("(\\d+)\\s+(bedroom|bed|guest)s?\\b", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+");
+
+  private static final List<String> KNOWN_BADGES =
+      List.of("Guest favorite", "Superhost", "Free cancellation", "Rare find");
+
+  private static final String FREE_CANCELLATION = "Free cancellation";
+
+  private ListingTextParser() {}
+
+  public static ListingDetails parse(String text) {
+    String title = "";
+    String price = "";
+    String currency = "";
+    int beds = 0;
+    int bedrooms = 0;
+    int guests = 0;
+    double rating = 0;
+    int reviewCount = 0;
+    String ratingText = "";
+    List<String> badges = new ArrayList<>();
+    List<String> summaryLines = new ArrayList<>();
+    boolean inSummary = true;
+
+    Matcher priceMatcher = PRICE_PATTERN.matcher("");
+    Matcher ratingMatcher = RATING_PATTERN.matcher("");
+    Matcher countMatcher = COUNT_PATTERN.matcher("");
+
+    int lineStart = 0;
+    int length = text.length();
+    while (lineStart <= length) {
+      int lineEnd = text.indexOf('\n', lineStart);
+      if (lineEnd < 0) {
+        lineEnd = length;
+      }
+      String line = text.substring(lineStart, lineEnd);
+      lineStart = lineEnd + 1;
+
+      // The details compared with the map popup are the lines before the first "·"
+      if (inSummary) {
+        int separator = line.indexOf('·');
+        if (separator >= 0) {
+          inSummary = false;
+          summaryLines.add(line.substring(0, separator));
+        } else {
+          summaryLines.add(line);
+        }
+      }
+
+      String trimmedLine = line.trim();
+      if (trimmedLine.isEmpty()) {
+        continue;
+      }
+      // Badges such as "Guest favorite" sit above the title on the card
+      if (title.isEmpty() && !isBadge(trimmedLine)) {
+        title = trimmedLine;
+      }
+
+      if (price.isEmpty() && priceMatcher.reset(line).find()) {
+        boolean symbolFirst = priceMatcher.group(1) != null;
+        currency = symbolFirst ? priceMatcher.group(1) : priceMatcher.group(4);
+        price = symbolFirst ? priceMatcher.group(2) : priceMatcher.group(3);
+      }
+
+      if (ratingText.isEmpty() && ratingMatcher.reset(line).find()) {
+        ratingText = ratingMatcher.group();
+        rating = Double.parseDouble(ratingMatcher.group(1));
+        reviewCount = Integer.parseInt(ratingMatcher.group(2));
+      }
+
+      countMatcher.reset(line);
+      while (countMatcher.find()) {
+        int count = Integer.parseInt(countMatcher.group(1));
+        String kind = countMatcher.group(2);
+        if (Character.toLowerCase(kind.charAt(0)) == 'g') {
+          guests = guests == 0 ? count : guests;
+        } else if (kind.length() > 3) {
+          bedrooms = bedrooms == 0 ? count : bedrooms;
+        } else {
+          beds = beds == 0 ? count : beds;
+        }
+      }
+
+      for (String badge : KNOWN_BADGES) {
+        if (trimmedLine.equalsIgnoreCase(badge) && !badges.contains(badge)) {
+          badges.add(badge);
+        }
+      }
+    }
+
+    return new ListingDetails(
+        title,
+        price,
+        currency,
+        beds,
+        bedrooms,
+        guests,
+        rating,
+        reviewCount,
+        ratingText,
+        List.copyOf(badges),
+        List.copyOf(buildComparisonDetails(summaryLines, ratingText)));
+  }
+
+  private static boolean isBadge(String line) {
+    for (String badge : KNOWN_BADGES) {
+      if (line.equalsIgnoreCase(badge)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Map pins only show a title and a price, e.g. "Apartment in Rome, 1,234 lei"
+  public static ListingDetails parsePin(String pinText) {
+    String title = "";
+    String price = "";
+    String currency = "";
+
+    Matcher matcher = PIN_PATTERN.matcher(pinText);
+    if (matcher.find()) {
+      boolean symbolFirst = matcher.group(2) != null;
+      title = matcher.group(1).trim();
+      currency = symbolFirst ? matcher.group(2) : matcher.group(5);
+      price = (symbolFirst ? matcher.group(3) : matcher.group(4)).trim();
+    }
+
+    return new ListingDetails(title, price, currency, 0, 0, 0, 0, 0, "", List.of(), List.of());
+  }
+
+  // Returns the first number in texts such as "6 guests" or "3 bedrooms", or 0 if there is none
+  public static int parseCount(String text) {
+    Matcher matcher = NUMBER_PATTERN.matcher(text);
+    return matcher.find() ? Integer.parseInt(matcher.group()) : 0;
+  }
+
+  // Keeps only the first occurrence of the given item (case-insensitive)
+  public static List<String> removeDuplicateItems(List<String> list, String itemToCheck) {
+    List<String> resultList = new ArrayList<>(list.size());
+    boolean itemSeen = false;
+
+    for (String item : list) {
+      if (item.equalsIgnoreCase(itemToCheck)) {
+        if (!itemSeen) {
+          resultList.add(item);
+          itemSeen = true;
+        }
+      } else {
+        resultList.add(item);
+      }
+    }
+
+    return resultList;
+  }
+
+  // Summary lines without duplicate "Free cancellation" entries, followed by the rating
+  private static List<String> buildComparisonDetails(List<String> summaryLines, String ratingText) {
+    List<String> details = removeDuplicateItems(trimBlock(summaryLines), FREE_CANCELLATION);
+    if (!ratingText.isEmpty()) {
+      details.add(ratingText);
+    }
+    return details;
+  }
+
+  // Cuts the details off after the first line that contains a rating, as the pin popup repeats it
+  public static List<String> limitToFirstRating(List<String> details) {
+    Matcher ratingMatcher = RATING_PATTERN.matcher("");
+    for (int i = 0; i < details.size(); i++) {
+      if (ratingMatcher.reset(details.get(i)).find()) {
+        return new ArrayList<>(details.subList(0, i + 1));
+      }
+    }
+    return details;
+  }
+
+  // Same result as splitting the trimmed block of text into lines
+  private static List<String> trimBlock(List<String> lines) {
+    int first = 0;
+    int last = lines.size() - 1;
+    while (first <= last && lines.get(first).isBlank()) {
+      first++;
+    }
+    while (last >= first && lines.get(last).isBlank()) {
+      last--;
+    }
+    if (first > last) {
+      List<String> empty = new ArrayList<>();
+      empty.add("");
+      return empty;
+    }
+
+    List<String> trimmed = new ArrayList<>(lines.subList(first, last + 1));
+    trimmed.set(0, trimmed.get(0).stripLeading());
+    trimmed.set(trimmed.size() - 1, trimmed.get(trimmed.size() - 1).stripTrailing());
+    return trimmed;
+  }
+}
@@ -0,0 +1,5 @@
+package utils;
+
+// The raw 'type:value' form of a locator from locators.properties, used where a locator has to be
+// evaluated inside the browser (for example from a JavascriptExecutor script) instead of via By.
+public record LocatorDefinition(String type, String value) {}
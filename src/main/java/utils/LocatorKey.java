@@ -0,0 +1,63 @@
+package utils;
+
+import java.util.Locale;
+
+// Typed keys for the entries of locators.properties. Each key maps to the property with the same
+// name in lower case, e.g. SEARCH_RESULTS_HEADER -> search_results_header.
+public enum LocatorKey {
+  // Home page
+  LOCATION_INPUT_FIELD,
+  CHECK_IN_BUTTON,
+  CHECK_IN_DATE,
+  CHECK_OUT_DATE,
+  ADD_GUESTS_BUTTON,
+  ADD_ADULT_BUTTON,
+  ADD_CHILD_BUTTON,
+  ADD_INFANT_BUTTON,
+  ADD_PET_BUTTON,
+  REMOVE_ADULT_BUTTON,
+  REMOVE_CHILD_BUTTON,
+  REMOVE_INFANT_BUTTON,
+  REMOVE_PET_BUTTON,
+  ADULTS_COUNT,
+  CHILDREN_COUNT,
+  INFANTS_COUNT,
+  PETS_COUNT,
+  SEARCH_FOR_RESULTS_BUTTON,
+
+  // Results page
+  SEARCH_RESULTS_HEADER,
+  LOCATION_FILTER_SUMMARY,
+  DATE_FILTER_SUMMARY,
+  GUESTS_FILTER_SUMMARY,
+  LISTING_SUMMARY,
+  FIRST_LISTING_SUMMARY,
+  MORE_FILTERS_BUTTON,
+  ADD_BEDROOM_BUTTON,
+  SHOW_MORE_BUTTON,
+  POOL_FACILITY_BUTTON,
+  SHOW_PLACES_BUTTON,
+  COMMON_MAP_MARKER,
+  PIN_POPUP_SUMMARY,
+  NEXT_PAGE_BUTTON,
+
+  // Listing details page
+  ACCOMMODATES_GUESTS_SUMMARY,
+  BEDROOMS_IN_DETAILS,
+  SHOW_ALL_AMENITIES_BUTTON,
+  PARKING_AND_FACILITIES,
+  CLOSE_TRANSLATION_POPUP;
+
+  public String propertyName() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  public static LocatorKey fromPropertyName(String propertyName) {
+    try {
+      return valueOf(propertyName.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Locator with key: " + propertyName + " not found in locators.properties", e);
+    }
+  }
+}
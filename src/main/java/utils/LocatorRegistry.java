@@ -0,0 +1,167 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import org.jsoup.select.QueryParser;
+import org.jsoup.select.Selector;
+import org.openqa.selenium.By;
+
+// Immutable set of pre-built locators, loaded once from locators.properties on the classpath.
+// An environment overlay (locators-<env>.properties, selected with -Dlocators.env=<env>) can
+// override individual entries. Every entry is validated when the registry is built: unknown
+// keys, missing keys, unsupported types and malformed values are all reported at once.
+public final class LocatorRegistry {
+
+  private static final String BASE_RESOURCE = "locators.properties";
+
+  private static final class Holder {
+    private static final LocatorRegistry INSTANCE = load(System.getProperty("locators.env"));
+  }
+
+  private final Map<LocatorKey, LocatorDefinition> definitions;
+  private final Map<LocatorKey, By> locators;
+
+  private LocatorRegistry(Map<LocatorKey, LocatorDefinition> definitions) {
+    Map<LocatorKey, By> builtLocators = new EnumMap<>(LocatorKey.class);
+    definitions.forEach((key, definition) -> builtLocators.put(key, toBy(definition)));
+
+    this.definitions = Collections.unmodifiableMap(new EnumMap<>(definitions));
+    this.locators = Collections.unmodifiableMap(builtLocators);
+  }
+
+  public static LocatorRegistry getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  public static LocatorRegistry load(String environment) {
+    Properties properties = readResource(BASE_RESOURCE);
+    if (environment != null && !environment.isBlank()) {
+      properties.putAll(readResource("locators-" + environment.trim() + ".properties"));
+    }
+
+    List<String> errors = new ArrayList<>();
+    Map<LocatorKey, LocatorDefinition> definitions = new EnumMap<>(LocatorKey.class);
+
+    for (String propertyName : properties.stringPropertyNames()) {
+      LocatorKey key;
+      try {
+        key = LocatorKey.fromPropertyName(propertyName);
+      } catch (IllegalArgumentException e) {
+        errors.add("Unknown locator key: " + propertyName);
+        continue;
+      }
+
+      String error = validate(propertyName, properties.getProperty(propertyName));
+      if (error != null) {
+        errors.add(error);
+      } else {
+        definitions.put(key, parse(properties.getProperty(propertyName)));
+      }
+    }
+
+    for (LocatorKey key : LocatorKey.values()) {
+      if (!properties.containsKey(key.propertyName())) {
+        errors.add("Locator with key: " + key.propertyName() + " not found in locators.properties");
+      }
+    }
+
+    if (!errors.isEmpty()) {
+      throw new IllegalStateException(
+          "Invalid locator configuration:\n  " + String.join("\n  ", errors));
+    }
+
+    return new LocatorRegistry(definitions);
+  }
+
+  public By getLocator(LocatorKey key) {
+    return locators.get(key);
+  }
+
+  public LocatorDefinition getDefinition(LocatorKey key) {
+    return definitions.get(key);
+  }
+
+  public Map<LocatorKey, By> getLocators() {
+    return locators;
+  }
+
+  // Parses a single 'type:value' locator, such as a candidate replacement, with the same checks as
+  // the entries of locators.properties
+  public static LocatorDefinition parseDefinition(String key, String locator) {
+    String error = validate(key, locator);
+    if (error != null) {
+      throw new IllegalArgumentException(error);
+    }
+    return parse(locator);
+  }
+
+  private static Properties readResource(String resource) {
+    Properties properties = new Properties();
+    try (InputStream inputStream =
+        LocatorRegistry.class.getClassLoader().getResourceAsStream(resource)) {
+      if (inputStream == null) {
+        throw new IllegalStateException(resource + " was not found on the classpath");
+      }
+      properties.load(inputStream);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read " + resource + ": " + e.getMessage(), e);
+    }
+    return properties;
+  }
+
+  private static String validate(String key, String locator) {
+    String[] locatorParts = locator.split(":", 2);
+    if (locatorParts.length < 2 || locatorParts[1].isBlank()) {
+      return "Locator format for key: " + key + " is incorrect. Expected format is 'type:value'";
+    }
+
+    String type = locatorParts[0].trim();
+    String value = locatorParts[1].trim();
+    switch (type) {
+      case "id":
+        return value.matches("\\S+") ? null : "Locator id for key: " + key + " contains spaces";
+      case "css":
+        try {
+          QueryParser.parse(value);
+          return null;
+        } catch (Selector.SelectorParseException e) {
+          return "Locator css for key: " + key + " is not a valid selector: " + value;
+        }
+      case "xpath":
+        try {
+          XPathFactory.newInstance().newXPath().compile(value);
+          return null;
+        } catch (XPathExpressionException e) {
+          return "Locator xpath for key: " + key + " is not a valid expression: " + value;
+        }
+      default:
+        return "Unsupported locator type: " + type + " for key: " + key;
+    }
+  }
+
+  private static LocatorDefinition parse(String locator) {
+    String[] locatorParts = locator.split(":", 2);
+    return new LocatorDefinition(locatorParts[0].trim(), locatorParts[1].trim());
+  }
+
+  public static By toBy(LocatorDefinition definition) {
+    switch (definition.type()) {
+      case "id":
+        return By.id(definition.value());
+      case "css":
+        return By.cssSelector(definition.value());
+      case "xpath":
+        return By.xpath(definition.value());
+      default:
+        throw new IllegalArgumentException("Unsupported locator type: " + definition.type());
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.json.Json;
+
+// Records the JSON responses the pages load, so that listing checks can read the data the page was
+// rendered from. A recorder that wraps fetch and XMLHttpRequest is registered through CDP
+// (Page.addScriptToEvaluateOnNewDocument), which runs it in every document the tab loads before
+// the page's own scripts. Responses whose URL matches network.capture.urlPattern are kept in the
+// page and read back in a single call. Only the tab the recorder was installed in is covered.
+public class NetworkCapture {
+
+  private static final String RECORDER_SCRIPT =
+      """
+      (function (urlPattern, maxEntries) {
+        if (window.__networkCapture) return;
+        var captured = window.__networkCapture = [];
+        var pattern = new RegExp(urlPattern);
+
+        function record(url, status, contentType, body) {
+          if (!pattern.test(url) || !/json/i.test(contentType || '')) return;
+          captured.push({url: url, status: status, body: body});
+          if (captured.length > maxEntries) captured.shift();
+        }
+
+        var originalFetch = window.fetch;
+        if (originalFetch) {
+          window.fetch = function () {
+            return originalFetch.apply(this, arguments).then(function (response) {
+              try {
+                response.clone().text().then(function (body) {
+                  record(response.url, response.status, response.headers.get('content-type'), body);
+                }, function () {});
+              } catch (e) {}
+              return response;
+            });
+          };
+        }
+
+        var open = XMLHttpRequest.prototype.open, send = XMLHttpRequest.prototype.send;
+        XMLHttpRequest.prototype.open = function (method, url) {
+          this.__captureUrl = String(url);
+          return open.apply(this, arguments);
+        };
+        XMLHttpRequest.prototype.send = function () {
+          var xhr = this;
+          xhr.addEventListener('load', function () {
+            try {
+              var body = xhr.responseType === 'json' ? JSON.stringify(xhr.response)
+                  : (xhr.responseType === '' || xhr.responseType === 'text') ? xhr.responseText
+                  : null;
+              if (body !== null) {
+                record(xhr.responseURL || xhr.__captureUrl, xhr.status,
+                    xhr.getResponseHeader('content-type'), body);
+              }
+            } catch (e) {}
+          });
+          return send.apply(this, arguments);
+        };
+      })(%s, %d);
+      """;
+
+  private static final String READ_SCRIPT =
+      "return window.__networkCapture ? window.__networkCapture.slice() : [];";
+
+  // Empties the array in place, the recorder keeps a reference to it
+  private static final String CLEAR_SCRIPT =
+      "if (window.__networkCapture) window.__networkCapture.length = 0;";
+
+  public record CapturedResponse(String url, long status, String body) {}
+
+  private final HasCdp cdp;
+  private final String scriptIdentifier;
+
+  private NetworkCapture(HasCdp cdp, String scriptIdentifier) {
+    this.cdp = cdp;
+    this.scriptIdentifier = scriptIdentifier;
+  }
+
+  // Starts recording in the documents the current tab loads from now on
+  public static NetworkCapture install(WebDriver driver) {
+    if (!(driver instanceof HasCdp cdp)) {
+      throw new IllegalStateException("Network capture needs a browser that supports CDP.");
+    }
+
+    String source =
+        RECORDER_SCRIPT.formatted(
+            new Json()
+                .toJson(System.getProperty("network.capture.urlPattern", "/api/v3/StaysSearch")),
+            Integer.getInteger("network.capture.maxEntries", 50));
+    Map<String, Object> result =
+        cdp.executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", Map.of("source", source));
+    return new NetworkCapture(cdp, (String) result.get("identifier"));
+  }
+
+  // Stops recording in documents loaded later on, so the pooled browser is handed back clean
+  public void uninstall() {
+    cdp.executeCdpCommand(
+        "Page.removeScriptToEvaluateOnNewDocument", Map.of("identifier", scriptIdentifier));
+  }
+
+  // Forgets the responses the current document recorded so far
+  public static void clear(WebDriver driver) {
+    ((JavascriptExecutor) driver).executeScript(CLEAR_SCRIPT);
+  }
+
+  // The responses recorded by the current document, oldest first
+  @SuppressWarnings("unchecked")
+  public static List<CapturedResponse> read(WebDriver driver) {
+    List<Map<String, Object>> entries =
+        (List<Map<String, Object>>) ((JavascriptExecutor) driver).executeScript(READ_SCRIPT);
+
+    List<CapturedResponse> responses = new ArrayList<>(entries.size());
+    for (Map<String, Object> entry : entries) {
+      responses.add(
+          new CapturedResponse(
+              (String) entry.get("url"),
+              ((Number) entry.get("status")).longValue(),
+              (String) entry.get("body")));
+    }
+    return responses;
+  }
+}
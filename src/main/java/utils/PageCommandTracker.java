@@ -0,0 +1,231 @@
+package utils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// Attributes every WebDriver command to the page object methods it was issued from. On each
+// command the call stack is walked and every frame of a class in the `pages` package counts as an
+// open invocation of that method, so a method is charged for its own commands and for those of the
+// page methods it calls. Consecutive commands issued from the same chain of frames (same methods,
+// called from the same lines) belong to the same invocations; when the chain changes, the
+// invocations that are no longer on the stack are closed and checked against their @CommandBudget.
+// Two back-to-back calls of a method from the same line with nothing issued in between are
+// therefore counted as one invocation.
+// A WebDriverWait is charged as one command however many times it polls: consecutive commands
+// issued from the same FluentWait.until call site, within the same page frames, after the first
+// one are repeated polls and only show up in the report. Budgets therefore hold regardless of how
+// long the page takes to render, in both the poll and the push wait backends.
+public final class PageCommandTracker {
+
+  private static final String PAGES_PACKAGE = "pages";
+  private static final String WAIT_CLASS = "org.openqa.selenium.support.ui.FluentWait";
+  private static final StackWalker WALKER =
+      StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+  private static final int NO_BUDGET = -1;
+  private static final Map<String, Integer> BUDGETS = new ConcurrentHashMap<>();
+  private static final ThreadLocal<ScenarioState> STATE =
+      ThreadLocal.withInitial(ScenarioState::new);
+
+  // Commands issued by one page method, over all its invocations in a scenario
+  // maxPerInvocation is the count checked against the budget, without repeated wait polls
+  public record MethodCommands(
+      String method,
+      int invocations,
+      long commands,
+      long repeatedPolls,
+      long maxPerInvocation,
+      int budget) {
+
+    public boolean hasBudget() {
+      return budget != NO_BUDGET;
+    }
+  }
+
+  public record CommandReport(List<MethodCommands> methods, List<String> violations) {
+
+    public boolean withinBudget() {
+      return violations.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder text = new StringBuilder("WebDriver commands per page method:\n");
+      for (MethodCommands method : methods) {
+        text.append(
+            String.format(
+                "  %-60s invocations=%d commands=%d repeatedPolls=%d max=%d budget=%s%n",
+                method.method(),
+                method.invocations(),
+                method.commands(),
+                method.repeatedPolls(),
+                method.maxPerInvocation(),
+                method.hasBudget() ? method.budget() : "-"));
+      }
+      return text.toString();
+    }
+  }
+
+  private record PageFrame(String method, String callSite, int budget) {}
+
+  private static final class Invocation {
+    private final PageFrame frame;
+    private long commands;
+    private long repeatedPolls;
+
+    private Invocation(PageFrame frame) {
+      this.frame = frame;
+    }
+  }
+
+  private static final class ScenarioState {
+    private final List<Invocation> openInvocations = new ArrayList<>();
+    private final Map<String, long[]> totals = new LinkedHashMap<>();
+    private final Map<String, Integer> budgets = new LinkedHashMap<>();
+    private final List<String> violations = new ArrayList<>();
+    // Wait call site and page frames of the previous command, null when it was not issued by a wait
+    private String lastWaitSite;
+    private List<PageFrame> lastWaitFrames;
+
+    // Closes the open invocations from the innermost one down to the given depth
+    private void closeFrom(int depth) {
+      while (openInvocations.size() > depth) {
+        Invocation invocation = openInvocations.remove(openInvocations.size() - 1);
+        PageFrame frame = invocation.frame;
+
+        // {invocations, commands, repeated polls, max charged commands of one invocation}
+        long charged = invocation.commands - invocation.repeatedPolls;
+        long[] total = totals.computeIfAbsent(frame.method(), method -> new long[4]);
+        total[0]++;
+        total[1] += invocation.commands;
+        total[2] += invocation.repeatedPolls;
+        total[3] = Math.max(total[3], charged);
+        budgets.put(frame.method(), frame.budget());
+
+        if (frame.budget() != NO_BUDGET && charged > frame.budget()) {
+          violations.add(
+              frame.method()
+                  + " issued "
+                  + charged
+                  + " WebDriver commands, its budget is "
+                  + frame.budget());
+        }
+      }
+    }
+  }
+
+  private PageCommandTracker() {}
+
+  // Called by WebDriverCommandCounter for every command issued on the current thread
+  static void onCommand() {
+    List<StackWalker.StackFrame> stack = WALKER.walk(Stream::toList);
+    List<PageFrame> frames = pageFrames(stack);
+    String waitSite = waitCallSite(stack);
+    ScenarioState state = STATE.get();
+    boolean repeatedPoll =
+        waitSite != null
+            && waitSite.equals(state.lastWaitSite)
+            && frames.equals(state.lastWaitFrames);
+    state.lastWaitSite = waitSite;
+    state.lastWaitFrames = frames;
+
+    int common = 0;
+    while (common < frames.size()
+        && common < state.openInvocations.size()
+        && state.openInvocations.get(common).frame.equals(frames.get(common))) {
+      common++;
+    }
+    state.closeFrom(common);
+    for (int i = common; i < frames.size(); i++) {
+      state.openInvocations.add(new Invocation(frames.get(i)));
+    }
+    for (Invocation invocation : state.openInvocations) {
+      invocation.commands++;
+      if (repeatedPoll) {
+        invocation.repeatedPolls++;
+      }
+    }
+  }
+
+  // Closes the invocations still open on the current thread and returns what the scenario issued
+  // per page method, then starts over for the next scenario
+  public static CommandReport finishScenario() {
+    ScenarioState state = STATE.get();
+    STATE.remove();
+    state.closeFrom(0);
+
+    List<MethodCommands> methods = new ArrayList<>();
+    state.totals.forEach(
+        (method, total) ->
+            methods.add(
+                new MethodCommands(
+                    method,
+                    (int) total[0],
+                    total[1],
+                    total[2],
+                    total[3],
+                    state.budgets.get(method))));
+    return new CommandReport(List.copyOf(methods), List.copyOf(state.violations));
+  }
+
+  // Page object frames of the stack, outermost first, each with the line it was called from
+  private static List<PageFrame> pageFrames(List<StackWalker.StackFrame> stack) {
+    List<PageFrame> frames = new ArrayList<>();
+    for (int i = stack.size() - 1; i >= 0; i--) {
+      StackWalker.StackFrame frame = stack.get(i);
+      if (!isPageMethod(frame)) {
+        continue;
+      }
+      StackWalker.StackFrame caller = i + 1 < stack.size() ? stack.get(i + 1) : null;
+      String callSite = caller == null ? "" : caller.getClassName() + ":" + caller.getLineNumber();
+      frames.add(
+          new PageFrame(
+              frame.getDeclaringClass().getSimpleName() + "." + frame.getMethodName(),
+              callSite,
+              budgetOf(frame)));
+    }
+    return frames;
+  }
+
+  // Line the innermost FluentWait.until was called from, or null when the command is not a poll
+  private static String waitCallSite(List<StackWalker.StackFrame> stack) {
+    for (int i = 0; i + 1 < stack.size(); i++) {
+      StackWalker.StackFrame frame = stack.get(i);
+      if (frame.getClassName().equals(WAIT_CLASS) && frame.getMethodName().equals("until")) {
+        StackWalker.StackFrame caller = stack.get(i + 1);
+        return caller.getClassName() + ":" + caller.getLineNumber();
+      }
+    }
+    return null;
+  }
+
+  // Lambdas are attributed to the method that declares them, which is further down the stack
+  private static boolean isPageMethod(StackWalker.StackFrame frame) {
+    String methodName = frame.getMethodName();
+    return frame.getDeclaringClass().getPackageName().equals(PAGES_PACKAGE)
+        && !methodName.startsWith("lambda$")
+        && !methodName.startsWith("<");
+  }
+
+  private static int budgetOf(StackWalker.StackFrame frame) {
+    return BUDGETS.computeIfAbsent(
+        frame.getClassName() + "#" + frame.getMethodName() + frame.getDescriptor(),
+        key -> {
+          try {
+            Method method =
+                frame
+                    .getDeclaringClass()
+                    .getDeclaredMethod(
+                        frame.getMethodName(), frame.getMethodType().parameterArray());
+            CommandBudget budget = method.getAnnotation(CommandBudget.class);
+            return budget == null ? NO_BUDGET : budget.value();
+          } catch (NoSuchMethodException e) {
+            return NO_BUDGET;
+          }
+        });
+  }
+}
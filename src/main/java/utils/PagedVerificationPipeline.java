@@ -0,0 +1,273 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+// Verifies the items of every results page while the pages are still being walked. The calling
+// thread is the producer: it owns the WebDriver, reads one page at a time and queues it as a batch.
+// A consumer thread checks the batches with a check that must not touch the browser. Items the
+// consumer cannot decide on are handed back through a second queue and verified by the producer
+// (e.g. on their details page) between two pages. Both queues are bounded, so at most a few pages
+// are held in memory however many pages the search has. Configured with system properties:
+//   pipeline.maxPages    - number of result pages walked at most (default 15)
+//   pipeline.maxListings - number of listings checked at most (default 300)
+//   pipeline.queuePages  - number of pages read ahead of the consumer (default 2)
+//   pipeline.failFast    - stop at the first violation (default true)
+public class PagedVerificationPipeline<T> {
+
+  public enum Verdict {
+    PASS,
+    FAIL,
+    UNDECIDED
+  }
+
+  // Reads the page the browser shows and moves to the next one, on the producer thread
+  public interface PageWalker<T> {
+    List<T> readPage();
+
+    boolean nextPage();
+  }
+
+  // verifyMillis runs from the moment the page was queued until the consumer finished it
+  public record PageStats(int page, int items, long readMillis, long verifyMillis) {
+
+    public double itemsPerSecond() {
+      long millis = readMillis + verifyMillis;
+      return millis == 0 ? items : items * 1000.0 / millis;
+    }
+  }
+
+  public record Outcome(
+      int pages,
+      int items,
+      int verifiedInDetail,
+      List<String> violations,
+      boolean stoppedEarly,
+      boolean truncated,
+      long elapsedMillis) {
+
+    public boolean passed() {
+      return violations.isEmpty();
+    }
+
+    public double itemsPerSecond() {
+      return elapsedMillis == 0 ? items : items * 1000.0 / elapsedMillis;
+    }
+  }
+
+  private static final int MAX_REPORTED_VIOLATIONS = 20;
+
+  private record Batch<T>(int page, List<T> items, long readMillis, long queuedAt) {}
+
+  private final int maxPages;
+  private final int maxItems;
+  private final int queuePages;
+  private final boolean failFast;
+
+  public PagedVerificationPipeline() {
+    this(
+        Integer.getInteger("pipeline.maxPages", 15),
+        Integer.getInteger("pipeline.maxListings", 300),
+        Integer.getInteger("pipeline.queuePages", 2),
+        Boolean.parseBoolean(System.getProperty("pipeline.failFast", "true")));
+  }
+
+  public PagedVerificationPipeline(int maxPages, int maxItems, int queuePages, boolean failFast) {
+    if (maxPages < 1 || maxItems < 1 || queuePages < 1) {
+      throw new IllegalArgumentException(
+          "pipeline.maxPages, pipeline.maxListings and pipeline.queuePages must be at least 1");
+    }
+    this.maxPages = maxPages;
+    this.maxItems = maxItems;
+    this.queuePages = queuePages;
+    this.failFast = failFast;
+  }
+
+  // check runs on the consumer thread and must not use the WebDriver. detailCheck runs on the
+  // calling thread with the undecided items and returns one message per violation.
+  public Outcome run(
+      PageWalker<T> walker,
+      Function<T, Verdict> check,
+      Function<T, String> describe,
+      Function<List<T>, List<String>> detailCheck) {
+    long start = System.nanoTime();
+    BlockingQueue<Batch<T>> batches = new ArrayBlockingQueue<>(queuePages);
+    BlockingQueue<T> undecided = new ArrayBlockingQueue<>(Math.max(1, maxItems / maxPages));
+    List<String> violations = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger violationCount = new AtomicInteger();
+    AtomicBoolean stop = new AtomicBoolean();
+    AtomicReference<Throwable> consumerFailure = new AtomicReference<>();
+    Batch<T> endOfPages = new Batch<>(0, List.of(), 0, 0);
+
+    Thread consumer =
+        Thread.ofPlatform()
+            .name(Thread.currentThread().getName() + "-page-consumer")
+            .daemon()
+            .start(
+                () -> {
+                  try {
+                    Batch<T> batch;
+                    while ((batch = batches.take()) != endOfPages) {
+                      for (T item : batch.items()) {
+                        if (stop.get()) {
+                          break;
+                        }
+                        switch (check.apply(item)) {
+                          case PASS -> {}
+                          case FAIL ->
+                              addViolation(
+                                  violations,
+                                  violationCount,
+                                  stop,
+                                  "Page " + batch.page() + ": " + describe.apply(item));
+                          case UNDECIDED -> undecided.put(item);
+                        }
+                      }
+                      long verifyMillis =
+                          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batch.queuedAt());
+                      report(
+                          new PageStats(
+                              batch.page(),
+                              batch.items().size(),
+                              batch.readMillis(),
+                              verifyMillis));
+                    }
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  } catch (Throwable t) {
+                    consumerFailure.set(t);
+                    stop.set(true);
+                  }
+                });
+
+    int pages = 0;
+    int items = 0;
+    int verifiedInDetail = 0;
+    boolean truncated = false;
+    try {
+      while (!stop.get()) {
+        long readStart = System.nanoTime();
+        List<T> pageItems = walker.readPage();
+        if (items + pageItems.size() > maxItems) {
+          pageItems = pageItems.subList(0, maxItems - items);
+          truncated = true;
+        }
+        pages++;
+        items += pageItems.size();
+
+        Batch<T> batch =
+            new Batch<>(
+                pages,
+                List.copyOf(pageItems),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - readStart),
+                System.nanoTime());
+        // Keep verifying the undecided items while waiting, the consumer may be blocked on them
+        while (!batches.offer(batch, 100, TimeUnit.MILLISECONDS) && consumer.isAlive()) {
+          verifiedInDetail +=
+              verifyUndecided(undecided, detailCheck, violations, violationCount, stop);
+        }
+        verifiedInDetail +=
+            verifyUndecided(undecided, detailCheck, violations, violationCount, stop);
+
+        if (truncated || stop.get()) {
+          break;
+        }
+        // A page that ends exactly on the cap leaves nothing to read on the next one
+        if (pages >= maxPages || items >= maxItems) {
+          truncated = true;
+          break;
+        }
+        if (!walker.nextPage()) {
+          break;
+        }
+      }
+
+      while (!batches.offer(endOfPages, 100, TimeUnit.MILLISECONDS) && consumer.isAlive()) {
+        verifiedInDetail +=
+            verifyUndecided(undecided, detailCheck, violations, violationCount, stop);
+      }
+      while (consumer.isAlive()) {
+        consumer.join(100);
+        verifiedInDetail +=
+            verifyUndecided(undecided, detailCheck, violations, violationCount, stop);
+      }
+      verifiedInDetail += verifyUndecided(undecided, detailCheck, violations, violationCount, stop);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while verifying the result pages.", e);
+    } finally {
+      consumer.interrupt();
+    }
+
+    if (consumerFailure.get() != null) {
+      throw new RuntimeException(
+          "Error while verifying the result pages: " + consumerFailure.get().getMessage(),
+          consumerFailure.get());
+    }
+
+    Outcome outcome =
+        new Outcome(
+            pages,
+            items,
+            verifiedInDetail,
+            List.copyOf(violations),
+            stop.get(),
+            truncated,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    System.out.printf(
+        "Verified %d listing(s) on %d page(s) (%d in detail) at %.1f cards/s%s%s.%n",
+        outcome.items(),
+        outcome.pages(),
+        outcome.verifiedInDetail(),
+        outcome.itemsPerSecond(),
+        outcome.truncated() ? ", reached the page/listing cap" : "",
+        outcome.stoppedEarly() ? ", stopped at the first violation" : "");
+    return outcome;
+  }
+
+  // Verifies the undecided items queued so far on the calling thread and returns how many it took
+  private int verifyUndecided(
+      BlockingQueue<T> undecided,
+      Function<List<T>, List<String>> detailCheck,
+      List<String> violations,
+      AtomicInteger violationCount,
+      AtomicBoolean stop) {
+    List<T> pending = new ArrayList<>();
+    undecided.drainTo(pending);
+    if (pending.isEmpty() || stop.get()) {
+      return 0;
+    }
+    for (String violation : detailCheck.apply(pending)) {
+      addViolation(violations, violationCount, stop, violation);
+    }
+    return pending.size();
+  }
+
+  private void addViolation(
+      List<String> violations, AtomicInteger violationCount, AtomicBoolean stop, String message) {
+    if (violationCount.incrementAndGet() <= MAX_REPORTED_VIOLATIONS) {
+      violations.add(message);
+    }
+    if (failFast) {
+      stop.set(true);
+    }
+  }
+
+  private static void report(PageStats stats) {
+    System.out.printf(
+        "Results page %d: %d card(s), read in %d ms, verified in %d ms (%.1f cards/s).%n",
+        stats.page(),
+        stats.items(),
+        stats.readMillis(),
+        stats.verifyMillis(),
+        stats.itemsPerSecond());
+  }
+}
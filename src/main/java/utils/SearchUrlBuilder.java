@@ -0,0 +1,118 @@
+package utils;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Builds the results page URL of a search, the same one the home page form navigates to, so that
+// scenarios that are not about the form can open the results directly:
+//   /s/Rome--Italy/homes?refinement_paths[]=/homes&query=Rome, Italy&checkin=2026-10-25
+//       &checkout=2026-11-01&adults=2&children=1&min_bedrooms=5&amenities[]=7
+public final class SearchUrlBuilder {
+
+  public static final int POOL_AMENITY_ID = 7;
+
+  private final String location;
+  private LocalDate checkInDate;
+  private LocalDate checkOutDate;
+  private int adults;
+  private int children;
+  private int infants;
+  private int pets;
+  private int minBedrooms;
+  private final Set<Integer> amenities = new LinkedHashSet<>();
+
+  private SearchUrlBuilder(String location) {
+    this.location = location.trim();
+  }
+
+  public static SearchUrlBuilder forLocation(String location) {
+    return new SearchUrlBuilder(location);
+  }
+
+  public SearchUrlBuilder dates(LocalDate checkInDate, LocalDate checkOutDate) {
+    if (!checkOutDate.isAfter(checkInDate)) {
+      throw new IllegalArgumentException(
+          "Invalid stay from " + checkInDate + " to " + checkOutDate);
+    }
+    this.checkInDate = checkInDate;
+    this.checkOutDate = checkOutDate;
+    return this;
+  }
+
+  public SearchUrlBuilder guests(int adults, int children, int infants, int pets) {
+    if (adults < 0 || children < 0 || infants < 0 || pets < 0) {
+      throw new IllegalArgumentException("Guest counts cannot be negative.");
+    }
+    if (adults == 0 && children + infants + pets > 0) {
+      throw new IllegalArgumentException("Children, infants and pets need at least one adult.");
+    }
+    this.adults = adults;
+    this.children = children;
+    this.infants = infants;
+    this.pets = pets;
+    return this;
+  }
+
+  public SearchUrlBuilder minBedrooms(int minBedrooms) {
+    this.minBedrooms = Math.max(0, minBedrooms);
+    return this;
+  }
+
+  public SearchUrlBuilder amenity(int amenityId) {
+    amenities.add(amenityId);
+    return this;
+  }
+
+  public SearchUrlBuilder pool() {
+    return amenity(POOL_AMENITY_ID);
+  }
+
+  public int getMinBedrooms() {
+    return minBedrooms;
+  }
+
+  public String build() {
+    List<String> parameters = new ArrayList<>();
+    parameters.add(parameter("refinement_paths[]", "/homes"));
+    if (!location.isEmpty()) {
+      parameters.add(parameter("query", location));
+    }
+    if (checkInDate != null) {
+      parameters.add(parameter("checkin", checkInDate.toString()));
+      parameters.add(parameter("checkout", checkOutDate.toString()));
+    }
+    addCount(parameters, "adults", adults);
+    addCount(parameters, "children", children);
+    addCount(parameters, "infants", infants);
+    addCount(parameters, "pets", pets);
+    addCount(parameters, "min_bedrooms", minBedrooms);
+    for (int amenity : amenities) {
+      parameters.add(parameter("amenities[]", String.valueOf(amenity)));
+    }
+    return SiteConfig.url("s/" + slug() + "/homes") + "?" + String.join("&", parameters);
+  }
+
+  // "Rome, Italy" -> "Rome--Italy", as the form builds it
+  private String slug() {
+    String slug =
+        location.isEmpty() ? "homes" : location.replaceAll(",\\s*", "--").replaceAll("\\s+", "-");
+    return URLEncoder.encode(slug, StandardCharsets.UTF_8).replace("+", "%20");
+  }
+
+  private static void addCount(List<String> parameters, String name, int count) {
+    if (count > 0) {
+      parameters.add(parameter(name, String.valueOf(count)));
+    }
+  }
+
+  private static String parameter(String name, String value) {
+    return URLEncoder.encode(name, StandardCharsets.UTF_8)
+        + "="
+        + URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+}
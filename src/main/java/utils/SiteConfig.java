@@ -0,0 +1,20 @@
+package utils;
+
+// Where the site under test is served from. Defaults to the live Airbnb site and can be pointed at
+// another host, such as the local fixture server, with -Dbase.url=http://127.0.0.1:8080/
+public final class SiteConfig {
+
+  private static final String DEFAULT_BASE_URL = "https://www.airbnb.com/";
+
+  private SiteConfig() {}
+
+  public static String getBaseUrl() {
+    String baseUrl = System.getProperty("base.url", DEFAULT_BASE_URL).trim();
+    return baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+  }
+
+  // Resolves a site-relative path such as "s/Rome/homes" or "/rooms/123" against the base URL
+  public static String url(String path) {
+    return getBaseUrl() + (path.startsWith("/") ? path.substring(1) : path);
+  }
+}
@@ -0,0 +1,117 @@
+package utils;
+
+import java.time.Duration;
+import java.util.Map;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+// Waits until an element has stopped changing instead of sleeping for a fixed time. An element is
+// considered settled once its attributes, subtree, key computed styles and bounding box have not
+// changed, and none of its CSS transitions/animations are running, for a short quiet period.
+// Defaults can be overridden with the settle.timeoutMs and settle.quietMs system properties.
+public class UiSettleUtil {
+
+  private static final String SETTLE_SCRIPT =
+      """
+      var element = arguments[0], timeoutMs = arguments[1], quietMs = arguments[2];
+      var done = arguments[arguments.length - 1];
+      var styleProperties = ['transform', 'opacity', 'background-color', 'color', 'border-color',
+          'box-shadow', 'width', 'height', 'z-index', 'visibility'];
+      var start = performance.now(), lastChange = start, mutated = false;
+
+      function snapshot() {
+        var style = getComputedStyle(element), rect = element.getBoundingClientRect();
+        return styleProperties.map(function (name) { return style.getPropertyValue(name); })
+            .join('|') + '|' + [rect.left, rect.top, rect.width, rect.height].join(',');
+      }
+      function animating() {
+        if (!element.getAnimations) return false;
+        return element.getAnimations({subtree: true}).some(function (animation) {
+          return animation.playState === 'running' || animation.pending;
+        });
+      }
+      function next(callback) {
+        if (document.hidden) setTimeout(function () { callback(performance.now()); }, 16);
+        else requestAnimationFrame(callback);
+      }
+
+      var observer = new MutationObserver(function () { mutated = true; });
+      observer.observe(element,
+          {attributes: true, childList: true, characterData: true, subtree: true});
+      var lastSnapshot = snapshot();
+
+      function check(now) {
+        var current = snapshot();
+        if (mutated || current !== lastSnapshot || animating()) {
+          mutated = false;
+          lastSnapshot = current;
+          lastChange = now;
+        }
+        if (now - lastChange >= quietMs || now - start >= timeoutMs) {
+          observer.disconnect();
+          done({settled: now - lastChange >= quietMs, elapsed: now - start});
+          return;
+        }
+        next(check);
+      }
+      next(check);
+      """;
+
+  public record SettleResult(boolean settled, long elapsedMillis) {}
+
+  WebDriver driver;
+  Duration timeout;
+  Duration quietPeriod;
+
+  public UiSettleUtil(WebDriver driver) {
+    this(
+        driver,
+        Duration.ofMillis(Long.getLong("settle.timeoutMs", 5000)),
+        Duration.ofMillis(Long.getLong("settle.quietMs", 200)));
+  }
+
+  public UiSettleUtil(WebDriver driver, Duration timeout, Duration quietPeriod) {
+    this.driver = driver;
+    this.timeout = timeout;
+    this.quietPeriod = quietPeriod;
+  }
+
+  public SettleResult waitForElementToSettle(WebElement element, String description) {
+    return waitForElementToSettle(element, description, timeout);
+  }
+
+  // Returns as soon as the element is stable, or after the timeout ceiling if it keeps changing.
+  // The driver's script timeout is restored afterwards, pooled sessions are reused by later
+  // scenarios.
+  @SuppressWarnings("unchecked")
+  public SettleResult waitForElementToSettle(
+      WebElement element, String description, Duration timeout) {
+    WebDriver.Timeouts timeouts = driver.manage().timeouts();
+    Duration previousScriptTimeout = timeouts.getScriptTimeout();
+    Map<String, Object> outcome;
+    try {
+      timeouts.scriptTimeout(timeout.plusSeconds(5));
+      outcome =
+          (Map<String, Object>)
+              ((JavascriptExecutor) driver)
+                  .executeAsyncScript(
+                      SETTLE_SCRIPT, element, timeout.toMillis(), quietPeriod.toMillis());
+    } finally {
+      timeouts.scriptTimeout(previousScriptTimeout);
+    }
+
+    SettleResult result =
+        new SettleResult(
+            Boolean.TRUE.equals(outcome.get("settled")),
+            Math.round(((Number) outcome.get("elapsed")).doubleValue()));
+
+    if (result.settled()) {
+      System.out.println(description + " settled in " + result.elapsedMillis() + " ms.");
+    } else {
+      System.out.println(
+          description + " did not settle within " + timeout.toMillis() + " ms, continuing.");
+    }
+    return result;
+  }
+}
@@ -0,0 +1,40 @@
+package utils;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+// Counts the WebDriver commands issued on each thread. Registered on every leased driver through
+// an EventFiringDecorator; readers take the count before and after a piece of work and subtract.
+// Accessors that only return another facade (manage(), switchTo(), navigate(), timeouts(), ...)
+// do not reach the browser and are not counted. Every counted command is also attributed to the
+// page object methods on the stack by PageCommandTracker.
+public class WebDriverCommandCounter implements WebDriverListener {
+
+  private static final ThreadLocal<long[]> COMMANDS = ThreadLocal.withInitial(() -> new long[1]);
+
+  private static final Set<Class<?>> FACADES =
+      Set.of(
+          WebDriver.Options.class,
+          WebDriver.Navigation.class,
+          WebDriver.TargetLocator.class,
+          WebDriver.Timeouts.class,
+          WebDriver.Window.class);
+
+  private static final Set<String> NON_COMMANDS =
+      Set.of("getWrappedDriver", "getWrappedElement", "toString", "hashCode", "equals");
+
+  @Override
+  public void beforeAnyCall(Object target, Method method, Object[] args) {
+    if (!FACADES.contains(method.getReturnType()) && !NON_COMMANDS.contains(method.getName())) {
+      COMMANDS.get()[0]++;
+      PageCommandTracker.onCommand();
+    }
+  }
+
+  // Number of commands issued so far on the calling thread
+  public static long getCount() {
+    return COMMANDS.get()[0];
+  }
+}
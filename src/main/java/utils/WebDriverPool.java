@@ -0,0 +1,290 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chromium.HasCdp;
+
+// Bounded pool of pre-launched browser sessions. Scenarios lease a session instead of starting a
+// new browser, and the session is reset when it is released. Configured with system properties:
+//   pool.size            - maximum number of browsers alive at the same time (default 1)
+//   pool.maxUses         - number of leases after which a browser is quit and replaced (default 10)
+//   pool.warmup          - number of browsers launched up front (default pool.size)
+//   pool.leaseTimeoutSec - how long a lease waits for a free browser (default 300)
+public class WebDriverPool {
+
+  private static final class Holder {
+    private static final WebDriverPool INSTANCE =
+        new WebDriverPool(
+            Integer.getInteger("pool.size", 1),
+            Integer.getInteger("pool.maxUses", 10),
+            Integer.getInteger("pool.warmup", Integer.getInteger("pool.size", 1)),
+            Integer.getInteger("pool.leaseTimeoutSec", 300));
+  }
+
+  private static final class PooledSession {
+    final WebDriver driver;
+    int uses;
+
+    PooledSession(WebDriver driver) {
+      this.driver = driver;
+    }
+  }
+
+  public record PoolMetrics(
+      long leases,
+      long hits,
+      long misses,
+      long recycled,
+      long totalWaitMillis,
+      long maxWaitMillis) {
+
+    public double averageWaitMillis() {
+      return leases == 0 ? 0 : (double) totalWaitMillis / leases;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "leases=%d, hits=%d, misses=%d, recycled=%d, avgWait=%.1f ms, maxWait=%d ms",
+          leases, hits, misses, recycled, averageWaitMillis(), maxWaitMillis);
+    }
+  }
+
+  private final int maxSize;
+  private final int maxUses;
+  private final long leaseTimeoutSeconds;
+  private final BrowserProfile launchProfile = BrowserProfile.launchProfile();
+  private final BlockingQueue<PooledSession> idleSessions = new LinkedBlockingQueue<>();
+  private final Map<WebDriver, PooledSession> leasedSessions = new ConcurrentHashMap<>();
+  private final AtomicInteger liveSessions = new AtomicInteger();
+
+  private final AtomicLong leases = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong recycled = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  WebDriverPool(int maxSize, int maxUses, int warmup, long leaseTimeoutSeconds) {
+    if (maxSize < 1 || maxUses < 1) {
+      throw new IllegalArgumentException("pool.size and pool.maxUses must be at least 1");
+    }
+    this.maxSize = maxSize;
+    this.maxUses = maxUses;
+    this.leaseTimeoutSeconds = leaseTimeoutSeconds;
+
+    warmUp(Math.min(Math.max(warmup, 0), maxSize));
+    Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "webdriver-pool-shutdown"));
+  }
+
+  public static WebDriverPool getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  public WebDriver lease() {
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.SECONDS.toNanos(leaseTimeoutSeconds);
+    PooledSession session = null;
+
+    try {
+      while (session == null) {
+        session = idleSessions.poll();
+        if (session != null) {
+          hits.incrementAndGet();
+        } else if (reserveSlot()) {
+          misses.incrementAndGet();
+          session = launchSession();
+        } else {
+          // Every slot is leased, wait for a release (or for a recycled slot to free up)
+          session = idleSessions.poll(250, TimeUnit.MILLISECONDS);
+          if (session != null) {
+            hits.incrementAndGet();
+          } else if (System.nanoTime() > deadline) {
+            throw new RuntimeException(
+                "No browser session became available within " + leaseTimeoutSeconds + " seconds.");
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for a browser session.", e);
+    }
+
+    recordWait(System.nanoTime() - start);
+    session.uses++;
+    leasedSessions.put(session.driver, session);
+    return session.driver;
+  }
+
+  public void release(WebDriver driver) {
+    PooledSession session = leasedSessions.remove(driver);
+    if (session == null) {
+      throw new IllegalArgumentException("The given WebDriver was not leased from this pool.");
+    }
+
+    if (session.uses >= maxUses) {
+      System.out.println("Recycling browser session after " + session.uses + " uses.");
+      discard(session);
+      return;
+    }
+
+    try {
+      reset(session.driver);
+      idleSessions.offer(session);
+    } catch (Exception e) {
+      System.out.println("Unable to reset browser session, discarding it: " + e.getMessage());
+      discard(session);
+    }
+  }
+
+  public PoolMetrics getMetrics() {
+    return new PoolMetrics(
+        leases.get(),
+        hits.get(),
+        misses.get(),
+        recycled.get(),
+        TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+        TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+  }
+
+  private boolean reserveSlot() {
+    while (true) {
+      int current = liveSessions.get();
+      if (current >= maxSize) {
+        return false;
+      }
+      if (liveSessions.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private PooledSession launchSession() {
+    try {
+      return new PooledSession(createDriver());
+    } catch (RuntimeException e) {
+      liveSessions.decrementAndGet();
+      throw e;
+    }
+  }
+
+  private void warmUp(int count) {
+    if (count == 0) {
+      return;
+    }
+
+    ExecutorService launcher = Executors.newFixedThreadPool(count);
+    try {
+      List<Future<WebDriver>> launches = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        liveSessions.incrementAndGet();
+        launches.add(launcher.submit(this::createDriver));
+      }
+      for (Future<WebDriver> launch : launches) {
+        try {
+          idleSessions.offer(new PooledSession(launch.get()));
+        } catch (Exception e) {
+          liveSessions.decrementAndGet();
+          System.out.println("Unable to pre-launch a browser session: " + e.getMessage());
+        }
+      }
+      System.out.println("Browser pool warmed up with " + idleSessions.size() + " session(s).");
+    } finally {
+      launcher.shutdown();
+    }
+  }
+
+  // The driver binary is resolved once per JVM by the DriverProvisioner, not for every launch
+  private WebDriver createDriver() {
+    ChromeDriverService service =
+        new ChromeDriverService.Builder()
+            .usingDriverExecutable(DriverProvisioner.driverPath().toFile())
+            .usingAnyFreePort()
+            .build();
+    WebDriver driver = new ChromeDriver(service, launchProfile.toChromeOptions());
+    launchProfile.applyWindow(driver);
+    driver.manage().deleteAllCookies();
+    return driver;
+  }
+
+  // Brings a session back to the state of a freshly launched browser: a single blank tab, no
+  // cookies, web storage or blocked URLs and the window size of the launch profile. Through CDP
+  // the local storage, IndexedDB and caches of every origin the scenario visited are cleared, not
+  // only the current page's.
+  private void reset(WebDriver driver) {
+    List<String> handles = new ArrayList<>(driver.getWindowHandles());
+    for (String handle : handles.subList(1, handles.size())) {
+      driver.switchTo().window(handle);
+      driver.close();
+    }
+    driver.switchTo().window(handles.get(0));
+
+    // Session storage is not one of the CDP storage types, it is cleared in the open page
+    ((JavascriptExecutor) driver)
+        .executeScript(
+            "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+    if (driver instanceof HasCdp) {
+      ((HasCdp) driver).executeCdpCommand("Network.clearBrowserCookies", Map.of());
+      ((HasCdp) driver)
+          .executeCdpCommand(
+              "Storage.clearDataForOrigin", Map.of("origin", "*", "storageTypes", "all"));
+      ((HasCdp) driver).executeCdpCommand("Network.setBlockedURLs", Map.of("urls", List.of()));
+    } else {
+      driver.manage().deleteAllCookies();
+    }
+
+    driver.get("about:blank");
+    launchProfile.applyWindow(driver);
+  }
+
+  private void discard(PooledSession session) {
+    recycled.incrementAndGet();
+    liveSessions.decrementAndGet();
+    try {
+      session.driver.quit();
+    } catch (Exception e) {
+      System.out.println("Error while quitting browser session: " + e.getMessage());
+    }
+  }
+
+  private void recordWait(long waitNanos) {
+    leases.incrementAndGet();
+    totalWaitNanos.addAndGet(waitNanos);
+    maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+  }
+
+  private void shutdown() {
+    System.out.println("Browser pool metrics: " + getMetrics());
+    DriverProvisioner.report().ifPresent(report -> System.out.println("Browser pool " + report));
+
+    PooledSession session;
+    while ((session = idleSessions.poll()) != null) {
+      try {
+        session.driver.quit();
+      } catch (Exception e) {
+        System.out.println("Error while quitting browser session: " + e.getMessage());
+      }
+    }
+    for (PooledSession leased : leasedSessions.values()) {
+      try {
+        leased.driver.quit();
+      } catch (Exception e) {
+        System.out.println("Error while quitting browser session: " + e.getMessage());
+      }
+    }
+  }
+}
@@ -1,35 +1,187 @@
 package utils;
 
 import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.UnsupportedCommandException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
+// Waits for elements with one of two backends, chosen with -Dwait.backend:
+// - poll (default): a WebDriverWait that re-checks the condition every 500 ms, one or more remote
+//   calls per check.
+// - push: a single executeAsyncScript call that checks the condition in the page whenever the DOM
+//   mutates and on every animation frame, and returns the element as soon as it holds.
+// The push backend falls back to polling for locators it cannot evaluate in the page, and for the
+// rest of the scenario once the browser refuses to run the script.
 public class WebdriverWaitUtil {
 
+  public enum Backend {
+    POLL,
+    PUSH
+  }
+
+  static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+  private static final String PUSH_WAIT_SCRIPT =
+      """
+      var using = arguments[0], value = arguments[1], condition = arguments[2];
+      var pattern = arguments[3] === null ? null : new RegExp(arguments[3]);
+      var timeoutMs = arguments[4], done = arguments[arguments.length - 1];
+      var start = performance.now(), finished = false;
+
+      function find() {
+        switch (using) {
+          case 'id':
+            var byId = document.getElementById(value);
+            return byId ? [byId] : [];
+          case 'name': return Array.prototype.slice.call(document.getElementsByName(value));
+          case 'class name': return Array.prototype.slice.call(document.getElementsByClassName(value));
+          case 'xpath':
+            var nodes = [], result = document.evaluate(
+                value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+            for (var i = 0; i < result.snapshotLength; i++) nodes.push(result.snapshotItem(i));
+            return nodes;
+          default: return Array.prototype.slice.call(document.querySelectorAll(value));
+        }
+      }
+      function displayed(element) {
+        var rect = element.getBoundingClientRect();
+        return rect.width > 0 && rect.height > 0 && (!element.checkVisibility
+            || element.checkVisibility({checkOpacity: true, checkVisibilityCSS: true}));
+      }
+      // Same rules as the ExpectedConditions used by the polling backend
+      function check() {
+        var elements = find(), first = elements[0];
+        switch (condition) {
+          case 'present': return first ? {element: first} : null;
+          case 'visible': return first && displayed(first) ? {element: first} : null;
+          case 'clickable':
+            return first && displayed(first) && !first.disabled ? {element: first} : null;
+          case 'allVisible':
+            return elements.length > 0 && elements.every(displayed) ? {count: elements.length} : null;
+          case 'text':
+            return first && pattern.test(first.innerText || '') ? {element: first} : null;
+        }
+        return null;
+      }
+      function finish(outcome) {
+        if (finished) return;
+        finished = true;
+        observer.disconnect();
+        outcome.elapsed = performance.now() - start;
+        done(outcome);
+      }
+      function next() {
+        if (document.hidden) setTimeout(tick, 16);
+        else requestAnimationFrame(tick);
+      }
+      function tick() {
+        if (finished) return;
+        var outcome = check();
+        if (outcome) finish(outcome);
+        else if (performance.now() - start >= timeoutMs) finish({timedOut: true});
+        else next();
+      }
+
+      // Mutations are checked right away; the frame loop catches style and layout changes that
+      // do not mutate the DOM, such as transitions
+      var observer = new MutationObserver(function () {
+        if (finished) return;
+        var outcome = check();
+        if (outcome) finish(outcome);
+      });
+      observer.observe(document, {
+          attributes: true, childList: true, characterData: true, subtree: true});
+      tick();
+      """;
+
+  private static final Set<String> PUSH_LOCATOR_STRATEGIES =
+      Set.of("id", "name", "class name", "css selector", "tag name", "xpath");
+
   WebDriver driver;
   WebDriverWait wait;
+  private final Backend backend;
+  private boolean pushBlocked;
 
   public WebdriverWaitUtil(WebDriver driver) {
+    this(
+        driver,
+        Backend.valueOf(System.getProperty("wait.backend", "poll").toUpperCase(Locale.ROOT)));
+  }
+
+  public WebdriverWaitUtil(WebDriver driver, Backend backend) {
     this.driver = driver;
-    this.wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+    this.wait = new WebDriverWait(driver, DEFAULT_TIMEOUT);
+    this.backend = backend;
+  }
+
+  public WebElement waitForElementPresent(By locator) {
+    return waitForElementPresent(locator, DEFAULT_TIMEOUT);
+  }
+
+  public WebElement waitForElementPresent(By locator, Duration timeout) {
+    return awaitElement(
+        locator, "present", null, timeout, ExpectedConditions.presenceOfElementLocated(locator));
   }
 
   public WebElement waitForElementVisible(By locator) {
-    return wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+    return waitForElementVisible(locator, DEFAULT_TIMEOUT);
+  }
+
+  public WebElement waitForElementVisible(By locator, Duration timeout) {
+    return awaitElement(
+        locator, "visible", null, timeout, ExpectedConditions.visibilityOfElementLocated(locator));
   }
 
   public WebElement waitForElementClickable(By locator) {
-    return wait.until(ExpectedConditions.elementToBeClickable(locator));
+    return waitForElementClickable(locator, DEFAULT_TIMEOUT);
+  }
+
+  public WebElement waitForElementClickable(By locator, Duration timeout) {
+    return awaitElement(
+        locator, "clickable", null, timeout, ExpectedConditions.elementToBeClickable(locator));
   }
 
   public void waitForElementsVisible(By locator) {
-    wait.until(ExpectedConditions.visibilityOfAllElementsLocatedBy(locator));
+    waitForElementsVisible(locator, DEFAULT_TIMEOUT);
+  }
+
+  public void waitForElementsVisible(By locator, Duration timeout) {
+    if (awaitInPage(locator, "allVisible", null, timeout) == null) {
+      poll(ExpectedConditions.visibilityOfAllElementsLocatedBy(locator), timeout);
+    }
   }
 
+  // Waits until the text of the first element matching the locator matches the pattern. In the
+  // push backend the pattern is evaluated as a JavaScript RegExp, so keep to the common syntax.
+  public WebElement waitForTextToMatch(By locator, Pattern pattern) {
+    return waitForTextToMatch(locator, pattern, DEFAULT_TIMEOUT);
+  }
+
+  public WebElement waitForTextToMatch(By locator, Pattern pattern, Duration timeout) {
+    return awaitElement(
+        locator,
+        "text",
+        pattern.pattern(),
+        timeout,
+        driver -> {
+          WebElement element = driver.findElement(locator);
+          return pattern.matcher(element.getText()).find() ? element : null;
+        });
+  }
+
+  // Arbitrary conditions cannot be evaluated in the page and always poll
   public <V> void waitForCondition(ExpectedCondition<V> condition, String errorMessage) {
     try {
       wait.until(condition);
@@ -38,4 +190,93 @@ public class WebdriverWaitUtil {
       throw e;
     }
   }
+
+  private WebElement awaitElement(
+      By locator,
+      String condition,
+      String pattern,
+      Duration timeout,
+      ExpectedCondition<WebElement> pollCondition) {
+    Map<String, Object> outcome = awaitInPage(locator, condition, pattern, timeout);
+    if (outcome != null) {
+      return (WebElement) outcome.get("element");
+    }
+    return poll(pollCondition, timeout);
+  }
+
+  // Runs the push wait and returns its outcome, or null when the caller has to poll instead.
+  // Throws a TimeoutException when the condition did not hold within the timeout. The driver's
+  // script timeout is restored afterwards, pooled sessions are reused by later scenarios.
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> awaitInPage(
+      By locator, String condition, String pattern, Duration timeout) {
+    if (backend != Backend.PUSH || pushBlocked || !(locator instanceof By.Remotable remotable)) {
+      return null;
+    }
+    By.Remotable.Parameters parameters = remotable.getRemoteParameters();
+    if (!PUSH_LOCATOR_STRATEGIES.contains(parameters.using())) {
+      return null;
+    }
+
+    WebDriver.Timeouts timeouts = driver.manage().timeouts();
+    Duration previousScriptTimeout = timeouts.getScriptTimeout();
+    try {
+      long deadline = System.nanoTime() + timeout.toNanos();
+      while (true) {
+        long remainingMillis = Math.max(0, (deadline - System.nanoTime()) / 1_000_000);
+        try {
+          timeouts.scriptTimeout(Duration.ofMillis(remainingMillis).plusSeconds(5));
+          Map<String, Object> outcome =
+              (Map<String, Object>)
+                  ((JavascriptExecutor) driver)
+                      .executeAsyncScript(
+                          PUSH_WAIT_SCRIPT,
+                          parameters.using(),
+                          String.valueOf(parameters.value()),
+                          condition,
+                          pattern,
+                          remainingMillis);
+
+          if (Boolean.TRUE.equals(outcome.get("timedOut"))) {
+            throw new TimeoutException(
+                "Expected condition failed: waiting for "
+                    + locator
+                    + " to be "
+                    + condition
+                    + " (pushed from the page, timed out after "
+                    + timeout.toMillis()
+                    + " ms)");
+          }
+          return outcome;
+        } catch (ScriptTimeoutException e) {
+          throw new TimeoutException("Timed out waiting for " + locator + " to be " + condition, e);
+        } catch (JavascriptException e) {
+          // A navigation unloads the page the script was waiting in; wait again in the new page
+          if (String.valueOf(e.getMessage()).contains("unloaded") && System.nanoTime() < deadline) {
+            continue;
+          }
+          blockPush(e);
+          return null;
+        } catch (UnsupportedCommandException e) {
+          blockPush(e);
+          return null;
+        }
+      }
+    } finally {
+      timeouts.scriptTimeout(previousScriptTimeout);
+    }
+  }
+
+  private void blockPush(RuntimeException cause) {
+    pushBlocked = true;
+    System.out.println(
+        "Push-based waits are not available in this page, falling back to polling: "
+            + String.valueOf(cause.getMessage()).lines().findFirst().orElse(""));
+  }
+
+  private <V> V poll(ExpectedCondition<V> condition, Duration timeout) {
+    WebDriverWait pollingWait =
+        timeout.equals(DEFAULT_TIMEOUT) ? wait : new WebDriverWait(driver, timeout);
+    return pollingWait.until(condition);
+  }
 }
@@ -0,0 +1,267 @@
+package fixtures;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+import pages.AirbnbHomePage;
+import pages.AirbnbResultsPage;
+import pages.ListingCard;
+import utils.DetailVerificationExecutor;
+import utils.DetailVerificationExecutor.DetailResult;
+import utils.DriverFactory;
+import utils.ListingDetails;
+import utils.ListingTextParser;
+import utils.LocatorKey;
+import utils.LocatorUtil;
+import utils.SiteConfig;
+import utils.WebdriverWaitUtil;
+
+// Records the listings replayed by the FixtureServer from the live site. Runs the same search as
+// the scenarios, reads every card on the first results page and the listing page behind it, and
+// writes them in the StaysSearch response format to api/stays-search.json:
+//   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=fixtures.FixtureCapture
+//       -Dexec.args="'Rome, Italy' src/test/resources/fixtures/airbnb/api/stays-search.json"
+// With -Dcapture.benchmarkFixtures=src/jmh/resources/fixtures the card texts and map pin labels
+// of the same page are also saved as the samples of the JMH benchmarks.
+public class FixtureCapture {
+
+  private static final Pattern ROOM_ID_PATTERN = Pattern.compile("/rooms/(\\d+)");
+  private static final Pattern BATHS_PATTERN = Pattern.compile("(\\d+)\\s+(?:shared\\s+)?bath");
+  private static final Map<String, Integer> AMENITY_IDS =
+      Map.of(
+          "Wifi", 4,
+          "Kitchen", 8,
+          "Pool", 7,
+          "Free parking on premises", 9,
+          "Air conditioning", 5,
+          "Washer", 33,
+          "Hot tub", 25);
+
+  public static void main(String[] args) {
+    String location = args.length > 0 ? args[0] : "Rome, Italy";
+    Path output =
+        Path.of(
+            args.length > 1 ? args[1] : "src/test/resources/fixtures/airbnb/api/stays-search.json");
+
+    WebDriver driver = DriverFactory.startDriver();
+    try {
+      List<Map<String, Object>> searchResults = capture(driver, location);
+      write(output, searchResults);
+      System.out.println("Captured " + searchResults.size() + " listing(s) to " + output);
+    } finally {
+      DriverFactory.releaseDriver();
+    }
+  }
+
+  private static List<Map<String, Object>> capture(WebDriver driver, String location) {
+    WebdriverWaitUtil waitUtil = new WebdriverWaitUtil(driver);
+    driver.get(SiteConfig.getBaseUrl());
+
+    AirbnbHomePage homePage = new AirbnbHomePage(driver, waitUtil);
+    homePage.filterLocation(location);
+    homePage.selectCheckInDate();
+    homePage.selectCheckOutDate();
+    homePage.addGuests(
+        Integer.getInteger("capture.adults", 2), Integer.getInteger("capture.children", 1));
+    homePage.searchForResults();
+
+    AirbnbResultsPage resultsPage = new AirbnbResultsPage(driver, waitUtil);
+    resultsPage.waitForResultsHeaderToContainText();
+
+    List<ListingCard> cards = new ArrayList<>();
+    for (ListingCard card : resultsPage.extractListingCards()) {
+      if (card.roomId() != null) {
+        cards.add(card);
+      }
+    }
+
+    String benchmarkFixtures = System.getProperty("capture.benchmarkFixtures");
+    if (benchmarkFixtures != null) {
+      writeBenchmarkFixtures(driver, Path.of(benchmarkFixtures), cards);
+    }
+
+    // The facts are keyed by the room of the page they were read from, not by the order of the
+    // checks, so a listing page that fails cannot shift the facts onto the following cards
+    Map<String, Map<String, Object>> listingFacts = new HashMap<>();
+    List<String> urls = new ArrayList<>();
+    cards.forEach(card -> urls.add(card.href()));
+    List<DetailResult> results =
+        new DetailVerificationExecutor(driver)
+            .verifyAll(
+                urls,
+                () -> {
+                  // Read the URL once the page has loaded, the tab starts out on about:blank
+                  Map<String, Object> facts = readListingPage(driver, waitUtil);
+                  listingFacts.put(roomId(driver.getCurrentUrl()), facts);
+                });
+
+    List<String> failures = new ArrayList<>();
+    for (DetailResult result : results) {
+      if (!result.passed()) {
+        failures.add(result.url() + ": " + result.failure().getMessage());
+      }
+    }
+    if (!failures.isEmpty()) {
+      throw new IllegalStateException(
+          "Capture aborted, "
+              + failures.size()
+              + " listing page(s) could not be read:\n"
+              + String.join("\n", failures));
+    }
+
+    List<Map<String, Object>> searchResults = new ArrayList<>();
+    for (ListingCard card : cards) {
+      Map<String, Object> facts = listingFacts.get(card.roomId());
+      if (facts == null) {
+        throw new IllegalStateException(
+            "Capture aborted, no listing page was read for room " + card.roomId());
+      }
+      searchResults.add(toSearchResult(card, facts));
+    }
+    return searchResults;
+  }
+
+  private static String roomId(String url) {
+    Matcher matcher = ROOM_ID_PATTERN.matcher(url);
+    return matcher.find() ? matcher.group(1) : url;
+  }
+
+  private static Map<String, Object> readListingPage(WebDriver driver, WebdriverWaitUtil waitUtil) {
+    waitUtil.waitForElementVisible(LocatorUtil.getLocator(LocatorKey.ACCOMMODATES_GUESTS_SUMMARY));
+    StringBuilder overview = new StringBuilder();
+    for (WebElement item : driver.findElements(By.cssSelector("li.l7n4lsf"))) {
+      overview.append(item.getText()).append('\n');
+    }
+    ListingDetails counts = ListingTextParser.parse(overview.toString());
+    Matcher baths = BATHS_PATTERN.matcher(overview);
+
+    List<String> amenities = new ArrayList<>();
+    try {
+      waitUtil.waitForElementClickable(
+          LocatorUtil.getLocator(LocatorKey.SHOW_ALL_AMENITIES_BUTTON));
+      driver.findElement(LocatorUtil.getLocator(LocatorKey.SHOW_ALL_AMENITIES_BUTTON)).click();
+      for (WebElement group : driver.findElements(By.cssSelector("div._11jhslp"))) {
+        for (String line : group.getText().split("\n")) {
+          String amenity = line.trim();
+          if (AMENITY_IDS.containsKey(amenity) && !amenities.contains(amenity)) {
+            amenities.add(amenity);
+          }
+        }
+      }
+    } catch (RuntimeException e) {
+      System.out.println("Amenities could not be read: " + e.getMessage());
+    }
+
+    Map<String, Object> facts = new LinkedHashMap<>();
+    facts.put("personCapacity", counts.guests());
+    facts.put("bedrooms", counts.bedrooms());
+    facts.put("beds", counts.beds());
+    facts.put("bathrooms", baths.find() ? Integer.parseInt(baths.group(1)) : 1);
+    facts.put("amenities", amenities);
+    return facts;
+  }
+
+  private static Map<String, Object> toSearchResult(ListingCard card, Map<String, Object> facts) {
+    ListingDetails details = ListingTextParser.parse(card.text());
+    String[] lines = card.text().split("\n");
+    boolean symbolFirst = !details.currency().matches("[A-Za-z]+");
+    String price =
+        symbolFirst
+            ? details.currency() + details.price()
+            : details.price() + " " + details.currency();
+
+    List<Integer> amenityIds = new ArrayList<>();
+    for (Object amenity : (List<?>) facts.get("amenities")) {
+      amenityIds.add(AMENITY_IDS.get(amenity));
+    }
+
+    Map<String, Object> listing = new LinkedHashMap<>();
+    listing.put("id", card.roomId());
+    listing.put("title", details.title());
+    listing.put("name", lines.length > 1 ? lines[1].trim() : details.title());
+    listing.putAll(facts);
+    listing.put("showRoomsOnCard", details.bedrooms() > 0 || details.beds() > 0);
+    listing.put("amenityIds", amenityIds);
+    listing.put("badges", details.badges());
+
+    Map<String, Object> primaryLine = new LinkedHashMap<>();
+    primaryLine.put("price", price);
+    primaryLine.put("qualifier", "night");
+    primaryLine.put("accessibilityLabel", price + " per night");
+
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("listing", listing);
+    result.put(
+        "pricingQuote", Map.of("structuredStayDisplayPrice", Map.of("primaryLine", primaryLine)));
+    result.put("avgRatingA11yLabel", details.ratingText());
+    return result;
+  }
+
+  // The card texts and map pin labels of the results page, in the sample format of
+  // src/jmh/java/benchmarks/Fixtures
+  private static void writeBenchmarkFixtures(
+      WebDriver driver, Path directory, List<ListingCard> cards) {
+    List<String> cardTexts = new ArrayList<>();
+    cards.forEach(card -> cardTexts.add(card.text().strip()));
+
+    List<String> pinLabels = new ArrayList<>();
+    for (WebElement pin :
+        driver.findElements(LocatorUtil.getLocator(LocatorKey.COMMON_MAP_MARKER))) {
+      List<WebElement> labels = pin.findElements(By.tagName("span"));
+      String label = (labels.isEmpty() ? pin : labels.get(0)).getText().strip();
+      if (!label.isEmpty()) {
+        pinLabels.add(label);
+      }
+    }
+
+    try {
+      Files.createDirectories(directory);
+      Files.writeString(
+          directory.resolve("listing-cards.txt"), String.join("\n----\n", cardTexts) + "\n");
+      Files.writeString(directory.resolve("pin-labels.txt"), String.join("\n", pinLabels) + "\n");
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the benchmark fixtures to " + directory, e);
+    }
+    System.out.println(
+        "Captured "
+            + cardTexts.size()
+            + " card(s) and "
+            + pinLabels.size()
+            + " pin label(s) to "
+            + directory);
+  }
+
+  private static void write(Path output, List<Map<String, Object>> searchResults) {
+    Map<String, Object> results = new LinkedHashMap<>();
+    results.put("searchResults", searchResults);
+    results.put("paginationInfo", Map.of("pageSize", 18));
+    Map<String, Object> response =
+        Map.of("data", Map.of("presentation", Map.of("staysSearch", Map.of("results", results))));
+
+    try {
+      Files.createDirectories(output.toAbsolutePath().getParent());
+      try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+          JsonOutput json = new Json().newOutput(writer)) {
+        json.setPrettyPrint(true).write(response);
+        writer.write('\n');
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the captured fixtures to " + output, e);
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package fixtures;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.openqa.selenium.json.Json;
+
+// Serves the recorded Airbnb pages from src/test/resources/fixtures/airbnb on localhost so that
+// scenarios can run without the network, against the same listings every time. The HTML pages
+// reproduce the markup targeted by locators.properties and render the recorded search results
+// (api/stays-search.json) through the StaysSearch and StaysPdpSections endpoints, which apply the
+// guests, bedrooms, amenities and paging parameters of the request the same way the site does.
+public class FixtureServer {
+
+  private static final String ROOT = "fixtures/airbnb/";
+  private static final String SEARCH_RESULTS = ROOT + "api/stays-search.json";
+  private static final int PAGE_SIZE = 18;
+
+  private static final Map<String, String> CONTENT_TYPES =
+      Map.of(
+          "html", "text/html; charset=utf-8",
+          "js", "text/javascript; charset=utf-8",
+          "css", "text/css; charset=utf-8",
+          "json", "application/json; charset=utf-8",
+          "svg", "image/svg+xml",
+          "png", "image/png");
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final List<Map<String, Object>> searchResults;
+
+  private FixtureServer(HttpServer server, ExecutorService executor) {
+    this.server = server;
+    this.executor = executor;
+    this.searchResults = loadSearchResults();
+  }
+
+  // Port 0 picks a free port, see getBaseUrl() for the address the server ended up on
+  public static FixtureServer start(int port) {
+    try {
+      HttpServer server =
+          HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+      ExecutorService executor =
+          Executors.newFixedThreadPool(
+              8,
+              runnable -> {
+                Thread thread = new Thread(runnable, "fixture-server");
+                thread.setDaemon(true);
+                return thread;
+              });
+      FixtureServer fixtureServer = new FixtureServer(server, executor);
+      server.createContext("/", fixtureServer::handle);
+      server.setExecutor(executor);
+      server.start();
+      System.out.println("Fixture server started on " + fixtureServer.getBaseUrl());
+      return fixtureServer;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to start the fixture server on port " + port, e);
+    }
+  }
+
+  public String getBaseUrl() {
+    InetSocketAddress address = server.getAddress();
+    return "http://" + address.getHostString() + ":" + address.getPort() + "/";
+  }
+
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+    System.out.println("Fixture server stopped.");
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String path = exchange.getRequestURI().getPath();
+      Map<String, List<String>> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+      if (path.equals("/api/v3/StaysSearch")) {
+        sendJson(exchange, search(query));
+      } else if (path.equals("/api/v3/StaysPdpSections")) {
+        Map<String, Object> listing = findListing(first(query, "id", ""));
+        if (listing == null) {
+          send(exchange, 404, CONTENT_TYPES.get("json"), "{\"errors\":[\"Listing not found\"]}");
+        } else {
+          sendJson(
+              exchange,
+              Map.of("data", Map.of("presentation", Map.of("stayProductDetailPage", listing))));
+        }
+      } else if (path.equals("/")) {
+        sendResource(exchange, "home.html");
+      } else if (path.startsWith("/s/")) {
+        sendResource(exchange, "results.html");
+      } else if (path.startsWith("/rooms/")) {
+        sendResource(exchange, "room.html");
+      } else if (path.startsWith("/static/") && !path.contains("..")) {
+        sendResource(exchange, path.substring(1));
+      } else {
+        send(exchange, 404, CONTENT_TYPES.get("html"), "<h1>Not found</h1>");
+      }
+    }
+  }
+
+  // Filters the recorded results by the search parameters and returns the requested page
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> search(Map<String, List<String>> query) {
+    int guests = toInt(first(query, "adults", "0")) + toInt(first(query, "children", "0"));
+    int minBedrooms = toInt(first(query, "min_bedrooms", "0"));
+    List<Long> amenities = new ArrayList<>();
+    for (String amenity : query.getOrDefault("amenities[]", List.of())) {
+      amenities.add((long) toInt(amenity));
+    }
+
+    List<Map<String, Object>> matches = new ArrayList<>();
+    for (Map<String, Object> result : searchResults) {
+      Map<String, Object> listing = (Map<String, Object>) result.get("listing");
+      if (((Number) listing.get("personCapacity")).intValue() >= guests
+          && ((Number) listing.get("bedrooms")).intValue() >= minBedrooms
+          && ((List<Object>) listing.get("amenityIds")).containsAll(amenities)) {
+        matches.add(result);
+      }
+    }
+
+    int offset = Math.max(0, toInt(first(query, "items_offset", "0")));
+    List<Map<String, Object>> page =
+        offset >= matches.size()
+            ? List.of()
+            : matches.subList(offset, Math.min(offset + PAGE_SIZE, matches.size()));
+
+    Map<String, Object> paginationInfo = new LinkedHashMap<>();
+    paginationInfo.put("pageSize", PAGE_SIZE);
+    paginationInfo.put("itemsOffset", offset);
+    paginationInfo.put("totalCount", matches.size());
+    paginationInfo.put("hasNextPage", offset + PAGE_SIZE < matches.size());
+
+    Map<String, Object> results = new LinkedHashMap<>();
+    results.put("searchResults", page);
+    results.put("paginationInfo", paginationInfo);
+    return Map.of(
+        "data", Map.of("presentation", Map.of("staysSearch", Map.of("results", results))));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> findListing(String id) {
+    for (Map<String, Object> result : searchResults) {
+      if (id.equals(((Map<String, Object>) result.get("listing")).get("id"))) {
+        return result;
+      }
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> loadSearchResults() {
+    Map<String, Object> recorded =
+        new Json()
+            .toType(
+                new String(readResource(SEARCH_RESULTS), StandardCharsets.UTF_8), Json.MAP_TYPE);
+    Map<String, Object> presentation =
+        (Map<String, Object>) ((Map<String, Object>) recorded.get("data")).get("presentation");
+    Map<String, Object> results =
+        (Map<String, Object>)
+            ((Map<String, Object>) presentation.get("staysSearch")).get("results");
+    return List.copyOf((List<Map<String, Object>>) results.get("searchResults"));
+  }
+
+  private static byte[] readResource(String name) {
+    try (InputStream input = FixtureServer.class.getClassLoader().getResourceAsStream(name)) {
+      if (input == null) {
+        throw new IllegalStateException("Fixture not found on the classpath: " + name);
+      }
+      return input.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read fixture: " + name, e);
+    }
+  }
+
+  private static void sendResource(HttpExchange exchange, String name) throws IOException {
+    InputStream input = FixtureServer.class.getClassLoader().getResourceAsStream(ROOT + name);
+    if (input == null) {
+      send(exchange, 404, CONTENT_TYPES.get("html"), "<h1>Not found</h1>");
+      return;
+    }
+    try (input) {
+      String extension = name.substring(name.lastIndexOf('.') + 1);
+      send(
+          exchange,
+          200,
+          CONTENT_TYPES.getOrDefault(extension, "application/octet-stream"),
+          input.readAllBytes());
+    }
+  }
+
+  private static void sendJson(HttpExchange exchange, Object body) throws IOException {
+    send(exchange, 200, CONTENT_TYPES.get("json"), new Json().toJson(body));
+  }
+
+  private static void send(HttpExchange exchange, int status, String contentType, String body)
+      throws IOException {
+    send(exchange, status, contentType, body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void send(HttpExchange exchange, int status, String contentType, byte[] body)
+      throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.getResponseHeaders().set("Cache-Control", "no-store");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(body);
+    }
+  }
+
+  private static Map<String, List<String>> parseQuery(String rawQuery) {
+    Map<String, List<String>> query = new LinkedHashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return query;
+    }
+    for (String pair : rawQuery.split("&")) {
+      int separator = pair.indexOf('=');
+      String name = separator < 0 ? pair : pair.substring(0, separator);
+      String value = separator < 0 ? "" : pair.substring(separator + 1);
+      query
+          .computeIfAbsent(
+              URLDecoder.decode(name, StandardCharsets.UTF_8), key -> new ArrayList<>())
+          .add(URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return query;
+  }
+
+  private static String first(Map<String, List<String>> query, String name, String fallback) {
+    List<String> values = query.get(name);
+    return values == null || values.isEmpty() ? fallback : values.get(0);
+  }
+
+  private static int toInt(String value) {
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,669 @@
+package fixtures;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+import pages.AirbnbHomePage;
+import pages.AirbnbResultsPage;
+import utils.DomSnapshot;
+import utils.DriverFactory;
+import utils.LocatorDefinition;
+import utils.LocatorKey;
+import utils.LocatorRegistry;
+import utils.LocatorUtil;
+import utils.SiteConfig;
+import utils.WebdriverWaitUtil;
+
+// Measures how every locator in locators.properties resolves on the pages the scenarios visit, and
+// checks candidate replacements against it. By default the pages are DomSnapshots saved from the
+// live site (the failure snapshots in target/snapshots, for instance). With
+// -Dlocator.analysis.capture=true they are captured along the search flow instead (home page with
+// the calendar and guests popovers open, results with the map popup and the filters, a listing
+// page), on the FixtureServer unless -Dbase.url is given. Each locator and candidate is then
+// resolved on every page many times, with jsoup and, when a browser is running, inside Chrome with
+// the snapshot written into a blank page. Locators that match nothing,
+// match more than one element or resolve slower than the others are flagged. For xpath locators an
+// attribute selector is suggested from the element they match. A candidate is equivalent when it
+// matches the same element on every page (the same elements for locators read as lists). The
+// fixture pages reproduce the markup the locators were written for, so a verdict reached on them
+// alone proves nothing about the site; it is reported as "fixture only".
+//   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=fixtures.LocatorAnalyzer
+// Configured with system properties:
+//   locator.analysis.snapshots  - directory of saved snapshots of the site, analyzed with jsoup
+//                                 (default target/snapshots)
+//   locator.analysis.browser    - also time the saved snapshots in Chrome (default false)
+//   locator.analysis.capture    - capture the pages in a browser instead (default false)
+//   locator.analysis.iterations - resolutions timed per locator and page (default 100)
+//   locator.analysis.slowFactor - slow above this multiple of the median locator time (default 3)
+//   locator.analysis.dir        - output directory for the captured pages and report.json
+//                                 (default target/locator-analysis)
+//   locator.candidates          - candidates in the locators.properties format, a key may be
+//                                 repeated as key.2, key.3 (default locator-candidates.properties)
+public class LocatorAnalyzer {
+
+  private static final String CANDIDATES_RESOURCE = "locator-candidates.properties";
+  private static final String LOCATION = "Rome, Italy";
+  private static final Pattern POSITIONAL = Pattern.compile("\\)\\[\\d+]$");
+  private static final Pattern REPEATED_KEY = Pattern.compile("\\.\\d+$");
+  private static final LocatorDefinition FIXTURE_STYLESHEET =
+      new LocatorDefinition("css", "link[href$='/static/fixture.css']");
+
+  // Locators the pages read as lists, their matches are compared as a whole
+  private static final Set<LocatorKey> LIST_LOCATORS =
+      EnumSet.of(LocatorKey.LISTING_SUMMARY, LocatorKey.COMMON_MAP_MARKER);
+
+  // Same lookup as the DomSnapshot capture script, timed in the page so that the round trip of the
+  // call does not hide the cost of the selector
+  private static final String RESOLVE_SCRIPT =
+      """
+      var locators = arguments[0], iterations = arguments[1];
+      function find(type, value) {
+        if (type === 'id') {
+          var byId = document.getElementById(value);
+          return byId ? [byId] : [];
+        }
+        if (type === 'css') return Array.prototype.slice.call(document.querySelectorAll(value));
+        var nodes = [], result = document.evaluate(
+            value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+        for (var j = 0; j < result.snapshotLength; j++) {
+          if (result.snapshotItem(j).nodeType === 1) nodes.push(result.snapshotItem(j));
+        }
+        return nodes;
+      }
+      return locators.map(function (locator) {
+        try {
+          var matches = find(locator.type, locator.value);
+          var start = performance.now();
+          for (var i = 0; i < iterations; i++) find(locator.type, locator.value);
+          return {matches: matches, micros: (performance.now() - start) * 1000 / iterations};
+        } catch (e) {
+          return {error: String(e.message || e)};
+        }
+      });
+      """;
+
+  private record Page(String name, DomSnapshot snapshot, boolean fixture) {
+
+    // Pages served by the FixtureServer, captured here or saved by a fixture-mode run
+    Page(String name, DomSnapshot snapshot) {
+      this(name, snapshot, !snapshot.findAll(FIXTURE_STYLESHEET).isEmpty());
+    }
+  }
+
+  private record Candidate(LocatorDefinition definition, String origin) {}
+
+  private record Subject(LocatorKey key, LocatorDefinition original, List<Candidate> candidates) {}
+
+  private record Resolution(List<?> matches, double micros, String error) {}
+
+  // Resolves a batch of locators on one page
+  private interface Engine {
+    String name();
+
+    List<Resolution> resolve(Page page, List<LocatorDefinition> definitions, int iterations);
+  }
+
+  private static final class JsoupEngine implements Engine {
+
+    @Override
+    public String name() {
+      return "jsoup";
+    }
+
+    @Override
+    public List<Resolution> resolve(
+        Page page, List<LocatorDefinition> definitions, int iterations) {
+      List<Resolution> resolutions = new ArrayList<>(definitions.size());
+      for (LocatorDefinition definition : definitions) {
+        try {
+          Elements matches = page.snapshot().findAll(definition);
+          for (int i = 0; i < Math.max(1, iterations / 10); i++) {
+            page.snapshot().findAll(definition);
+          }
+          long start = System.nanoTime();
+          for (int i = 0; i < iterations; i++) {
+            page.snapshot().findAll(definition);
+          }
+          double micros = (System.nanoTime() - start) / 1000.0 / iterations;
+          resolutions.add(new Resolution(new ArrayList<>(matches), micros, null));
+        } catch (RuntimeException e) {
+          resolutions.add(new Resolution(List.of(), 0, e.getMessage()));
+        }
+      }
+      return resolutions;
+    }
+  }
+
+  private record BrowserEngine(WebDriver driver) implements Engine {
+
+    @Override
+    public String name() {
+      return "chrome";
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Resolution> resolve(
+        Page page, List<LocatorDefinition> definitions, int iterations) {
+      driver.get("about:blank");
+      ((JavascriptExecutor) driver)
+          .executeScript(
+              "document.open(); document.write(arguments[0]); document.close();",
+              page.snapshot().getHtml());
+
+      List<Map<String, String>> locators = new ArrayList<>();
+      for (LocatorDefinition definition : definitions) {
+        locators.add(Map.of("type", definition.type(), "value", definition.value()));
+      }
+      List<Map<String, Object>> results =
+          (List<Map<String, Object>>)
+              ((JavascriptExecutor) driver).executeScript(RESOLVE_SCRIPT, locators, iterations);
+
+      List<Resolution> resolutions = new ArrayList<>(results.size());
+      for (Map<String, Object> result : results) {
+        resolutions.add(
+            result.containsKey("error")
+                ? new Resolution(List.of(), 0, (String) result.get("error"))
+                : new Resolution(
+                    (List<?>) result.get("matches"),
+                    ((Number) result.get("micros")).doubleValue(),
+                    null));
+      }
+      return resolutions;
+    }
+  }
+
+  public static void main(String[] args) {
+    LocatorRegistry registry = LocatorRegistry.getInstance();
+    int iterations = Integer.getInteger("locator.analysis.iterations", 100);
+    double slowFactor = Double.parseDouble(System.getProperty("locator.analysis.slowFactor", "3"));
+    Path outputDir = Path.of(System.getProperty("locator.analysis.dir", "target/locator-analysis"));
+    String snapshotDir = System.getProperty("locator.analysis.snapshots", "target/snapshots");
+
+    List<Subject> subjects = new ArrayList<>();
+    Map<LocatorKey, List<Candidate>> candidates = readCandidates();
+    for (LocatorKey key : LocatorKey.values()) {
+      subjects.add(
+          new Subject(
+              key,
+              registry.getDefinition(key),
+              new ArrayList<>(candidates.getOrDefault(key, List.of()))));
+    }
+
+    if (!Boolean.getBoolean("locator.analysis.capture")) {
+      List<Page> pages = readPages(Path.of(snapshotDir));
+      if (!Boolean.getBoolean("locator.analysis.browser")) {
+        analyze(subjects, pages, List.of(new JsoupEngine()), iterations, slowFactor, outputDir);
+        return;
+      }
+      WebDriver driver = DriverFactory.startDriver();
+      try {
+        analyze(
+            subjects,
+            pages,
+            List.of(new JsoupEngine(), new BrowserEngine(driver)),
+            iterations,
+            slowFactor,
+            outputDir);
+      } finally {
+        DriverFactory.releaseDriver();
+      }
+      return;
+    }
+
+    FixtureServer fixtureServer = null;
+    if (System.getProperty("base.url") == null) {
+      fixtureServer = FixtureServer.start(0);
+      System.setProperty("base.url", fixtureServer.getBaseUrl());
+    }
+    WebDriver driver = DriverFactory.startDriver();
+    try {
+      List<Page> pages = capturePages(driver, outputDir.resolve("pages"));
+      analyze(
+          subjects,
+          pages,
+          List.of(new JsoupEngine(), new BrowserEngine(driver)),
+          iterations,
+          slowFactor,
+          outputDir);
+    } finally {
+      DriverFactory.releaseDriver();
+      if (fixtureServer != null) {
+        fixtureServer.stop();
+      }
+    }
+  }
+
+  // Walks the search flow and snapshots every state a locator is used in. A step that fails ends
+  // the walk, the pages captured so far are still analyzed.
+  private static List<Page> capturePages(WebDriver driver, Path directory) {
+    WebdriverWaitUtil waitUtil = new WebdriverWaitUtil(driver);
+    AirbnbHomePage homePage = new AirbnbHomePage(driver, waitUtil);
+    AirbnbResultsPage resultsPage = new AirbnbResultsPage(driver, waitUtil);
+    List<Page> pages = new ArrayList<>();
+    try {
+      driver.get(SiteConfig.getBaseUrl());
+      homePage.filterLocation(LOCATION);
+      waitUtil.waitForElementClickable(LocatorUtil.getLocator(LocatorKey.CHECK_IN_BUTTON)).click();
+      waitUtil.waitForElementPresent(LocatorUtil.getLocator(LocatorKey.CHECK_IN_DATE));
+      pages.add(capture(driver, directory, "home-check-in"));
+
+      waitUtil.waitForElementClickable(LocatorUtil.getLocator(LocatorKey.CHECK_IN_DATE)).click();
+      waitUtil.waitForElementPresent(LocatorUtil.getLocator(LocatorKey.CHECK_OUT_DATE));
+      pages.add(capture(driver, directory, "home-check-out"));
+
+      homePage.selectCheckOutDate();
+      waitUtil
+          .waitForElementClickable(LocatorUtil.getLocator(LocatorKey.ADD_GUESTS_BUTTON))
+          .click();
+      waitUtil.waitForElementVisible(LocatorUtil.getLocator(LocatorKey.ADD_ADULT_BUTTON));
+      pages.add(capture(driver, directory, "home-guests"));
+
+      homePage.addGuests(2, 1);
+      homePage.searchForResults();
+      resultsPage.waitForResultsHeaderToContainText();
+      waitUtil.waitForElementsVisible(LocatorUtil.getLocator(LocatorKey.LISTING_SUMMARY));
+      pages.add(capture(driver, directory, "results"));
+
+      waitUtil
+          .waitForElementClickable(LocatorUtil.getLocator(LocatorKey.COMMON_MAP_MARKER))
+          .click();
+      waitUtil.waitForElementVisible(LocatorUtil.getLocator(LocatorKey.PIN_POPUP_SUMMARY));
+      pages.add(capture(driver, directory, "results-map-popup"));
+
+      resultsPage.clickMoreFilters();
+      waitUtil.waitForElementVisible(LocatorUtil.getLocator(LocatorKey.ADD_BEDROOM_BUTTON));
+      pages.add(capture(driver, directory, "results-filters"));
+
+      driver.navigate().refresh();
+      resultsPage.openFirstProperty();
+      waitUtil.waitForElementVisible(LocatorUtil.getLocator(LocatorKey.BEDROOMS_IN_DETAILS));
+      pages.add(capture(driver, directory, "listing"));
+    } catch (RuntimeException e) {
+      System.out.println(
+          "Page capture stopped after "
+              + pages.size()
+              + " page(s) on "
+              + driver.getCurrentUrl()
+              + ": "
+              + e.getMessage());
+    }
+    if (pages.isEmpty()) {
+      throw new IllegalStateException("No page could be captured from " + SiteConfig.getBaseUrl());
+    }
+    return pages;
+  }
+
+  private static Page capture(WebDriver driver, Path directory, String name) {
+    DomSnapshot snapshot = DomSnapshot.capture(driver);
+    snapshot.save(directory, name);
+    return new Page(name, snapshot);
+  }
+
+  private static List<Page> readPages(Path directory) {
+    try (Stream<Path> files = Files.list(directory)) {
+      List<Page> pages = new ArrayList<>();
+      for (Path file : files.filter(file -> file.toString().endsWith(".html")).sorted().toList()) {
+        String name = file.getFileName().toString();
+        pages.add(
+            new Page(
+                name.substring(0, name.length() - ".html".length()),
+                DomSnapshot.of(file.toUri().toString(), Files.readString(file))));
+      }
+      if (pages.isEmpty()) {
+        throw new IllegalStateException("No saved snapshots (*.html) in " + directory);
+      }
+      return pages;
+    } catch (NoSuchFileException e) {
+      throw new IllegalStateException(
+          "No saved snapshots in "
+              + directory
+              + ", set -Dlocator.analysis.snapshots or capture pages with"
+              + " -Dlocator.analysis.capture=true",
+          e);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the snapshots in " + directory, e);
+    }
+  }
+
+  private static Map<LocatorKey, List<Candidate>> readCandidates() {
+    String file = System.getProperty("locator.candidates");
+    Properties properties = new Properties();
+    try (InputStream inputStream =
+        file != null
+            ? Files.newInputStream(Path.of(file))
+            : LocatorAnalyzer.class.getClassLoader().getResourceAsStream(CANDIDATES_RESOURCE)) {
+      if (inputStream != null) {
+        properties.load(inputStream);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the locator candidates " + file, e);
+    }
+
+    Map<LocatorKey, List<Candidate>> candidates = new LinkedHashMap<>();
+    for (String name : new TreeSet<>(properties.stringPropertyNames())) {
+      LocatorKey key = LocatorKey.fromPropertyName(REPEATED_KEY.matcher(name).replaceFirst(""));
+      candidates
+          .computeIfAbsent(key, ignored -> new ArrayList<>())
+          .add(
+              new Candidate(
+                  LocatorRegistry.parseDefinition(name, properties.getProperty(name)), "file"));
+    }
+    return candidates;
+  }
+
+  private static void analyze(
+      List<Subject> subjects,
+      List<Page> pages,
+      List<Engine> engines,
+      int iterations,
+      double slowFactor,
+      Path outputDir) {
+    suggest(subjects, pages);
+
+    List<LocatorDefinition> definitions = new ArrayList<>();
+    for (Subject subject : subjects) {
+      definitions.add(subject.original());
+      subject.candidates().forEach(candidate -> definitions.add(candidate.definition()));
+    }
+
+    // resolutions[engine][page][definition]
+    List<List<List<Resolution>>> resolutions = new ArrayList<>();
+    for (Engine engine : engines) {
+      List<List<Resolution>> byPage = new ArrayList<>();
+      for (Page page : pages) {
+        byPage.add(engine.resolve(page, definitions, iterations));
+      }
+      resolutions.add(byPage);
+    }
+
+    // The browser is what the scenarios run against, its counts and times decide
+    int reference = engines.size() - 1;
+    double[] medians = new double[engines.size()];
+    for (int e = 0; e < engines.size(); e++) {
+      List<Double> originals = new ArrayList<>();
+      int index = 0;
+      for (Subject subject : subjects) {
+        originals.add(meanMicros(resolutions.get(e), index));
+        index += 1 + subject.candidates().size();
+      }
+      originals.sort(null);
+      medians[e] = originals.get(originals.size() / 2);
+    }
+
+    long fixturePages = pages.stream().filter(Page::fixture).count();
+    String validatedOn =
+        fixturePages == 0 ? "site" : fixturePages == pages.size() ? "fixture" : "site and fixture";
+    System.out.printf(
+        "%nLocator analysis of %d page(s) (%d of the site, %d of the fixture server), %d"
+            + " resolution(s) per locator and page, times in us:%n",
+        pages.size(), pages.size() - fixturePages, fixturePages, iterations);
+    StringBuilder header =
+        new StringBuilder(String.format("%-28s %-6s %-18s", "Locator", "Type", "Matches"));
+    for (Engine engine : engines) {
+      header.append(String.format(" %10s", engine.name()));
+    }
+    System.out.println(header.append("  Flags / verdict"));
+
+    List<Map<String, Object>> report = new ArrayList<>();
+    int flagged = 0;
+    int equivalentCandidates = 0;
+    int index = 0;
+    for (Subject subject : subjects) {
+      int originalIndex = index;
+      List<Resolution> referenceResolutions = column(resolutions.get(reference), originalIndex);
+
+      int matchedPages = 0;
+      int maxMatches = 0;
+      Map<String, Integer> pageMatches = new LinkedHashMap<>();
+      for (int p = 0; p < pages.size(); p++) {
+        int count = referenceResolutions.get(p).matches().size();
+        pageMatches.put(pages.get(p).name(), count);
+        matchedPages += count > 0 ? 1 : 0;
+        maxMatches = Math.max(maxMatches, count);
+      }
+
+      List<String> flags = new ArrayList<>();
+      for (int e = 0; e < engines.size(); e++) {
+        String error = firstError(column(resolutions.get(e), originalIndex));
+        if (error != null) {
+          flags.add("ERROR(" + engines.get(e).name() + "): " + error);
+        }
+      }
+      if (matchedPages == 0) {
+        flags.add("NO MATCH");
+      }
+      if (maxMatches > 1 && !LIST_LOCATORS.contains(subject.key())) {
+        flags.add("AMBIGUOUS");
+      }
+      double before = meanMicros(resolutions.get(reference), originalIndex);
+      if (before > slowFactor * medians[reference]) {
+        flags.add("SLOW");
+      }
+      flagged += flags.isEmpty() ? 0 : 1;
+
+      StringBuilder row =
+          new StringBuilder(
+              String.format(
+                  "%-28s %-6s %-18s",
+                  subject.key().propertyName(),
+                  subject.original().type(),
+                  matchedPages + "/" + pages.size() + " pages, max " + maxMatches));
+      Map<String, Object> micros = new LinkedHashMap<>();
+      for (int e = 0; e < engines.size(); e++) {
+        double mean = meanMicros(resolutions.get(e), originalIndex);
+        row.append(String.format(" %10.1f", mean));
+        micros.put(engines.get(e).name(), round(mean));
+      }
+      System.out.println(row.append("  ").append(String.join(", ", flags)));
+
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("locator", subject.key().propertyName());
+      entry.put("definition", subject.original().type() + ":" + subject.original().value());
+      entry.put("flags", flags);
+      entry.put("matches", pageMatches);
+      entry.put("micros", micros);
+
+      List<Map<String, Object>> candidateEntries = new ArrayList<>();
+      for (Candidate candidate : subject.candidates()) {
+        index++;
+        String verdict = null;
+        for (int e = 0; e < engines.size() && verdict == null; e++) {
+          verdict =
+              compare(
+                  subject.key(),
+                  pages,
+                  column(resolutions.get(e), originalIndex),
+                  column(resolutions.get(e), index));
+        }
+        boolean equivalent = verdict == null;
+        double after = meanMicros(resolutions.get(reference), index);
+        if (equivalent) {
+          equivalentCandidates++;
+          verdict =
+              String.format(
+                  "equivalent, %.1fx %s",
+                  after > 0 ? before / after : 0, after <= before ? "faster" : "slower");
+        }
+        if ("fixture".equals(validatedOn)) {
+          verdict += " (fixture only)";
+        }
+
+        // The times line up under the original's, the candidate itself closes the line
+        StringBuilder candidateRow =
+            new StringBuilder(String.format("%-54s", "  -> " + candidate.origin() + " candidate"));
+        Map<String, Object> candidateMicros = new LinkedHashMap<>();
+        for (int e = 0; e < engines.size(); e++) {
+          double mean = meanMicros(resolutions.get(e), index);
+          candidateRow.append(String.format(" %10.1f", mean));
+          candidateMicros.put(engines.get(e).name(), round(mean));
+        }
+        System.out.println(
+            candidateRow
+                .append("  ")
+                .append(verdict)
+                .append(": ")
+                .append(candidate.definition().type())
+                .append(':')
+                .append(candidate.definition().value()));
+
+        Map<String, Object> candidateEntry = new LinkedHashMap<>();
+        candidateEntry.put(
+            "definition", candidate.definition().type() + ":" + candidate.definition().value());
+        candidateEntry.put("origin", candidate.origin());
+        candidateEntry.put("equivalent", equivalent);
+        candidateEntry.put("verdict", verdict);
+        candidateEntry.put("validatedOn", validatedOn);
+        candidateEntry.put("micros", candidateMicros);
+        candidateEntries.add(candidateEntry);
+      }
+      entry.put("candidates", candidateEntries);
+      report.add(entry);
+      index++;
+    }
+
+    System.out.printf(
+        "%d of %d locator(s) flagged, %d equivalent candidate(s), slow above %.1fx the median of"
+            + " %.1f us.%n",
+        flagged, subjects.size(), equivalentCandidates, slowFactor, medians[reference]);
+    if ("fixture".equals(validatedOn)) {
+      System.out.println(
+          "Only fixture pages were analyzed: check candidates against snapshots of the site before"
+              + " adopting them.");
+    }
+    writeReport(outputDir.resolve("report.json"), report);
+  }
+
+  // Proposes an attribute selector for xpath locators, from the first element they match
+  private static void suggest(List<Subject> subjects, List<Page> pages) {
+    for (Subject subject : subjects) {
+      if (!"xpath".equals(subject.original().type())
+          || POSITIONAL.matcher(subject.original().value()).find()) {
+        continue;
+      }
+      for (Page page : pages) {
+        Element first;
+        try {
+          first = page.snapshot().findAll(subject.original()).first();
+        } catch (RuntimeException e) {
+          break;
+        }
+        if (first == null) {
+          continue;
+        }
+        String suggestion = attributeSelector(first);
+        if (suggestion != null
+            && subject.candidates().stream()
+                .noneMatch(
+                    candidate ->
+                        suggestion.equals(
+                            candidate.definition().type()
+                                + ":"
+                                + candidate.definition().value()))) {
+          subject
+              .candidates()
+              .add(
+                  new Candidate(
+                      LocatorRegistry.parseDefinition(subject.key().propertyName(), suggestion),
+                      "suggested"));
+        }
+        break;
+      }
+    }
+  }
+
+  private static String attributeSelector(Element element) {
+    for (String attribute : List.of("data-testid", "id", "aria-label")) {
+      String value = element.attr(attribute);
+      if (value.isEmpty() || value.contains("'") || value.contains("\\")) {
+        continue;
+      }
+      if (attribute.equals("id")) {
+        return value.matches("\\S+") ? "id:" + value : null;
+      }
+      return "css:" + element.tagName() + "[" + attribute + "='" + value + "']";
+    }
+    return null;
+  }
+
+  // Null when the candidate matches what the original matches on every page, else why not
+  private static String compare(
+      LocatorKey key, List<Page> pages, List<Resolution> original, List<Resolution> candidate) {
+    String error = firstError(candidate);
+    if (error != null) {
+      return "invalid: " + error;
+    }
+    if (firstError(original) != null) {
+      return null;
+    }
+    for (int p = 0; p < pages.size(); p++) {
+      List<?> expected = original.get(p).matches();
+      List<?> actual = candidate.get(p).matches();
+      boolean same =
+          LIST_LOCATORS.contains(key)
+              ? expected.equals(actual)
+              : expected.isEmpty()
+                  ? actual.isEmpty()
+                  : !actual.isEmpty() && expected.get(0).equals(actual.get(0));
+      if (!same) {
+        return "differs on "
+            + pages.get(p).name()
+            + ": "
+            + actual.size()
+            + " match(es) instead of "
+            + expected.size()
+            + (actual.size() == expected.size() ? ", other elements" : "");
+      }
+    }
+    return null;
+  }
+
+  private static List<Resolution> column(List<List<Resolution>> byPage, int definition) {
+    return byPage.stream().map(resolutions -> resolutions.get(definition)).toList();
+  }
+
+  private static double meanMicros(List<List<Resolution>> byPage, int definition) {
+    return column(byPage, definition).stream().mapToDouble(Resolution::micros).average().orElse(0);
+  }
+
+  private static String firstError(List<Resolution> resolutions) {
+    return resolutions.stream()
+        .map(Resolution::error)
+        .filter(error -> error != null)
+        .findFirst()
+        .orElse(null);
+  }
+
+  private static double round(double micros) {
+    return Math.round(micros * 10) / 10.0;
+  }
+
+  private static void writeReport(Path file, List<Map<String, Object>> report) {
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      Files.writeString(file, new Json().toJson(report), StandardCharsets.UTF_8);
+      System.out.println("Locator analysis written to " + file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the locator analysis to " + file, e);
+    }
+  }
+}
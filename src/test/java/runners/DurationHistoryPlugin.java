@@ -0,0 +1,53 @@
+package runners;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cucumber plugin that folds the duration of every passed scenario into the
+// ScenarioDurationHistory when the run finishes. Failed and skipped scenarios stop early and are
+// left out, so they do not make a slow scenario look fast to the ShardPlanner. Registered in
+// TestRunner as "runners.DurationHistoryPlugin".
+public class DurationHistoryPlugin implements ConcurrentEventListener {
+
+  // Total milliseconds and number of runs of every scenario key in this run
+  private final Map<String, double[]> durations = new ConcurrentHashMap<>();
+
+  @Override
+  public void setEventPublisher(EventPublisher publisher) {
+    publisher.registerHandlerFor(TestCaseFinished.class, this::onScenarioFinished);
+    publisher.registerHandlerFor(TestRunFinished.class, event -> write());
+  }
+
+  private void onScenarioFinished(TestCaseFinished event) {
+    if (event.getResult().getStatus() != Status.PASSED) {
+      return;
+    }
+    TestCase testCase = event.getTestCase();
+    // Examples of an outline share a name and are recorded as their average
+    durations.merge(
+        ScenarioDurationHistory.key(testCase.getUri(), testCase.getName()),
+        new double[] {event.getResult().getDuration().toNanos() / 1_000_000.0, 1},
+        (total, sample) -> new double[] {total[0] + sample[0], total[1] + sample[1]});
+  }
+
+  private void write() {
+    if (durations.isEmpty()) {
+      return;
+    }
+    Map<String, Double> averages = new LinkedHashMap<>();
+    durations.forEach((key, total) -> averages.put(key, total[0] / total[1]));
+    ScenarioDurationHistory.update(ScenarioDurationHistory.defaultFile(), averages);
+    System.out.println(
+        "Durations of "
+            + durations.size()
+            + " scenario(s) added to "
+            + ScenarioDurationHistory.defaultFile());
+  }
+}
@@ -0,0 +1,133 @@
+package runners;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Properties;
+import java.util.TreeMap;
+
+// Durations of the scenarios in previous runs, one exponentially weighted moving average per
+// scenario, kept in a properties file between runs (-Dscenario.history, default
+// .cache/scenario-durations.properties; cache that directory on CI). Scenarios are keyed by
+// "<feature uri>#<scenario name>", the same key on every node, so that every shard computes the
+// same plan from the same file. -Dscenario.history.alpha sets the weight of the latest run
+// (default 0.3).
+public final class ScenarioDurationHistory {
+
+  public record Entry(double millis, int runs) {}
+
+  private final Map<String, Entry> entries;
+
+  private ScenarioDurationHistory(Map<String, Entry> entries) {
+    this.entries = Collections.unmodifiableMap(entries);
+  }
+
+  public static Path defaultFile() {
+    return Path.of(System.getProperty("scenario.history", ".cache/scenario-durations.properties"));
+  }
+
+  public static String key(URI featureUri, String scenarioName) {
+    String feature = featureUri.toString();
+    if ("file".equals(featureUri.getScheme())) {
+      Path path = Path.of(featureUri);
+      Path workingDirectory = Path.of("").toAbsolutePath();
+      if (path.startsWith(workingDirectory)) {
+        feature = workingDirectory.relativize(path).toString().replace('\\', '/');
+      }
+    }
+    return feature + "#" + scenarioName;
+  }
+
+  // An empty history when the file does not exist yet
+  public static ScenarioDurationHistory load(Path file) {
+    Map<String, Entry> entries = new TreeMap<>();
+    if (!Files.isRegularFile(file)) {
+      return new ScenarioDurationHistory(entries);
+    }
+
+    Properties properties = new Properties();
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      properties.load(inputStream);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the scenario history " + file, e);
+    }
+    for (String key : properties.stringPropertyNames()) {
+      String[] values = properties.getProperty(key).trim().split("\\s+");
+      try {
+        entries.put(
+            key,
+            new Entry(
+                Double.parseDouble(values[0]),
+                values.length > 1 ? Integer.parseInt(values[1]) : 1));
+      } catch (NumberFormatException e) {
+        System.out.println("Ignoring the invalid scenario history entry " + key + " in " + file);
+      }
+    }
+    return new ScenarioDurationHistory(entries);
+  }
+
+  public Map<String, Entry> entries() {
+    return entries;
+  }
+
+  public OptionalDouble expectedMillis(String key) {
+    Entry entry = entries.get(key);
+    return entry == null ? OptionalDouble.empty() : OptionalDouble.of(entry.millis());
+  }
+
+  // Folds the durations of this run into the file. The file is read again just before it is
+  // replaced, under a file lock shared by all JVMs on the host, so that shards and surefire forks
+  // finishing at the same time keep each other's updates.
+  public static synchronized void update(Path file, Map<String, Double> durations) {
+    double alpha = Double.parseDouble(System.getProperty("scenario.history.alpha", "0.3"));
+    try {
+      Path directory = file.toAbsolutePath().getParent();
+      Files.createDirectories(directory);
+      Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+      try (FileChannel channel =
+          FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        FileLock lock = channel.lock();
+        try {
+          Map<String, Entry> entries = new TreeMap<>(load(file).entries());
+          durations.forEach(
+              (key, millis) ->
+                  entries.merge(
+                      key,
+                      new Entry(millis, 1),
+                      (previous, latest) ->
+                          new Entry(
+                              alpha * latest.millis() + (1 - alpha) * previous.millis(),
+                              previous.runs() + 1)));
+
+          Properties properties = new Properties();
+          entries.forEach(
+              (key, entry) ->
+                  properties.setProperty(
+                      key, String.format(Locale.ROOT, "%.0f %d", entry.millis(), entry.runs())));
+          Path temporary = Files.createTempFile(directory, "scenario-durations", ".tmp");
+          try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+            properties.store(outputStream, "EWMA duration in ms and number of runs, per scenario");
+          }
+          Files.move(
+              temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+          lock.release();
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the scenario history " + file, e);
+    }
+  }
+}
@@ -0,0 +1,352 @@
+package runners;
+
+import fixtures.FixtureServer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+import pages.AirbnbHomePage;
+import pages.AirbnbResultsPage;
+import pages.SearchForm.GuestType;
+import utils.DriverFactory;
+import utils.ListingStore;
+import utils.ListingStore.SearchContext;
+import utils.LocatorRegistry;
+import utils.NetworkCapture;
+import utils.PageCommandTracker;
+import utils.PageCommandTracker.CommandReport;
+import utils.SiteConfig;
+import utils.WebDriverCommandCounter;
+import utils.WebdriverWaitUtil;
+
+// Runs the search flow of the features (location, dates, guests, extra filters) and the results
+// page checks for every row of a sweep input, on sweep.threads browsers leased from the
+// WebDriverPool. One JSON line per row is appended to the output as soon as the row is done, and
+// a summary with the rows/minute and the latency percentiles is printed and written at the end.
+// Configured with system properties:
+//   sweep.input   - CSV or JSON file with the rows, see SweepRow (or the first argument)
+//   sweep.output  - JSON lines file the row results are streamed to
+//                   (default target/sweep/results.jsonl)
+//   sweep.summary - file the run summary is written to (default target/sweep/summary.json)
+//   sweep.threads - number of rows run at the same time, one browser each (default 2)
+// The pool is sized to sweep.threads unless -Dpool.size is given. -Dfixture.mode=true runs the rows
+// against the fixture server and -Dnetwork.capture=true answers the checks from the JSON responses.
+// The sweep profile forwards these and command.budget.enforce to the sweep JVM; any other property
+// has to be passed in -Dsweep.jvmArgs.
+// Run with: mvn -Psweep test -Dsweep.input=src/test/resources/sweep/destinations.csv
+//     -Dsweep.threads=4
+public class SearchSweep {
+
+  private static final double[] PERCENTILES = {0.5, 0.9, 0.95, 0.99};
+
+  public record RowResult(
+      SweepRow row,
+      String status,
+      Map<String, Boolean> checks,
+      String error,
+      long durationMillis,
+      long commands,
+      String thread) {
+
+    public boolean passed() {
+      return "PASS".equals(status);
+    }
+  }
+
+  public static void main(String[] args) {
+    String input = args.length > 0 ? args[0] : System.getProperty("sweep.input");
+    if (input == null || input.isBlank()) {
+      throw new IllegalArgumentException("Set the sweep input with -Dsweep.input=<file.csv|json>");
+    }
+    Path output = Path.of(System.getProperty("sweep.output", "target/sweep/results.jsonl"));
+    Path summaryFile = Path.of(System.getProperty("sweep.summary", "target/sweep/summary.json"));
+    int threads = Integer.getInteger("sweep.threads", 2);
+    if (threads < 1) {
+      throw new IllegalArgumentException("sweep.threads must be at least 1");
+    }
+    // One browser per sweep thread, set before the pool is first used
+    if (System.getProperty("pool.size") == null) {
+      System.setProperty("pool.size", String.valueOf(threads));
+    }
+
+    List<SweepRow> rows = SweepRow.read(Path.of(input));
+    LocatorRegistry.getInstance();
+    System.out.println(
+        "Sweeping " + rows.size() + " row(s) from " + input + " on " + threads + " browser(s).");
+
+    FixtureServer fixtureServer = null;
+    if (Boolean.getBoolean("fixture.mode")) {
+      fixtureServer = FixtureServer.start(Integer.getInteger("fixture.port", 0));
+      System.setProperty("base.url", fixtureServer.getBaseUrl());
+    }
+
+    Map<String, Object> summary;
+    try {
+      summary = sweep(rows, threads, output);
+    } finally {
+      if (fixtureServer != null) {
+        fixtureServer.stop();
+      }
+    }
+
+    write(summaryFile, toJsonLine(summary) + System.lineSeparator());
+    System.out.println("Sweep summary written to " + summaryFile + ": " + toJsonLine(summary));
+    // The pool's shutdown hook quits the browsers
+    System.exit(((Number) summary.get("failed")).intValue() == 0 ? 0 : 1);
+  }
+
+  private static Map<String, Object> sweep(List<SweepRow> rows, int threads, Path output) {
+    AtomicInteger workerNumber = new AtomicInteger();
+    ExecutorService workers =
+        Executors.newFixedThreadPool(
+            threads, runnable -> new Thread(runnable, "sweep-" + workerNumber.incrementAndGet()));
+    ExecutorCompletionService<RowResult> completed = new ExecutorCompletionService<>(workers);
+    rows.forEach(row -> completed.submit(() -> runRow(row)));
+
+    List<Long> latencies = new ArrayList<>(rows.size());
+    int failed = 0;
+    long start = System.nanoTime();
+    try {
+      Files.createDirectories(output.toAbsolutePath().getParent());
+      try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+        for (int done = 1; done <= rows.size(); done++) {
+          RowResult result = completed.take().get();
+          writer.write(toJsonLine(toJson(result)));
+          writer.newLine();
+          writer.flush();
+
+          latencies.add(result.durationMillis());
+          if (!result.passed()) {
+            failed++;
+          }
+          System.out.printf(
+              "[%d/%d] %s (row %d): %s in %d ms%s%n",
+              done,
+              rows.size(),
+              result.row().location(),
+              result.row().line(),
+              result.status(),
+              result.durationMillis(),
+              result.error() == null ? "" : " - " + result.error());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the sweep results to " + output, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for the sweep rows.", e);
+    } catch (ExecutionException e) {
+      // runRow reports its own failures, this is a bug in the sweep itself
+      throw new RuntimeException("Error while running a sweep row: " + e.getMessage(), e);
+    } finally {
+      workers.shutdownNow();
+    }
+
+    return summarize(rows.size(), failed, latencies, System.nanoTime() - start, output);
+  }
+
+  // Runs one row on the calling worker thread, with a browser leased for that row only
+  private static RowResult runRow(SweepRow row) {
+    long start = System.nanoTime();
+    long startCommands = WebDriverCommandCounter.getCount();
+    Map<String, Boolean> checks = new LinkedHashMap<>();
+    String error = null;
+    NetworkCapture networkCapture = null;
+
+    try {
+      WebDriver driver = DriverFactory.startDriver();
+      WebdriverWaitUtil waitUtil = new WebdriverWaitUtil(driver);
+      if (Boolean.getBoolean("network.capture")) {
+        networkCapture = NetworkCapture.install(driver);
+      }
+      search(driver, waitUtil, row, checks);
+    } catch (RuntimeException | AssertionError e) {
+      error = e.getClass().getSimpleName() + ": " + e.getMessage();
+    } finally {
+      if (networkCapture != null) {
+        try {
+          networkCapture.uninstall();
+        } catch (RuntimeException e) {
+          System.out.println("Unable to remove the network recorder: " + e.getMessage());
+        }
+      }
+      try {
+        DriverFactory.releaseDriver();
+      } catch (RuntimeException e) {
+        System.out.println("Unable to release the browser of row " + row.line() + ": " + e);
+      }
+    }
+
+    CommandReport commandReport = PageCommandTracker.finishScenario();
+    if (error == null
+        && !commandReport.withinBudget()
+        && Boolean.parseBoolean(System.getProperty("command.budget.enforce", "true"))) {
+      error = "WebDriver command budget exceeded: " + String.join("; ", commandReport.violations());
+    }
+
+    String status = error != null ? "ERROR" : checks.containsValue(false) ? "FAIL" : "PASS";
+    try {
+      ListingStore.flush(
+          new SearchContext(
+              "sweep row " + row.line(),
+              status,
+              row.location().split(",")[0],
+              LocalDate.now().plusDays(row.checkInOffset()),
+              LocalDate.now().plusDays(row.checkInOffset() + row.nights()),
+              row.guests()));
+    } catch (RuntimeException e) {
+      System.out.println("Unable to store the listings of row " + row.line() + ": " + e);
+    }
+    return new RowResult(
+        row,
+        status,
+        checks,
+        error,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+        WebDriverCommandCounter.getCount() - startCommands,
+        Thread.currentThread().getName());
+  }
+
+  // The steps of the features, with the row's values instead of the fixed ones
+  private static void search(
+      WebDriver driver, WebdriverWaitUtil waitUtil, SweepRow row, Map<String, Boolean> checks) {
+    LocalDate checkInDate = LocalDate.now().plusDays(row.checkInOffset());
+    LocalDate checkOutDate = checkInDate.plusDays(row.nights());
+    String city = row.location().split(",")[0];
+
+    driver.get(SiteConfig.getBaseUrl());
+    AirbnbHomePage homePage = new AirbnbHomePage(driver, waitUtil);
+    homePage
+        .searchForm()
+        .location(row.location())
+        .dates(checkInDate, checkOutDate)
+        .guests(GuestType.ADULTS, row.adults())
+        .guests(GuestType.CHILDREN, row.children())
+        .apply();
+    homePage.searchForResults();
+
+    AirbnbResultsPage resultsPage = new AirbnbResultsPage(driver, waitUtil);
+    resultsPage.waitForResultsHeaderToContainText();
+    checks.put("locationInHeader", resultsPage.verifyLocationInHeader(city));
+    checks.put("locationInFilterSummary", resultsPage.verifyLocationInFilterSummary(city));
+    checks.put(
+        "dates",
+        resultsPage.verifyDateFilterSummary(
+            resultsPage.getExpectedDateFilter(checkInDate, checkOutDate)));
+    checks.put("guestsInFilterSummary", resultsPage.verifyGuestsFilterSummary(row.guests()));
+    checks.put("guests", resultsPage.verifyPropertiesAccommodateGuests(row.guests()));
+
+    if (!row.hasExtraFilters()) {
+      return;
+    }
+    resultsPage.clickMoreFilters();
+    if (row.bedrooms() > 0) {
+      resultsPage.selectNumberOfBedrooms(row.bedrooms());
+    }
+    if (row.pool()) {
+      resultsPage.selectPoolFacility();
+    }
+    resultsPage.clickShowPlaces();
+    if (row.bedrooms() > 0) {
+      checks.put("bedrooms", resultsPage.verifyPropertiesHaveAtLeastBedrooms(row.bedrooms()));
+    }
+    if (row.pool()) {
+      resultsPage.openFirstProperty();
+      try {
+        resultsPage.verifyPoolInAmenities();
+        checks.put("pool", true);
+      } catch (AssertionError e) {
+        checks.put("pool", false);
+      }
+    }
+  }
+
+  private static Map<String, Object> toJson(RowResult result) {
+    SweepRow row = result.row();
+    Map<String, Object> json = new LinkedHashMap<>();
+    json.put("line", row.line());
+    json.put("location", row.location());
+    json.put("checkInOffset", row.checkInOffset());
+    json.put("nights", row.nights());
+    json.put("adults", row.adults());
+    json.put("children", row.children());
+    json.put("bedrooms", row.bedrooms());
+    json.put("pool", row.pool());
+    json.put("status", result.status());
+    json.put("checks", result.checks());
+    if (result.error() != null) {
+      json.put("error", result.error());
+    }
+    json.put("durationMillis", result.durationMillis());
+    json.put("webDriverCommands", result.commands());
+    json.put("thread", result.thread());
+    return json;
+  }
+
+  private static Map<String, Object> summarize(
+      int rows, int failed, List<Long> latencies, long elapsedNanos, Path output) {
+    double[] sorted = latencies.stream().mapToDouble(Long::doubleValue).sorted().toArray();
+    double minutes = elapsedNanos / 60_000_000_000.0;
+
+    Map<String, Object> latency = new LinkedHashMap<>();
+    for (double percentile : PERCENTILES) {
+      latency.put("p" + Math.round(percentile * 100), percentile(sorted, percentile));
+    }
+    latency.put("max", sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+    latency.put("mean", Arrays.stream(sorted).average().orElse(0));
+
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("rows", rows);
+    summary.put("passed", rows - failed);
+    summary.put("failed", failed);
+    summary.put("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    summary.put("rowsPerMinute", minutes == 0 ? 0 : Math.round(rows / minutes * 10) / 10.0);
+    summary.put("latencyMillis", latency);
+    summary.put("output", output.toString());
+    return summary;
+  }
+
+  // Nearest-rank percentile of sorted values, as in TimingPlugin
+  private static double percentile(double[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(quantile * sorted.length);
+    return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+  }
+
+  private static String toJsonLine(Object value) {
+    StringWriter line = new StringWriter();
+    try (JsonOutput json = new Json().newOutput(line)) {
+      json.setPrettyPrint(false).write(value);
+    }
+    return line.toString();
+  }
+
+  private static void write(Path file, String content) {
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      Files.writeString(file, content, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write " + file, e);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package runners;
+
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.PriorityQueue;
+import org.openqa.selenium.json.Json;
+
+// Orders the scenarios of TestRunner longest-first by their ScenarioDurationHistory, so that the
+// data provider pool starts the slow scenarios first and ends on short ones, and splits them over
+// shards with the longest-processing-time rule: each scenario, longest first, goes to the shard
+// with the least expected time so far. Every node computes the same plan from the same history and
+// keeps only its own shard. Configured with system properties:
+//   shard.total - number of nodes or forks the suite is split over (default 1)
+//   shard.index - the shard this node runs, 0 to shard.total - 1 (default 0)
+//   shard.plan  - file the plan of all shards is written to
+//                 (default target/metrics/shard-plan.json)
+// Scenarios without history are expected to take the average of the known ones.
+public final class ShardPlanner {
+
+  public record PlannedScenario(String key, double expectedMillis, boolean known) {}
+
+  public record Shard(int index, double expectedMillis, List<PlannedScenario> scenarios) {}
+
+  private final ScenarioDurationHistory history;
+  private final int shardIndex;
+  private final int shardTotal;
+
+  public ShardPlanner(ScenarioDurationHistory history, int shardIndex, int shardTotal) {
+    if (shardTotal < 1 || shardIndex < 0 || shardIndex >= shardTotal) {
+      throw new IllegalArgumentException(
+          "shard.index must be between 0 and shard.total - 1, got "
+              + shardIndex
+              + " of "
+              + shardTotal);
+    }
+    this.history = history;
+    this.shardIndex = shardIndex;
+    this.shardTotal = shardTotal;
+  }
+
+  public static ShardPlanner fromSystemProperties() {
+    return new ShardPlanner(
+        ScenarioDurationHistory.load(ScenarioDurationHistory.defaultFile()),
+        Integer.getInteger("shard.index", 0),
+        Integer.getInteger("shard.total", 1));
+  }
+
+  // The data provider rows of this shard, longest first. Each row is {PickleWrapper,
+  // FeatureWrapper} as returned by AbstractTestNGCucumberTests.scenarios().
+  public Object[][] select(Object[][] scenarios) {
+    List<String> keys = new ArrayList<>(scenarios.length);
+    for (Object[] scenario : scenarios) {
+      Pickle pickle = ((PickleWrapper) scenario[0]).getPickle();
+      keys.add(ScenarioDurationHistory.key(pickle.getUri(), pickle.getName()));
+    }
+
+    List<Shard> shards = plan(keys);
+    Shard shard = shards.get(shardIndex);
+    writePlan(shards);
+    System.out.printf(
+        "Running shard %d of %d: %d of %d scenario(s), %.1f s expected (longest shard %.1f s).%n",
+        shardIndex,
+        shardTotal,
+        shard.scenarios().size(),
+        scenarios.length,
+        shard.expectedMillis() / 1000,
+        shards.stream().mapToDouble(Shard::expectedMillis).max().orElse(0) / 1000);
+
+    // Rows that share a key (outline examples) are taken in their original order
+    List<Object[]> selected = new ArrayList<>(shard.scenarios().size());
+    boolean[] taken = new boolean[scenarios.length];
+    for (PlannedScenario planned : shard.scenarios()) {
+      int row = indexOf(keys, planned.key(), taken);
+      taken[row] = true;
+      selected.add(scenarios[row]);
+    }
+    return selected.toArray(new Object[0][]);
+  }
+
+  // One shard per node, each with its scenarios longest first. Ties are broken by key so that the
+  // plan does not depend on the order the features were read in.
+  public List<Shard> plan(List<String> keys) {
+    OptionalDouble knownAverage =
+        keys.stream()
+            .map(history::expectedMillis)
+            .filter(OptionalDouble::isPresent)
+            .mapToDouble(OptionalDouble::getAsDouble)
+            .average();
+    double unknownMillis = knownAverage.orElse(1);
+
+    List<PlannedScenario> scenarios = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      OptionalDouble expected = history.expectedMillis(key);
+      scenarios.add(new PlannedScenario(key, expected.orElse(unknownMillis), expected.isPresent()));
+    }
+    scenarios.sort(
+        Comparator.comparingDouble(PlannedScenario::expectedMillis)
+            .reversed()
+            .thenComparing(PlannedScenario::key));
+
+    List<List<PlannedScenario>> assigned = new ArrayList<>(shardTotal);
+    double[] totals = new double[shardTotal];
+    PriorityQueue<Integer> leastLoaded =
+        new PriorityQueue<>(
+            Comparator.<Integer>comparingDouble(index -> totals[index])
+                .thenComparingInt(index -> index));
+    for (int i = 0; i < shardTotal; i++) {
+      assigned.add(new ArrayList<>());
+      leastLoaded.add(i);
+    }
+    for (PlannedScenario scenario : scenarios) {
+      int index = leastLoaded.poll();
+      assigned.get(index).add(scenario);
+      totals[index] += scenario.expectedMillis();
+      leastLoaded.add(index);
+    }
+
+    List<Shard> shards = new ArrayList<>(shardTotal);
+    for (int i = 0; i < shardTotal; i++) {
+      shards.add(new Shard(i, totals[i], List.copyOf(assigned.get(i))));
+    }
+    return shards;
+  }
+
+  private static int indexOf(List<String> keys, String key, boolean[] taken) {
+    for (int i = 0; i < keys.size(); i++) {
+      if (!taken[i] && keys.get(i).equals(key)) {
+        return i;
+      }
+    }
+    throw new IllegalStateException("Planned scenario not found: " + key);
+  }
+
+  private void writePlan(List<Shard> shards) {
+    List<Map<String, Object>> plan = new ArrayList<>();
+    for (Shard shard : shards) {
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("shard", shard.index());
+      entry.put("expectedMillis", Math.round(shard.expectedMillis()));
+      entry.put(
+          "scenarios",
+          shard.scenarios().stream()
+              .map(
+                  scenario -> {
+                    Map<String, Object> planned = new LinkedHashMap<>();
+                    planned.put("scenario", scenario.key());
+                    planned.put("expectedMillis", Math.round(scenario.expectedMillis()));
+                    planned.put("fromHistory", scenario.known());
+                    return planned;
+                  })
+              .toList());
+      plan.add(entry);
+    }
+
+    Path file = Path.of(System.getProperty("shard.plan", "target/metrics/shard-plan.json"));
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      Files.writeString(file, new Json().toJson(plan), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the shard plan to " + file, e);
+    }
+  }
+}
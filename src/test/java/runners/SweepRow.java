@@ -0,0 +1,203 @@
+package runners;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import org.openqa.selenium.json.Json;
+
+// One search of a SearchSweep: where, when (days from today and number of nights), who and the
+// extra filters to apply on the results page. Read from a CSV file with a header line
+//   location,checkInOffset,nights,adults,children,filters
+// or from a JSON array of objects with the same fields. The filters are separated by ';', e.g.
+// "bedrooms=5;pool", and may be a JSON array of strings as well.
+public record SweepRow(
+    int line,
+    String location,
+    int checkInOffset,
+    int nights,
+    int adults,
+    int children,
+    int bedrooms,
+    boolean pool) {
+
+  private static final List<String> COLUMNS =
+      List.of("location", "checkInOffset", "nights", "adults", "children", "filters");
+
+  public SweepRow {
+    if (location == null || location.isBlank()) {
+      throw new IllegalArgumentException("Row " + line + ": the location is missing");
+    }
+    if (checkInOffset < 0 || nights < 1 || adults < 1 || children < 0 || bedrooms < 0) {
+      throw new IllegalArgumentException(
+          "Row "
+              + line
+              + ": checkInOffset and children must be at least 0, nights and adults at least 1");
+    }
+  }
+
+  public int guests() {
+    return adults + children;
+  }
+
+  public boolean hasExtraFilters() {
+    return bedrooms > 0 || pool;
+  }
+
+  public static List<SweepRow> read(Path file) {
+    String content;
+    try {
+      content = Files.readString(file, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the sweep input " + file, e);
+    }
+    return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")
+        ? fromJson(content)
+        : fromCsv(content);
+  }
+
+  static List<SweepRow> fromCsv(String content) {
+    List<SweepRow> rows = new ArrayList<>();
+    List<String> header = null;
+    String[] lines = content.split("\r?\n");
+    for (int i = 0; i < lines.length; i++) {
+      String line = lines[i].trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      List<String> cells = splitCsvLine(line);
+      if (header == null) {
+        header = cells;
+        if (!header.containsAll(COLUMNS.subList(0, 5))) {
+          throw new IllegalArgumentException(
+              "The sweep CSV header must name the columns " + COLUMNS + ", found " + header);
+        }
+        continue;
+      }
+
+      int lineNumber = i + 1;
+      List<String> columns = header;
+      Function<String, String> cell =
+          column -> {
+            int index = columns.indexOf(column);
+            return index < 0 || index >= cells.size() ? "" : cells.get(index);
+          };
+      rows.add(
+          toRow(
+              lineNumber,
+              cell.apply("location"),
+              number(lineNumber, cell.apply("checkInOffset"), 7),
+              number(lineNumber, cell.apply("nights"), 7),
+              number(lineNumber, cell.apply("adults"), 1),
+              number(lineNumber, cell.apply("children"), 0),
+              Arrays.asList(cell.apply("filters").split(";"))));
+    }
+    return List.copyOf(rows);
+  }
+
+  static List<SweepRow> fromJson(String content) {
+    Object parsed = new Json().toType(content, Object.class);
+    if (!(parsed instanceof List<?> entries)) {
+      throw new IllegalArgumentException("The sweep JSON must be an array of rows");
+    }
+
+    List<SweepRow> rows = new ArrayList<>(entries.size());
+    for (int i = 0; i < entries.size(); i++) {
+      if (!(entries.get(i) instanceof Map<?, ?> entry)) {
+        throw new IllegalArgumentException(
+            "Row " + (i + 1) + " of the sweep JSON is not an object");
+      }
+      Object filters = entry.get("filters");
+      List<String> filterList =
+          filters instanceof List<?> list
+              ? list.stream().map(String::valueOf).toList()
+              : filters == null ? List.of() : Arrays.asList(String.valueOf(filters).split(";"));
+      rows.add(
+          toRow(
+              i + 1,
+              entry.get("location") == null ? "" : String.valueOf(entry.get("location")),
+              number(i + 1, entry.get("checkInOffset"), 7),
+              number(i + 1, entry.get("nights"), 7),
+              number(i + 1, entry.get("adults"), 1),
+              number(i + 1, entry.get("children"), 0),
+              filterList));
+    }
+    return List.copyOf(rows);
+  }
+
+  private static SweepRow toRow(
+      int line,
+      String location,
+      int checkInOffset,
+      int nights,
+      int adults,
+      int children,
+      List<String> filters) {
+    int bedrooms = 0;
+    boolean pool = false;
+    for (String filter : filters) {
+      String[] parts = filter.trim().toLowerCase(Locale.ROOT).split("=", 2);
+      switch (parts[0].trim()) {
+        case "" -> {}
+        case "bedrooms" -> bedrooms = number(line, parts.length > 1 ? parts[1].trim() : "", 0);
+        case "pool" -> pool = parts.length == 1 || Boolean.parseBoolean(parts[1].trim());
+        default ->
+            throw new IllegalArgumentException(
+                "Row " + line + ": unknown filter " + filter.trim() + ", use bedrooms=<n> or pool");
+      }
+    }
+    return new SweepRow(
+        line, location.trim(), checkInOffset, nights, adults, children, bedrooms, pool);
+  }
+
+  private static int number(int line, Object value, int defaultValue) {
+    if (value instanceof Number number) {
+      return number.intValue();
+    }
+    String text = value == null ? "" : String.valueOf(value).trim();
+    if (text.isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(text);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Row " + line + ": not a number: " + text, e);
+    }
+  }
+
+  // Splits one CSV line, with double-quoted cells that may contain commas and "" escapes
+  private static List<String> splitCsvLine(String line) {
+    List<String> cells = new ArrayList<>();
+    StringBuilder cell = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          cell.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          cell.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        cells.add(cell.toString().trim());
+        cell.setLength(0);
+      } else {
+        cell.append(c);
+      }
+    }
+    cells.add(cell.toString().trim());
+    return cells;
+  }
+}
@@ -2,9 +2,27 @@ package runners;
 
 import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
+import org.testng.annotations.DataProvider;
 
 @CucumberOptions(
     features = "src/test/resources/features",
     glue = {"stepDefinition"},
-    plugin = {"pretty", "html:target/cucumber-reports.html"})
-public class TestRunner extends AbstractTestNGCucumberTests {}
+    plugin = {
+      "pretty",
+      "html:target/cucumber-reports.html",
+      "json:target/cucumber.json",
+      "runners.TimingPlugin:target/metrics",
+      "runners.DurationHistoryPlugin"
+    })
+public class TestRunner extends AbstractTestNGCucumberTests {
+
+  // Runs scenarios on a TestNG data provider thread pool. The pool size is set by the
+  // `dataproviderthreadcount` property in the pom.xml (mvn test -Dparallel.threads=8).
+  // The ShardPlanner keeps the scenarios of this node's shard (-Dshard.index, -Dshard.total) and
+  // hands them out longest first, from the durations of previous runs.
+  @Override
+  @DataProvider(parallel = true)
+  public Object[][] scenarios() {
+    return ShardPlanner.fromSystemProperties().select(super.scenarios());
+  }
+}
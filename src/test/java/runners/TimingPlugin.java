@@ -0,0 +1,268 @@
+package runners;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestSourceRead;
+import io.cucumber.plugin.event.TestStep;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openqa.selenium.json.Json;
+import utils.WebDriverCommandCounter;
+
+// Cucumber plugin that records the duration of every scenario and step (hooks included) and the
+// number of WebDriver commands each one issued. When the run finishes the samples are aggregated
+// per feature/scenario/step into p50/p95/p99 summaries and written to the output directory as
+// timings.json and timings.prom (Prometheus text format). Registered in TestRunner as
+// "runners.TimingPlugin:target/metrics".
+public class TimingPlugin implements ConcurrentEventListener {
+
+  private static final Pattern FEATURE_NAME = Pattern.compile("(?m)^\\s*Feature:\\s*(.+?)\\s*$");
+  private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+  // Durations in milliseconds and command counts of one metric, for one set of labels
+  private static final class Samples {
+    private final List<Double> millis = new ArrayList<>();
+    private final List<Long> commands = new ArrayList<>();
+
+    synchronized void add(double durationMillis, long commandCount) {
+      millis.add(durationMillis);
+      commands.add(commandCount);
+    }
+
+    synchronized double[] millis() {
+      return millis.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+    }
+
+    synchronized double[] commands() {
+      return commands.stream().mapToDouble(Long::doubleValue).sorted().toArray();
+    }
+  }
+
+  private record Labels(String feature, String scenario, String step) {}
+
+  private final Path outputDirectory;
+  private final Map<URI, String> featureNames = new ConcurrentHashMap<>();
+  private final Map<UUID, Long> stepStartCommands = new ConcurrentHashMap<>();
+  private final Map<UUID, Long> scenarioCommands = new ConcurrentHashMap<>();
+  private final Map<Labels, Samples> stepSamples = new ConcurrentHashMap<>();
+  private final Map<Labels, Samples> scenarioSamples = new ConcurrentHashMap<>();
+
+  public TimingPlugin(String outputDirectory) {
+    this.outputDirectory = Path.of(outputDirectory);
+  }
+
+  @Override
+  public void setEventPublisher(EventPublisher publisher) {
+    publisher.registerHandlerFor(TestSourceRead.class, this::onSourceRead);
+    publisher.registerHandlerFor(TestStepStarted.class, this::onStepStarted);
+    publisher.registerHandlerFor(TestStepFinished.class, this::onStepFinished);
+    publisher.registerHandlerFor(TestCaseFinished.class, this::onScenarioFinished);
+    publisher.registerHandlerFor(TestRunFinished.class, event -> write());
+  }
+
+  private void onSourceRead(TestSourceRead event) {
+    Matcher matcher = FEATURE_NAME.matcher(event.getSource());
+    featureNames.put(event.getUri(), matcher.find() ? matcher.group(1) : event.getUri().toString());
+  }
+
+  // Step events are published on the thread running the scenario, which is also the thread the
+  // command counter counts on
+  private void onStepStarted(TestStepStarted event) {
+    stepStartCommands.put(event.getTestCase().getId(), WebDriverCommandCounter.getCount());
+  }
+
+  private void onStepFinished(TestStepFinished event) {
+    TestCase testCase = event.getTestCase();
+    Long startCommands = stepStartCommands.remove(testCase.getId());
+    long commands = startCommands == null ? 0 : WebDriverCommandCounter.getCount() - startCommands;
+    scenarioCommands.merge(testCase.getId(), commands, Long::sum);
+
+    stepSamples
+        .computeIfAbsent(
+            new Labels(featureName(testCase), testCase.getName(), stepText(event.getTestStep())),
+            labels -> new Samples())
+        .add(toMillis(event.getResult().getDuration()), commands);
+  }
+
+  private void onScenarioFinished(TestCaseFinished event) {
+    TestCase testCase = event.getTestCase();
+    Long commands = scenarioCommands.remove(testCase.getId());
+    scenarioSamples
+        .computeIfAbsent(
+            new Labels(featureName(testCase), testCase.getName(), null), labels -> new Samples())
+        .add(toMillis(event.getResult().getDuration()), commands == null ? 0 : commands);
+  }
+
+  private String featureName(TestCase testCase) {
+    return featureNames.getOrDefault(testCase.getUri(), testCase.getUri().toString());
+  }
+
+  private static String stepText(TestStep step) {
+    if (step instanceof PickleStepTestStep pickleStep) {
+      return pickleStep.getStep().getKeyword().trim() + " " + pickleStep.getStep().getText();
+    }
+    if (step instanceof HookTestStep hookStep) {
+      return hookStep.getHookType().name().toLowerCase(Locale.ROOT)
+          + " hook "
+          + step.getCodeLocation();
+    }
+    return step.getCodeLocation();
+  }
+
+  private static double toMillis(Duration duration) {
+    return duration.toNanos() / 1_000_000.0;
+  }
+
+  private void write() {
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("scenarios", toJson(scenarioSamples));
+    report.put("steps", toJson(stepSamples));
+
+    StringBuilder prometheus = new StringBuilder();
+    appendPrometheus(
+        prometheus,
+        "cucumber_scenario_duration_seconds",
+        "Duration of each scenario",
+        scenarioSamples,
+        true);
+    appendPrometheus(
+        prometheus,
+        "cucumber_scenario_webdriver_commands",
+        "WebDriver commands issued by each scenario",
+        scenarioSamples,
+        false);
+    appendPrometheus(
+        prometheus, "cucumber_step_duration_seconds", "Duration of each step", stepSamples, true);
+    appendPrometheus(
+        prometheus,
+        "cucumber_step_webdriver_commands",
+        "WebDriver commands issued by each step",
+        stepSamples,
+        false);
+
+    try {
+      Files.createDirectories(outputDirectory);
+      Files.writeString(
+          outputDirectory.resolve("timings.json"),
+          new Json().toJson(report),
+          StandardCharsets.UTF_8);
+      Files.writeString(
+          outputDirectory.resolve("timings.prom"), prometheus.toString(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the timing metrics to " + outputDirectory, e);
+    }
+
+    System.out.println(
+        "Timing metrics for "
+            + scenarioSamples.size()
+            + " scenario(s) and "
+            + stepSamples.size()
+            + " step(s) written to "
+            + outputDirectory);
+  }
+
+  private static List<Map<String, Object>> toJson(Map<Labels, Samples> samples) {
+    List<Map<String, Object>> entries = new ArrayList<>();
+    samples.forEach(
+        (labels, values) -> {
+          Map<String, Object> entry = new LinkedHashMap<>();
+          entry.put("feature", labels.feature());
+          entry.put("scenario", labels.scenario());
+          if (labels.step() != null) {
+            entry.put("step", labels.step());
+          }
+          double[] millis = values.millis();
+          entry.put("count", millis.length);
+          entry.put("durationMillis", summary(millis));
+          entry.put("webDriverCommands", summary(values.commands()));
+          entries.add(entry);
+        });
+    return entries;
+  }
+
+  private static Map<String, Object> summary(double[] sorted) {
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("p50", percentile(sorted, 0.5));
+    summary.put("p95", percentile(sorted, 0.95));
+    summary.put("p99", percentile(sorted, 0.99));
+    summary.put("max", sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+    summary.put("sum", Arrays.stream(sorted).sum());
+    return summary;
+  }
+
+  private static void appendPrometheus(
+      StringBuilder output,
+      String name,
+      String help,
+      Map<Labels, Samples> samples,
+      boolean durations) {
+    output.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    output.append("# TYPE ").append(name).append(" summary\n");
+    samples.forEach(
+        (labels, values) -> {
+          double[] sorted = durations ? values.millis() : values.commands();
+          double scale = durations ? 1000.0 : 1.0;
+          String labelText = prometheusLabels(labels);
+          for (double quantile : QUANTILES) {
+            output
+                .append(name)
+                .append('{')
+                .append(labelText)
+                .append(",quantile=\"")
+                .append(quantile)
+                .append("\"} ")
+                .append(percentile(sorted, quantile) / scale)
+                .append('\n');
+          }
+          output.append(name).append("_sum{").append(labelText).append("} ");
+          output.append(Arrays.stream(sorted).sum() / scale).append('\n');
+          output.append(name).append("_count{").append(labelText).append("} ");
+          output.append(sorted.length).append('\n');
+        });
+  }
+
+  private static String prometheusLabels(Labels labels) {
+    String text =
+        "feature=\""
+            + escapeLabel(labels.feature())
+            + "\",scenario=\""
+            + escapeLabel(labels.scenario())
+            + "\"";
+    return labels.step() == null ? text : text + ",step=\"" + escapeLabel(labels.step()) + "\"";
+  }
+
+  private static String escapeLabel(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  // Nearest-rank percentile of sorted values
+  private static double percentile(double[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(quantile * sorted.length);
+    return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+  }
+}
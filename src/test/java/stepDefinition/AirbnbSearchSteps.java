@@ -1,19 +1,37 @@
 package stepDefinition;
 
+import fixtures.FixtureServer;
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
 import io.cucumber.java.Before;
+import io.cucumber.java.BeforeAll;
+import io.cucumber.java.Scenario;
 import io.cucumber.java.en.And;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
-import io.github.bonigarcia.wdm.WebDriverManager;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
 import pages.AirbnbHomePage;
 import pages.AirbnbResultsPage;
+import pages.SearchForm.GuestType;
+import utils.BrowserProfile;
+import utils.DomSnapshot;
+import utils.DriverFactory;
+import utils.ListingStore;
+import utils.ListingStore.SearchContext;
+import utils.LocatorRegistry;
+import utils.NetworkCapture;
+import utils.PageCommandTracker;
+import utils.PageCommandTracker.CommandReport;
+import utils.SearchUrlBuilder;
+import utils.SiteConfig;
 import utils.WebdriverWaitUtil;
 
+// Cucumber creates a new instance of this class for every scenario, on the thread that runs the
+// scenario, so the page objects and wait util below are never shared between parallel scenarios.
 public class AirbnbSearchSteps {
   WebDriver driver;
   AirbnbHomePage homePage;
@@ -23,19 +41,50 @@ public class AirbnbSearchSteps {
   LocalDate checkOutDate;
   int guestCount = 0;
   String location;
+  NetworkCapture networkCapture;
+
+  private static FixtureServer fixtureServer;
+
+  @BeforeAll
+  public static void loadLocators() {
+    // Fail fast on an invalid locators.properties before any browser is started
+    LocatorRegistry.getInstance();
+  }
+
+  @BeforeAll
+  public static void startFixtureServer() {
+    // With -Dfixture.mode=true the scenarios run against the recorded pages on localhost
+    if (Boolean.getBoolean("fixture.mode")) {
+      fixtureServer = FixtureServer.start(Integer.getInteger("fixture.port", 0));
+      System.setProperty("base.url", fixtureServer.getBaseUrl());
+    }
+  }
+
+  @AfterAll
+  public static void stopFixtureServer() {
+    if (fixtureServer != null) {
+      fixtureServer.stop();
+      fixtureServer = null;
+    }
+  }
 
   @Before
-  public void setup() {
-    WebDriverManager.chromedriver().setup();
-    driver = new ChromeDriver();
-    driver.manage().window().maximize();
-    driver.manage().deleteAllCookies();
+  public void setup(Scenario scenario) {
+    // A @profile:<name> tag on the feature or scenario selects the browser profile
+    driver = DriverFactory.startDriver(BrowserProfile.forTags(scenario.getSourceTagNames()));
     waitUtil = new WebdriverWaitUtil(driver);
+
+    // With -Dnetwork.capture=true, or on a @networkCapture scenario, the results page checks read
+    // the JSON the pages load
+    if (Boolean.getBoolean("network.capture")
+        || scenario.getSourceTagNames().contains("@networkCapture")) {
+      networkCapture = NetworkCapture.install(driver);
+    }
   }
 
   @Given("The user navigates to Airbnb.com website")
   public void navigateToAirbnb() {
-    driver.get("https://www.airbnb.com/");
+    driver.get(SiteConfig.getBaseUrl());
     homePage = new AirbnbHomePage(driver, waitUtil);
   }
 
@@ -69,10 +118,81 @@ public class AirbnbSearchSteps {
     homePage.addGuests(adults, children);
   }
 
+  // Fills the whole search form with one browser call, see SearchForm
+  @When(
+      "The user fills in the search form for {string} checking in {int} days from today for {int}"
+          + " nights with {int} adults, {int} child(ren), {int} infant(s) and {int} pet(s)")
+  public void theUserFillsInTheSearchForm(
+      String locationInput,
+      int checkInOffset,
+      int nights,
+      int adults,
+      int children,
+      int infants,
+      int pets) {
+    this.location = locationInput.split(",")[0];
+    checkInDate = LocalDate.now().plusDays(checkInOffset);
+    checkOutDate = checkInDate.plusDays(nights);
+    // Infants and pets are not counted as guests by the site
+    guestCount = adults + children;
+
+    homePage
+        .searchForm()
+        .location(locationInput)
+        .dates(checkInDate, checkOutDate)
+        .guests(GuestType.ADULTS, adults)
+        .guests(GuestType.CHILDREN, children)
+        .guests(GuestType.INFANTS, infants)
+        .guests(GuestType.PETS, pets)
+        .apply();
+  }
+
+  // Opens the results page straight from the search URL, for scenarios that are not about the form
+  @Given(
+      "The user opens the search results for {string} checking in {int} days from today for {int}"
+          + " nights with {int} adults and {int} child(ren)")
+  public void theUserOpensTheSearchResults(
+      String locationInput, int checkInOffset, int nights, int adults, int children) {
+    openSearchResults(locationInput, checkInOffset, nights, adults, children, 0, false);
+  }
+
+  @Given(
+      "The user opens the search results for {string} checking in {int} days from today for {int}"
+          + " nights with {int} adults, {int} child(ren), at least {int} bedrooms and Pool")
+  public void theUserOpensTheSearchResultsWithExtraFilters(
+      String locationInput, int checkInOffset, int nights, int adults, int children, int bedrooms) {
+    openSearchResults(locationInput, checkInOffset, nights, adults, children, bedrooms, true);
+  }
+
+  private void openSearchResults(
+      String locationInput,
+      int checkInOffset,
+      int nights,
+      int adults,
+      int children,
+      int bedrooms,
+      boolean pool) {
+    this.location = locationInput.split(",")[0];
+    checkInDate = LocalDate.now().plusDays(checkInOffset);
+    checkOutDate = checkInDate.plusDays(nights);
+    guestCount = adults + children;
+
+    SearchUrlBuilder search =
+        SearchUrlBuilder.forLocation(locationInput)
+            .dates(checkInDate, checkOutDate)
+            .guests(adults, children, 0, 0)
+            .minBedrooms(bedrooms);
+    if (pool) {
+      search.pool();
+    }
+    resultsPage = new AirbnbResultsPage(driver, waitUtil, networkCapture != null);
+    resultsPage.openSearchResults(search);
+  }
+
   @And("The user searches for results")
   public void theUserSearchesForResults() {
     homePage.searchForResults();
-    resultsPage = new AirbnbResultsPage(driver, waitUtil);
+    resultsPage = new AirbnbResultsPage(driver, waitUtil, networkCapture != null);
     resultsPage.waitForResultsHeaderToContainText();
   }
 
@@ -106,6 +226,13 @@ public class AirbnbSearchSteps {
         : "Not all properties can accommodate the required number of guests.";
   }
 
+  @And(
+      "Verify that the properties displayed on every results page can accommodate at least the selected number of guests")
+  public void verifyPropertiesOnEveryPageCanAccommodateGuests() {
+    assert resultsPage.verifyAllPagesAccommodateGuests(guestCount)
+        : "Not all properties can accommodate the required number of guests.";
+  }
+
   @And("The user clicks on More filters")
   public void theUserClicksOnMoreFilters() {
     resultsPage.clickMoreFilters();
@@ -134,6 +261,14 @@ public class AirbnbSearchSteps {
     assert result : "Some properties do not meet the filter criteria.";
   }
 
+  @Then(
+      "Verify that the properties displayed on every results page have at least the selected number of bedrooms")
+  public void verifyPropertiesOnEveryPageHaveAtLeastTheSelectedBedrooms() {
+    int requiredBedrooms = resultsPage.getRequiredBedrooms();
+    assert resultsPage.verifyAllPagesHaveAtLeastBedrooms(requiredBedrooms)
+        : "Some properties do not meet the filter criteria.";
+  }
+
   @And("The user opens the details of the first property")
   public void theUserOpensTheDetailsOfTheFirstProperty() {
     resultsPage.openFirstProperty();
@@ -144,6 +279,12 @@ public class AirbnbSearchSteps {
     resultsPage.verifyPoolInAmenities();
   }
 
+  // Leaves the network checks without a search response, so they fall back to the page
+  @And("No search response has been recorded on the results page")
+  public void noSearchResponseHasBeenRecorded() {
+    NetworkCapture.clear(driver);
+  }
+
   @And("The user hovers over the first property in the results list")
   public void theUserHoversOverFirstProperty() {
     // Hover over the first listing
@@ -169,9 +310,68 @@ public class AirbnbSearchSteps {
   }
 
   @After
-  public void tearDown() {
-    if (driver != null) {
-      driver.quit();
+  public void tearDown(Scenario scenario) {
+    CommandReport commandReport = PageCommandTracker.finishScenario();
+    try {
+      if (scenario.isFailed()) {
+        saveFailureSnapshot(scenario);
+      }
+    } finally {
+      uninstallNetworkCapture();
+      DriverFactory.releaseDriver();
+      storeListings(scenario);
+    }
+
+    // Fails the scenario when a page method went over its @CommandBudget, unless the budgets are
+    // only reported (-Dcommand.budget.enforce=false)
+    System.out.print(commandReport);
+    if (!commandReport.withinBudget()
+        && Boolean.parseBoolean(System.getProperty("command.budget.enforce", "true"))) {
+      throw new AssertionError(
+          "WebDriver command budget exceeded:\n" + String.join("\n", commandReport.violations()));
+    }
+  }
+
+  // With -Dlisting.store.dir=<dir> the listings extracted by the scenario are kept for cross-run
+  // analysis, see ListingStoreReader
+  private void storeListings(Scenario scenario) {
+    try {
+      ListingStore.flush(
+          new SearchContext(
+              scenario.getName(),
+              scenario.getStatus().name(),
+              location,
+              checkInDate,
+              checkOutDate,
+              guestCount));
+    } catch (RuntimeException e) {
+      System.out.println("Unable to store the extracted listings: " + e.getMessage());
+    }
+  }
+
+  private void uninstallNetworkCapture() {
+    if (networkCapture != null) {
+      try {
+        networkCapture.uninstall();
+      } catch (RuntimeException e) {
+        System.out.println("Unable to remove the network recorder: " + e.getMessage());
+      }
+    }
+  }
+
+  // Keeps the DOM of the page the scenario failed on, in target/snapshots and in the report
+  private void saveFailureSnapshot(Scenario scenario) {
+    try {
+      DomSnapshot snapshot = DomSnapshot.capture(driver);
+      Path file =
+          snapshot.save(
+              Path.of(System.getProperty("snapshot.dir", "target/snapshots")), scenario.getName());
+      scenario.attach(
+          snapshot.getHtml().getBytes(StandardCharsets.UTF_8), "text/html", "DOM snapshot");
+      System.out.println("DOM snapshot of the failed scenario saved to " + file);
+    } catch (RuntimeException e) {
+      System.out.println(
+          "Unable to capture a DOM snapshot of the failed scenario: " + e.getMessage());
     }
   }
 }
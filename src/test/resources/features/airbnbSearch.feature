@@ -1,3 +1,4 @@
+@profile:lean
 Feature: Airbnb search functionality
 
   Scenario: Verify that the results match the search criteria
@@ -8,4 +9,10 @@ Feature: Airbnb search functionality
     And The user adds 2 adults and 1 child as guests
     And The user searches for results
     Then Verify that the applied filters are correct
-    And Verify that the properties displayed on the first page can accommodate at least the selected number of guests
\ No newline at end of file
+    And Verify that the properties displayed on the first page can accommodate at least the selected number of guests
+
+  Scenario: Verify that the results on every page match the search criteria
+    Given The user navigates to Airbnb.com website
+    When The user fills in the search form for "Rome, Italy" checking in 7 days from today for 7 nights with 2 adults, 1 child, 0 infants and 0 pets
+    And The user searches for results
+    Then Verify that the properties displayed on every results page can accommodate at least the selected number of guests
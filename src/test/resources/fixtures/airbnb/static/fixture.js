@@ -0,0 +1,572 @@
+// Client side of the offline fixture pages. Reproduces the parts of the Airbnb UI the scenarios
+// interact with (search form, date picker, guest steppers, results list, map pins, filters and the
+// listing page) and renders them from the recorded StaysSearch / StaysPdpSections responses.
+(function () {
+  'use strict';
+
+  const MONTHS = ['Jan', 'Feb', 'Mar', 'Apr', 'May', 'Jun', 'Jul', 'Aug', 'Sep', 'Oct', 'Nov',
+    'Dec'];
+  const FULL_MONTHS = ['January', 'February', 'March', 'April', 'May', 'June', 'July', 'August',
+    'September', 'October', 'November', 'December'];
+  const WEEKDAYS = ['Sunday', 'Monday', 'Tuesday', 'Wednesday', 'Thursday', 'Friday',
+    'Saturday'];
+  const AMENITY_GROUPS = {
+    'Wifi': 'Internet and office',
+    'Kitchen': 'Kitchen and dining',
+    'Air conditioning': 'Heating and cooling',
+    'Washer': 'Bedroom and laundry',
+    'Hot tub': 'Parking and facilities',
+    'Pool': 'Parking and facilities',
+    'Free parking on premises': 'Parking and facilities'
+  };
+
+  // ---- helpers ----
+
+  function element(tag, attributes, children) {
+    const node = document.createElement(tag);
+    Object.entries(attributes || {}).forEach(([name, value]) => {
+      if (value !== null && value !== undefined) node.setAttribute(name, value);
+    });
+    (children || []).forEach((child) => {
+      node.append(typeof child === 'string' ? document.createTextNode(child) : child);
+    });
+    return node;
+  }
+
+  function pad(value) {
+    return value < 10 ? '0' + value : String(value);
+  }
+
+  function today() {
+    const now = new Date();
+    return new Date(now.getFullYear(), now.getMonth(), now.getDate());
+  }
+
+  function isoDate(date) {
+    return date.getFullYear() + '-' + pad(date.getMonth() + 1) + '-' + pad(date.getDate());
+  }
+
+  function parseIsoDate(text) {
+    const match = /^(\d{4})-(\d{2})-(\d{2})$/.exec(text || '');
+    return match ? new Date(+match[1], +match[2] - 1, +match[3]) : null;
+  }
+
+  function sameDay(first, second) {
+    return !!first && !!second && first.getTime() === second.getTime();
+  }
+
+  function monthDay(date) {
+    return MONTHS[date.getMonth()] + ' ' + date.getDate();
+  }
+
+  // "Oct 19 – 26", "Oct 19 – Nov 3" or "Dec 28, 2026 – Jan 4, 2027", as in the little search bar
+  function formatDateRange(checkIn, checkOut) {
+    if (checkIn.getFullYear() !== checkOut.getFullYear()) {
+      return monthDay(checkIn) + ', ' + checkIn.getFullYear() + ' – ' + monthDay(checkOut) + ', '
+          + checkOut.getFullYear();
+    }
+    if (checkIn.getMonth() === checkOut.getMonth()) {
+      return monthDay(checkIn) + ' – ' + checkOut.getDate();
+    }
+    return monthDay(checkIn) + ' – ' + monthDay(checkOut);
+  }
+
+  function plural(count, noun) {
+    return count + ' ' + noun + (count === 1 ? '' : 's');
+  }
+
+  function guestsSummary(counts) {
+    const guests = counts.adults + counts.children;
+    if (guests === 0) return 'Add guests';
+    const parts = [plural(guests, 'guest')];
+    if (counts.infants > 0) parts.push(plural(counts.infants, 'infant'));
+    if (counts.pets > 0) parts.push(counts.pets === 1 ? '1 pet' : counts.pets + ' pets');
+    return parts.join(', ');
+  }
+
+  function fetchJson(url) {
+    return fetch(url, {headers: {'Accept': 'application/json'}}).then((response) => {
+      if (!response.ok) throw new Error('Request failed with status ' + response.status + ': ' + url);
+      return response.json();
+    });
+  }
+
+  // ---- home page ----
+
+  function initHome() {
+    const form = document.querySelector('.search-form');
+    const locationInput = document.getElementById('bigsearch-query-location-input');
+    const checkInPanel = form.querySelector('[data-testid="structured-search-input-field-split-dates-0"]');
+    const checkOutPanel = form.querySelector('[data-testid="structured-search-input-field-split-dates-1"]');
+    const guestsPanel = form.querySelector('[data-testid="structured-search-input-field-guests-button"]');
+    const calendar = form.querySelector('[data-testid="structured-search-input-field-dates-panel"]');
+    const guestsPopover = form.querySelector('[data-testid="structured-search-input-field-guests-panel"]');
+    const state = {checkIn: null, checkOut: null,
+      counts: {adults: 0, children: 0, infants: 0, pets: 0}};
+
+    function open(popover) {
+      calendar.hidden = popover !== calendar;
+      guestsPopover.hidden = popover !== guestsPopover;
+    }
+
+    function dayStatus(date) {
+      if (date < today()) return "Past dates can't be selected.";
+      if (sameDay(date, state.checkIn)) return 'Selected check-in date.';
+      if (sameDay(date, state.checkOut)) return 'Selected checkout date.';
+      if (state.checkIn && !state.checkOut) return 'Available. Select as checkout date';
+      return 'Available. Select as check-in date';
+    }
+
+    function renderMonth(year, month) {
+      const header = element('tr', {}, ['Su', 'Mo', 'Tu', 'We', 'Th', 'Fr', 'Sa']
+          .map((day) => element('th', {scope: 'col'}, [day])));
+      const rows = [header];
+      let row = element('tr');
+      const firstWeekday = new Date(year, month, 1).getDay();
+      for (let i = 0; i < firstWeekday; i++) row.append(element('td'));
+
+      for (let day = 1; day <= new Date(year, month + 1, 0).getDate(); day++) {
+        const date = new Date(year, month, day);
+        const past = date < today();
+        const selected = sameDay(date, state.checkIn) || sameDay(date, state.checkOut);
+        const cell = element('td', {
+          'role': 'button',
+          'aria-disabled': past ? 'true' : 'false',
+          'aria-label': day + ', ' + WEEKDAYS[date.getDay()] + ', ' + FULL_MONTHS[month] + ' '
+              + year + '. ' + dayStatus(date),
+          'data-testid': 'calendar-day-' + pad(month + 1) + '/' + pad(day) + '/' + year,
+          'data-selected': selected ? 'true' : null,
+          'tabindex': past ? '-1' : '0'
+        }, [element('div', {'data-is-day-blocked': String(past)}, [String(day)])]);
+        if (!past) cell.addEventListener('click', () => selectDate(date));
+        row.append(cell);
+        if (date.getDay() === 6) {
+          rows.push(row);
+          row = element('tr');
+        }
+      }
+      if (row.children.length > 0) rows.push(row);
+
+      return element('div', {class: 'calendar-month'}, [
+        element('h3', {}, [FULL_MONTHS[month] + ' ' + year]),
+        element('table', {role: 'grid'}, [element('tbody', {}, rows)])
+      ]);
+    }
+
+    function renderCalendar() {
+      const start = today();
+      calendar.replaceChildren(
+          renderMonth(start.getFullYear(), start.getMonth()),
+          renderMonth(start.getFullYear() + (start.getMonth() === 11 ? 1 : 0),
+              (start.getMonth() + 1) % 12));
+    }
+
+    function selectDate(date) {
+      if (!state.checkIn || state.checkOut || date <= state.checkIn) {
+        state.checkIn = date;
+        state.checkOut = null;
+      } else {
+        state.checkOut = date;
+      }
+      checkInPanel.querySelector('.value').textContent =
+          state.checkIn ? monthDay(state.checkIn) : 'Add dates';
+      checkOutPanel.querySelector('.value').textContent =
+          state.checkOut ? monthDay(state.checkOut) : 'Add dates';
+      renderCalendar();
+    }
+
+    function renderGuests() {
+      const counts = state.counts;
+      Object.keys(counts).forEach((type) => {
+        guestsPopover.querySelector('[data-testid="stepper-' + type + '-value"]').textContent =
+            String(counts[type]);
+        const minimum = type === 'adults' && (counts.children + counts.infants + counts.pets) > 0
+            ? 1 : 0;
+        guestsPopover.querySelector('[data-testid="stepper-' + type + '-decrease-button"]')
+            .disabled = counts[type] <= minimum;
+      });
+      const guests = counts.adults + counts.children;
+      guestsPopover.querySelector('[data-testid="stepper-adults-increase-button"]').disabled =
+          guests >= 16;
+      guestsPopover.querySelector('[data-testid="stepper-children-increase-button"]').disabled =
+          guests >= 16;
+      guestsPopover.querySelector('[data-testid="stepper-infants-increase-button"]').disabled =
+          counts.infants >= 5;
+      guestsPopover.querySelector('[data-testid="stepper-pets-increase-button"]').disabled =
+          counts.pets >= 5;
+      guestsPanel.querySelector('.value').textContent = guestsSummary(counts);
+    }
+
+    Object.keys(state.counts).forEach((type) => {
+      guestsPopover.querySelector('[data-testid="stepper-' + type + '-increase-button"]')
+          .addEventListener('click', () => {
+            state.counts[type]++;
+            // Children, infants and pets need an adult, as on the site
+            if (type !== 'adults' && state.counts.adults === 0) state.counts.adults = 1;
+            renderGuests();
+          });
+      guestsPopover.querySelector('[data-testid="stepper-' + type + '-decrease-button"]')
+          .addEventListener('click', () => {
+            state.counts[type] = Math.max(0, state.counts[type] - 1);
+            renderGuests();
+          });
+    });
+
+    checkInPanel.addEventListener('click', () => {
+      open(calendar);
+      renderCalendar();
+    });
+    checkOutPanel.addEventListener('click', () => {
+      open(calendar);
+      renderCalendar();
+    });
+    guestsPanel.addEventListener('click', () => open(guestsPopover));
+    locationInput.addEventListener('focus', () => open(null));
+
+    form.querySelector('[data-testid="structured-search-input-search-button"]')
+        .addEventListener('click', () => {
+          const query = locationInput.value.trim();
+          const params = new URLSearchParams();
+          params.append('refinement_paths[]', '/homes');
+          if (query) params.set('query', query);
+          if (state.checkIn && state.checkOut) {
+            params.set('checkin', isoDate(state.checkIn));
+            params.set('checkout', isoDate(state.checkOut));
+          }
+          Object.entries(state.counts).forEach(([type, count]) => {
+            if (count > 0) params.set(type, String(count));
+          });
+          const slug = (query || 'homes').replace(/,\s*/g, '--').replace(/\s+/g, '-');
+          window.location.assign('/s/' + encodeURIComponent(slug).replace(/%2D/g, '-')
+              + '/homes?' + params.toString());
+        });
+  }
+
+  // ---- results page ----
+
+  function searchQuery(params) {
+    if (params.get('query')) return params.get('query');
+    const slug = decodeURIComponent(window.location.pathname.split('/')[2] || '');
+    return slug.replace(/--/g, ', ').replace(/-/g, ' ');
+  }
+
+  function listingLines(result, params) {
+    const listing = result.listing;
+    const price = result.pricingQuote.structuredStayDisplayPrice.primaryLine;
+    const checkIn = parseIsoDate(params.get('checkin'));
+    const checkOut = parseIsoDate(params.get('checkout'));
+    const lines = [
+      element('div', {'class': 'title', 'data-testid': 'listing-card-title'}, [listing.title]),
+      element('div', {'class': 'subtitle', 'data-testid': 'listing-card-name'}, [listing.name])
+    ];
+    if (listing.showRoomsOnCard) {
+      lines.push(element('div', {class: 'subtitle'}, [
+        plural(listing.bedrooms, 'bedroom') + ' · ' + plural(listing.beds, 'bed')]));
+    }
+    if (checkIn && checkOut) {
+      lines.push(element('div', {class: 'dates'}, [formatDateRange(checkIn, checkOut)]));
+    }
+    lines.push(element('div', {class: 'price'}, [
+      element('span', {}, [price.price]), ' ', element('span', {}, ['per ' + price.qualifier])]));
+    (listing.badges || []).filter((badge) => badge === 'Free cancellation')
+        .forEach((badge) => lines.push(element('div', {class: 'badge'}, [badge])));
+    if (result.avgRatingA11yLabel) {
+      lines.push(element('div', {class: 'rating'}, [result.avgRatingA11yLabel]));
+    }
+    return lines;
+  }
+
+  function roomUrl(listing, params) {
+    const roomParams = new URLSearchParams();
+    ['checkin', 'checkout', 'adults', 'children', 'infants', 'pets'].forEach((name) => {
+      if (params.get(name)) roomParams.set(name === 'checkin' ? 'check_in'
+          : name === 'checkout' ? 'check_out' : name, params.get(name));
+    });
+    return '/rooms/' + listing.id + '?' + roomParams.toString();
+  }
+
+  function initResults() {
+    const heading = document.querySelector('[data-testid="stays-page-heading"]');
+    const grid = document.querySelector('.listing-grid');
+    const pagination = document.querySelector('.pagination');
+    const map = document.querySelector('.map');
+    const filtersModal = document.querySelector('[aria-label="Filters"]');
+    const bedroomsValue = filtersModal.querySelector(
+        '[data-testid="stepper-filter-item-min_bedrooms-stepper-value"]');
+    const bedroomsDecrease = filtersModal.querySelector(
+        '[data-testid="stepper-filter-item-min_bedrooms-stepper-decrease-button"]');
+    const showPlaces = filtersModal.querySelector('.modal-footer a');
+    const moreAmenities = filtersModal.querySelector('.more-amenities');
+    const showMore = filtersModal.querySelector('.show-more');
+    let filters = {minBedrooms: 0, amenities: []};
+
+    function renderSearchSummary(params) {
+      const checkIn = parseIsoDate(params.get('checkin'));
+      const checkOut = parseIsoDate(params.get('checkout'));
+      const count = (name) => parseInt(params.get(name) || '0', 10);
+      document.querySelector('[data-testid="little-search-location-value"]').textContent =
+          searchQuery(params).split(',')[0].trim() || 'Anywhere';
+      document.querySelector('[data-testid="little-search-dates-value"]').textContent =
+          checkIn && checkOut ? formatDateRange(checkIn, checkOut) : 'Any week';
+      document.querySelector('[data-testid="little-search-guests-value"]').textContent =
+          guestsSummary({adults: count('adults'), children: count('children'),
+            infants: count('infants'), pets: count('pets')});
+    }
+
+    function renderPins(results, params) {
+      const popup = element('div', {'class': 'map-popup', 'data-testid': 'map-popup'});
+      popup.hidden = true;
+      const coordinates = results.map((result) => result.listing.coordinate).filter(Boolean);
+      const latitudes = coordinates.map((coordinate) => coordinate.latitude);
+      const longitudes = coordinates.map((coordinate) => coordinate.longitude);
+      const bounds = {
+        north: Math.max(...latitudes), south: Math.min(...latitudes),
+        east: Math.max(...longitudes), west: Math.min(...longitudes)
+      };
+
+      const pins = results.map((result, index) => {
+        const listing = result.listing;
+        const price = result.pricingQuote.structuredStayDisplayPrice.primaryLine.price;
+        let left = 15 + (index % 4) * 23;
+        let top = 12 + Math.floor(index / 4) * 16;
+        if (listing.coordinate && bounds.east > bounds.west && bounds.north > bounds.south) {
+          left = 10 + 80 * (listing.coordinate.longitude - bounds.west) / (bounds.east - bounds.west);
+          top = 10 + 80 * (bounds.north - listing.coordinate.latitude) / (bounds.north - bounds.south);
+        }
+        const pin = element('button', {
+          'type': 'button',
+          'class': 'map-pin',
+          'data-testid': 'map/markers/BasePillMarker',
+          'data-listing-id': listing.id,
+          'style': 'left: ' + left.toFixed(2) + '%; top: ' + top.toFixed(2) + '%; z-index: '
+              + (results.length - index)
+        }, [
+          element('span', {class: 'visually-hidden'}, [listing.title + ', ' + price]),
+          element('div', {'aria-hidden': 'true'}, [price])
+        ]);
+        pin.addEventListener('click', (event) => {
+          event.stopPropagation();
+          map.querySelectorAll('.map-pin.is-selected')
+              .forEach((other) => other.classList.remove('is-selected'));
+          pin.classList.add('is-selected');
+          popup.replaceChildren(element('a', {href: roomUrl(listing, params), target: '_blank'}, [
+            element('div', {class: 'photo'}),
+            element('div', {
+              class: 'gltso3m atm_u80d3j_1li1fea atm_c8_o7aogt atm_g3_8jkm7i atm_l8_y1qneu '
+                  + 'c1v0rf5q atm_9s_11p5wf0 atm_cx_4wguik atm_dz_7esijk atm_e0_1lo05zz dir dir-ltr'
+            }, listingLines(result, params))
+          ]));
+          popup.hidden = false;
+        });
+        return pin;
+      });
+
+      map.onclick = () => {
+        popup.hidden = true;
+        map.querySelectorAll('.map-pin.is-selected')
+            .forEach((pin) => pin.classList.remove('is-selected'));
+      };
+      map.replaceChildren(...pins, popup);
+      return pins;
+    }
+
+    function renderResults(response, params) {
+      const results = response.data.presentation.staysSearch.results;
+      const info = results.paginationInfo;
+      const city = searchQuery(params).split(',')[0].trim();
+      heading.textContent = info.totalCount === 0 ? 'No exact matches'
+          : (info.totalCount > 1000 ? 'Over 1,000' : String(info.totalCount))
+              + (info.totalCount === 1 ? ' home' : ' homes') + (city ? ' in ' + city : '');
+
+      const pins = renderPins(results.searchResults, params);
+      grid.replaceChildren(...results.searchResults.map((result, index) => {
+        const listing = result.listing;
+        const card = element('div', {
+          'class': 'listing-card',
+          'itemprop': 'itemListElement',
+          'data-testid': 'card-container',
+          'data-listing-id': listing.id
+        }, [
+          element('a', {'class': 'card-link', 'href': roomUrl(listing, params),
+            'target': '_blank', 'aria-label': listing.title}),
+          element('div', {class: 'photo'}),
+          element('div', {'class': 'g1qv1ctd c1v0rf5q dir dir-ltr',
+            'data-testid': 'listing-card-subtitle'}, listingLines(result, params))
+        ]);
+        card.addEventListener('mouseenter', () => pins[index].classList.add('is-hovered'));
+        card.addEventListener('mouseleave', () => pins[index].classList.remove('is-hovered'));
+        return card;
+      }));
+
+      const pageParams = (offset) => {
+        const next = new URLSearchParams(params);
+        next.set('items_offset', String(offset));
+        return '?' + next.toString();
+      };
+      const links = [];
+      if (info.itemsOffset > 0) {
+        links.push(element('a', {'href': pageParams(Math.max(0, info.itemsOffset - info.pageSize)),
+          'aria-label': 'Previous'}, ['Previous']));
+      }
+      links.push(element('span', {'aria-current': 'page'},
+          [String(Math.floor(info.itemsOffset / info.pageSize) + 1)]));
+      if (info.hasNextPage) {
+        links.push(element('a', {'href': pageParams(info.itemsOffset + info.pageSize),
+          'aria-label': 'Next'}, ['Next']));
+      }
+      pagination.replaceChildren(...links);
+    }
+
+    function search(params) {
+      return fetchJson('/api/v3/StaysSearch?' + params.toString());
+    }
+
+    function load(params) {
+      renderSearchSummary(params);
+      filters = {
+        minBedrooms: parseInt(params.get('min_bedrooms') || '0', 10),
+        amenities: params.getAll('amenities[]')
+      };
+      search(params).then((response) => renderResults(response, params));
+    }
+
+    function filteredParams() {
+      const params = new URLSearchParams(window.location.search);
+      params.delete('items_offset');
+      params.delete('min_bedrooms');
+      params.delete('amenities[]');
+      if (filters.minBedrooms > 0) params.set('min_bedrooms', String(filters.minBedrooms));
+      filters.amenities.forEach((amenity) => params.append('amenities[]', amenity));
+      return params;
+    }
+
+    // Mirrors the site's "Show N places" button, which previews the result count of the filters
+    function updateFilters() {
+      bedroomsValue.textContent = filters.minBedrooms > 0 ? filters.minBedrooms + '+' : 'Any';
+      bedroomsDecrease.disabled = filters.minBedrooms === 0;
+      filtersModal.querySelectorAll('[data-amenity-id]').forEach((button) => {
+        button.setAttribute('aria-pressed',
+            String(filters.amenities.includes(button.dataset.amenityId)));
+      });
+      const params = filteredParams();
+      showPlaces.href = window.location.pathname + '?' + params.toString();
+      search(params).then((response) => {
+        const total = response.data.presentation.staysSearch.results.paginationInfo.totalCount;
+        showPlaces.textContent = total === 0 ? 'Show 0 places'
+            : 'Show ' + (total > 1000 ? '1,000+' : total) + (total === 1 ? ' place' : ' places');
+      });
+    }
+
+    document.querySelector('[data-testid="category-bar-filter-button"]')
+        .addEventListener('click', () => {
+          filtersModal.hidden = false;
+          updateFilters();
+        });
+    filtersModal.querySelector('[data-testid="filters-close-button"]')
+        .addEventListener('click', () => {
+          filtersModal.hidden = true;
+        });
+    filtersModal.querySelector(
+        '[data-testid="stepper-filter-item-min_bedrooms-stepper-increase-button"]')
+        .addEventListener('click', () => {
+          filters.minBedrooms = Math.min(8, filters.minBedrooms + 1);
+          updateFilters();
+        });
+    bedroomsDecrease.addEventListener('click', () => {
+      filters.minBedrooms = Math.max(0, filters.minBedrooms - 1);
+      updateFilters();
+    });
+    filtersModal.querySelectorAll('[data-amenity-id]').forEach((button) => {
+      button.addEventListener('click', () => {
+        const id = button.dataset.amenityId;
+        filters.amenities = filters.amenities.includes(id)
+            ? filters.amenities.filter((amenity) => amenity !== id)
+            : filters.amenities.concat(id);
+        updateFilters();
+      });
+    });
+    showMore.addEventListener('click', () => {
+      const expanded = moreAmenities.hidden;
+      moreAmenities.hidden = !expanded;
+      showMore.setAttribute('aria-expanded', String(expanded));
+      showMore.querySelector('span').textContent = expanded ? 'Show less' : 'Show more';
+    });
+    // Applying the filters re-renders the results in place, like the single-page app does
+    showPlaces.addEventListener('click', (event) => {
+      event.preventDefault();
+      const params = filteredParams();
+      filtersModal.hidden = true;
+      heading.textContent = '';
+      grid.replaceChildren();
+      history.pushState(null, '', window.location.pathname + '?' + params.toString());
+      load(params);
+    });
+    window.addEventListener('popstate', () => {
+      load(new URLSearchParams(window.location.search));
+    });
+
+    load(new URLSearchParams(window.location.search));
+  }
+
+  // ---- listing page ----
+
+  function initRoom() {
+    const id = window.location.pathname.split('/')[2];
+    const translationDialog = document.querySelector('[aria-label="Translation on"]');
+    const amenitiesDialog = document.querySelector('[aria-label="What this place offers"]');
+
+    translationDialog.querySelector('button[aria-label="Close"]').addEventListener('click', () => {
+      translationDialog.hidden = true;
+    });
+    amenitiesDialog.querySelector('button[aria-label="Close amenities"]')
+        .addEventListener('click', () => {
+          amenitiesDialog.hidden = true;
+        });
+
+    fetchJson('/api/v3/StaysPdpSections?id=' + encodeURIComponent(id)).then((response) => {
+      const result = response.data.presentation.stayProductDetailPage;
+      const listing = result.listing;
+      document.title = listing.name + ' - ' + listing.title + ' - Airbnb';
+      document.querySelector('[data-testid="listing-name"]').textContent = listing.name;
+      document.querySelector('[data-testid="listing-title"]').textContent =
+          listing.title + ', Italy';
+      document.querySelector('[data-testid="listing-rating"]').textContent =
+          result.avgRatingA11yLabel || '';
+
+      const overview = [plural(listing.personCapacity, 'guest'),
+        plural(listing.bedrooms, 'bedroom'), plural(listing.beds, 'bed'),
+        plural(listing.bathrooms, 'bath')];
+      document.querySelector('.overview ol').replaceChildren(...overview.map((text, index) =>
+          element('li', {class: 'l7n4lsf atm_9s_1o8liyq_keqd55 dir dir-ltr'},
+              index === 0 ? [text] : [element('span', {'aria-hidden': 'true'}, [' · ']), text])));
+
+      const amenities = listing.amenities || [];
+      document.querySelector('.amenities ul').replaceChildren(
+          ...amenities.slice(0, 6).map((amenity) => element('li', {}, [amenity])));
+      const showAll = document.querySelector('.amenities button');
+      showAll.textContent = 'Show all ' + amenities.length + ' amenities';
+      showAll.onclick = () => {
+        amenitiesDialog.hidden = false;
+      };
+
+      const groups = new Map();
+      amenities.forEach((amenity) => {
+        const group = AMENITY_GROUPS[amenity] || 'Services';
+        if (!groups.has(group)) groups.set(group, []);
+        groups.get(group).push(amenity);
+      });
+      amenitiesDialog.querySelector('.amenity-groups').replaceChildren(
+          ...Array.from(groups.entries()).map(([group, items]) =>
+              element('div', {class: '_11jhslp dir dir-ltr'}, [
+                element('h2', {}, [group]),
+                element('ul', {}, items.map((item) => element('li', {}, [item])))
+              ])));
+
+      translationDialog.hidden = false;
+    });
+  }
+
+  const pages = {home: initHome, results: initResults, room: initRoom};
+  const init = pages[document.body.dataset.page];
+  if (init) init();
+})();